@@ -0,0 +1,106 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tempo de codificação de /status e /players em JSON, CBOR e MessagePack, com os mesmos
+ * render dos handlers. Os tamanhos dos corpos (sem compressão e com gzip) são impressos
+ * no início de cada combinação de parâmetros.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="BinaryFormatBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    // Nome do DocumentWriter.Format (o gerador do JMH não enxerga o enum, que é do pacote)
+    @Param({"JSON", "CBOR", "MSGPACK"})
+    public String format;
+
+    @Param({"50", "500"})
+    public int players;
+
+    private DocumentWriter.Format documentFormat;
+    private ServerSnapshot snapshot;
+    private PlayerQuery allFields;
+
+    @Setup
+    public void setup() {
+        documentFormat = DocumentWriter.Format.valueOf(format);
+        Random random = new Random(42);
+        List<PlayerSnapshot> list = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            PlayerSnapshot.Builder p = new PlayerSnapshot.Builder();
+            p.name = "Jogador" + i;
+            p.uuid = new UUID(0x5EED, i);
+            p.latency = 20 + random.nextInt(180);
+            p.levelId = i % 4;
+            // Coordenadas de mundo com parte fracionária, como as do jogo
+            p.x = random.nextFloat() * 100_000f;
+            p.y = random.nextFloat() * 100_000f;
+            p.biome = "forest";
+            p.health = 1 + random.nextInt(100);
+            p.maxHealth = 100;
+            p.mana = random.nextInt(50);
+            p.maxMana = 50;
+            p.onlineTime = 60_000L * random.nextInt(600);
+            p.playerClass = "player";
+            p.playerLevel = 1 + random.nextInt(60);
+            p.experience = random.nextInt(5_000_000);
+            list.add(p.build());
+        }
+
+        ServerSnapshot.Builder b = new ServerSnapshot.Builder();
+        b.sequence = 42;
+        b.capturedAt = System.currentTimeMillis();
+        b.serverName = "Servidor de Benchmark";
+        b.serverVersion = "0.21.20";
+        b.motd = "Bem-vindo!";
+        b.playersOnline = players;
+        b.maxPlayers = 500;
+        b.worldTime = "12:00";
+        b.tps = 19.97f;
+        b.players = list;
+        snapshot = b.build();
+        allFields = PlayerQuery.all(ApiConfig.defaults());
+
+        Compression compression = new Compression();
+        compression.configure(true, 0, 6);
+        byte[] status = statusBody();
+        byte[] playerList = playersBody();
+        System.out.printf("%n%s, %d jogadores: /status %d bytes (gzip %d), /players %d bytes (gzip %d)%n",
+            format, players,
+            status.length, compression.encode(status, Compression.Encoding.GZIP).length,
+            playerList.length, compression.encode(playerList, Compression.Encoding.GZIP).length);
+    }
+
+    @Benchmark
+    public byte[] statusBody() {
+        return WebInfoAPI.StatusHandler.render(snapshot, documentFormat);
+    }
+
+    @Benchmark
+    public byte[] playersBody() {
+        return WebInfoAPI.PlayersHandler.render(snapshot, allFields, documentFormat);
+    }
+}
@@ -0,0 +1,173 @@
+package com.meuservidor.webapi;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+
+/**
+ * HttpExchange em memória para chamar os handlers sem socket: o corpo da resposta é só
+ * contado, e {@link #reset()} prepara a mesma instância para a próxima invocação (os
+ * cabeçalhos da requisição são mantidos; streams trocados por filtros voltam aos originais).
+ */
+final class FakeExchange extends HttpExchange {
+
+    private static final InetSocketAddress LOCAL = new InetSocketAddress("127.0.0.1", 8080);
+
+    private final NioHttpExchange.Context context;
+    private final URI uri;
+    private final Headers requestHeaders = new Headers();
+    private Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final CountingStream body = new CountingStream();
+    private InputStream requestBody = new ByteArrayInputStream(new byte[0]);
+    private OutputStream responseBody = body;
+    private InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 50_000);
+    private int responseCode = -1;
+
+    /**
+     * @param contextPath caminho registrado do handler (ex.: "/players")
+     * @param requestUri  caminho e query da requisição
+     */
+    FakeExchange(String contextPath, HttpHandler handler, String requestUri) {
+        this.context = new NioHttpExchange.Context(contextPath, handler);
+        this.uri = URI.create(requestUri);
+    }
+
+    FakeExchange header(String name, String value) {
+        requestHeaders.set(name, value);
+        return this;
+    }
+
+    FakeExchange remote(InetSocketAddress address) {
+        this.remote = address;
+        return this;
+    }
+
+    FakeExchange reset() {
+        responseHeaders = new Headers();
+        responseCode = -1;
+        body.count = 0;
+        requestBody = new ByteArrayInputStream(new byte[0]);
+        responseBody = body;
+        return this;
+    }
+
+    /**
+     * Bytes escritos no corpo desde o último reset
+     */
+    long bodyBytes() {
+        return body.count;
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return "GET";
+    }
+
+    @Override
+    public NioHttpExchange.Context getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remote;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return LOCAL;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        if (in != null) {
+            requestBody = in;
+        }
+        if (out != null) {
+            responseBody = out;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
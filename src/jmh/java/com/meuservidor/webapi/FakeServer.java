@@ -0,0 +1,190 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Servidor de mentira para os benchmarks: o mesmo estado que o SnapshotEngine lê do
+ * necesse.engine.server.Server e dos ServerPlayer, sem o jogo (que é compileOnly e não
+ * roda fora do Necesse).
+ *
+ * {@link #tick()} faz os jogadores andarem e variarem vida, mana e latência, como num
+ * servidor ocupado; {@link #capture(long)} monta o snapshot campo a campo como
+ * SnapshotEngine.capture, e o resultado entra na API por WebInfoAPI.publishSnapshot.
+ */
+final class FakeServer {
+
+    private static final String[] BIOMES = {"forest", "plains", "desert", "snow", "swamp", "dungeon"};
+    private static final String[] CLASSES = {"player", "warrior", "mage", "ranger", "summoner"};
+    private static final String[] SEASONS = {"SPRING", "SUMMER", "AUTUMN", "WINTER"};
+    // Tamanho do mundo em unidades de jogo (32 por tile)
+    private static final float WORLD_SIZE = 100_000f;
+
+    /**
+     * Campos que a captura lê de um ServerPlayer
+     */
+    static final class FakePlayer {
+        String playerName;
+        UUID uuid;
+        int latency;
+        int levelId;
+        String biome;
+        float x;
+        float y;
+        float vx;
+        float vy;
+        int health;
+        int maxHealth;
+        int mana;
+        int maxMana;
+        long joinTime;
+        boolean serverClient;
+        String mobId;
+        int level;
+        long exp;
+    }
+
+    private final Random random;
+    private final List<FakePlayer> players = new ArrayList<>();
+    private long ticks;
+
+    String serverName = "Servidor de Benchmark";
+    String version = "0.21.20";
+    String motd = "Bem-vindo ao servidor!";
+    String password = "";
+    int slots = 500;
+    int port = 14159;
+    long startTime = System.currentTimeMillis() - 3_600_000L;
+    float tps = 20f;
+    String worldName = "mundo";
+    long seed = 123_456_789L;
+
+    FakeServer(int playerCount, long seed) {
+        this.random = new Random(seed);
+        for (int i = 0; i < playerCount; i++) {
+            join();
+        }
+    }
+
+    /**
+     * Um jogador novo, em posição aleatória
+     */
+    FakePlayer join() {
+        int i = players.size();
+        FakePlayer p = new FakePlayer();
+        p.playerName = "Jogador" + i;
+        p.uuid = new UUID(0x5EED, i);
+        p.latency = 20 + random.nextInt(180);
+        p.levelId = i % 4;
+        p.biome = BIOMES[random.nextInt(BIOMES.length)];
+        p.x = random.nextFloat() * WORLD_SIZE;
+        p.y = random.nextFloat() * WORLD_SIZE;
+        p.vx = random.nextFloat() * 8 - 4;
+        p.vy = random.nextFloat() * 8 - 4;
+        p.maxHealth = 100 + 10 * random.nextInt(10);
+        p.health = 1 + random.nextInt(p.maxHealth);
+        p.maxMana = 50 + 10 * random.nextInt(5);
+        p.mana = random.nextInt(p.maxMana + 1);
+        p.joinTime = System.currentTimeMillis() - 60_000L * random.nextInt(600);
+        p.serverClient = i == 0;
+        p.mobId = CLASSES[random.nextInt(CLASSES.length)];
+        p.level = 1 + random.nextInt(60);
+        p.exp = random.nextInt(5_000_000);
+        players.add(p);
+        return p;
+    }
+
+    int playerCount() {
+        return players.size();
+    }
+
+    /**
+     * Um tick do jogo: movimento, dano/regeneração e oscilação de latência e TPS
+     */
+    void tick() {
+        ticks++;
+        for (FakePlayer p : players) {
+            p.x = clamp(p.x + p.vx);
+            p.y = clamp(p.y + p.vy);
+            if (random.nextInt(40) == 0) {
+                p.vx = random.nextFloat() * 8 - 4;
+                p.vy = random.nextFloat() * 8 - 4;
+            }
+            if (random.nextInt(10) == 0) {
+                p.health = Math.max(1, Math.min(p.maxHealth, p.health + random.nextInt(11) - 5));
+                p.mana = Math.max(0, Math.min(p.maxMana, p.mana + random.nextInt(5) - 2));
+            }
+            if (random.nextInt(20) == 0) {
+                p.latency = Math.max(5, p.latency + random.nextInt(21) - 10);
+            }
+        }
+        tps = 19.5f + random.nextFloat() * 0.5f;
+    }
+
+    /**
+     * Snapshot com os mesmos campos que SnapshotEngine.capture lê do Server real
+     */
+    ServerSnapshot capture(long sequence) {
+        long now = System.currentTimeMillis();
+        ServerSnapshot.Builder b = new ServerSnapshot.Builder();
+        b.sequence = sequence;
+        b.capturedAt = now;
+
+        b.serverName = serverName;
+        b.serverVersion = version;
+        b.motd = motd;
+        b.hasPassword = password != null && !password.isEmpty();
+        b.playersOnline = players.size();
+        b.maxPlayers = slots;
+        b.serverPort = port;
+        b.startTime = startTime;
+        b.tps = tps;
+
+        long gameTicks = ticks + 20L * 60 * 60 * 24 * 3;
+        b.worldName = worldName;
+        b.worldTime = String.format("%02d:%02d", (gameTicks / 1200) % 24, (gameTicks / 20) % 60);
+        b.worldDay = (int) (gameTicks / (20L * 60 * 24));
+        b.worldSeed = seed;
+        b.biomeCount = BIOMES.length;
+        b.worldWidth = (int) WORLD_SIZE / 32;
+        b.worldHeight = (int) WORLD_SIZE / 32;
+        b.spawnX = 1_500;
+        b.spawnY = 1_500;
+        b.weather = "CLEAR";
+        b.season = SEASONS[b.worldDay / 10 % SEASONS.length];
+        b.pvpEnabled = false;
+        b.difficulty = "CLASSIC";
+        b.gameTime = gameTicks;
+
+        List<PlayerSnapshot> list = new ArrayList<>(Math.max(players.size(), 4));
+        for (FakePlayer player : players) {
+            PlayerSnapshot.Builder p = new PlayerSnapshot.Builder();
+            p.name = player.playerName;
+            p.uuid = player.uuid;
+            p.latency = player.latency;
+            p.levelId = player.levelId;
+            p.x = player.x;
+            p.y = player.y;
+            p.biome = player.biome;
+            p.health = player.health;
+            p.maxHealth = player.maxHealth;
+            p.mana = player.mana;
+            p.maxMana = player.maxMana;
+            p.joinTime = player.joinTime;
+            p.onlineTime = now - player.joinTime;
+            p.admin = player.serverClient;
+            p.playerClass = player.mobId;
+            p.playerLevel = player.level;
+            p.experience = player.exp;
+            list.add(p.build());
+        }
+        b.players = list;
+        return b.build();
+    }
+
+    private static float clamp(float value) {
+        return value < 0 ? -value : value > WORLD_SIZE ? 2 * WORLD_SIZE - value : value;
+    }
+}
@@ -0,0 +1,147 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Caminho quente dos handlers com o servidor de mentira ({@link FakeServer}) no lugar do
+ * Necesse: captura do snapshot, render de /status e /players (completo e incremental, um
+ * tick depois da versão do cliente) e o handle() completo (autenticação, rate limit,
+ * negociação, cache e envio) com um HttpExchange em memória.
+ *
+ * Com cache=false todo handle() de /players com query monta o corpo de novo; sem query,
+ * a lista completa continua memorizada por snapshot, mas o gzip é refeito a cada resposta.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="HandlerBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int players;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private FakeServer server;
+    private WebInfoAPI api;
+    private ApiConfig config;
+    private ServerSnapshot snapshot;
+    private PlayerQuery all;
+    private PlayerQuery delta;
+    private long sequence;
+
+    private FakeExchange status;
+    private FakeExchange playersList;
+    private FakeExchange playersQuery;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = config(
+            "api.rate_limit.enabled", "false",
+            "api.cache.enabled", String.valueOf(cache));
+        server = new FakeServer(players, 42);
+        api = WebInfoAPI.startStandalone(config, "127.0.0.1", 0);
+        WebInfoAPI.publishSnapshot(server.capture(++sequence));
+        server.tick();
+        snapshot = server.capture(++sequence);
+        WebInfoAPI.publishSnapshot(snapshot);
+        all = PlayerQuery.all(config);
+        delta = PlayerQuery.parse(QueryParams.parse("since=" + (sequence - 1)), config);
+
+        status = new FakeExchange("/status", new WebInfoAPI.StatusHandler(), "/status")
+            .header("Accept-Encoding", "gzip");
+        WebInfoAPI.PlayersHandler handler = new WebInfoAPI.PlayersHandler();
+        playersList = new FakeExchange("/players", handler, "/players")
+            .header("Accept-Encoding", "gzip");
+        playersQuery = new FakeExchange("/players", handler, "/players?sort=-latency&limit=50")
+            .header("Accept-Encoding", "gzip");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.dispose();
+    }
+
+    /**
+     * ApiConfig a partir de pares chave/valor, sem o arquivo de propriedades; o histórico
+     * fica só em memória para não gravar arquivo durante o benchmark
+     */
+    static ApiConfig config(String... keyValues) {
+        Properties properties = new Properties();
+        properties.setProperty("api.history.persist", "false");
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            properties.setProperty(keyValues[i], keyValues[i + 1]);
+        }
+        List<String> errors = new ArrayList<>();
+        ApiConfig config = ApiConfig.parse(properties, errors);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Configuração inválida no benchmark: " + errors);
+        }
+        return config;
+    }
+
+    /**
+     * Trabalho da thread do jogo por captura: um tick e a cópia para o snapshot imutável
+     */
+    @Benchmark
+    public ServerSnapshot capture() {
+        server.tick();
+        return server.capture(++sequence);
+    }
+
+    @Benchmark
+    public byte[] renderStatus() {
+        return WebInfoAPI.StatusHandler.render(snapshot, DocumentWriter.Format.JSON);
+    }
+
+    @Benchmark
+    public byte[] renderPlayers() {
+        return WebInfoAPI.PlayersHandler.render(snapshot, all, DocumentWriter.Format.JSON);
+    }
+
+    @Benchmark
+    public byte[] renderPlayersDelta() {
+        return WebInfoAPI.PlayersHandler.renderDelta(snapshot, delta, DocumentWriter.Format.JSON);
+    }
+
+    @Benchmark
+    public long handleStatus() throws IOException {
+        status.reset().getHttpContext().getHandler().handle(status);
+        return status.bodyBytes();
+    }
+
+    @Benchmark
+    public long handlePlayers() throws IOException {
+        playersList.reset().getHttpContext().getHandler().handle(playersList);
+        return playersList.bodyBytes();
+    }
+
+    @Benchmark
+    public long handlePlayersQuery() throws IOException {
+        playersQuery.reset().getHttpContext().getHandler().handle(playersQuery);
+        return playersQuery.bodyBytes();
+    }
+}
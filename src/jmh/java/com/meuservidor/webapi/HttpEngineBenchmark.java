@@ -0,0 +1,125 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Carga em loopback contra os dois engines HTTP: cada thread do JMH é um cliente com uma
+ * conexão keep-alive própria, enviando "pipeline" requisições por escrita e lendo as
+ * respostas. O handler devolve um corpo fixo pelo mesmo caminho de writeBody (corpo
+ * compartilhado no engine "nio"), então a diferença medida é a do transporte.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="HttpEngineBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class HttpEngineBenchmark {
+
+    private static final int PORT = 18_181;
+
+    @Param({"jdk", "nio"})
+    public String engine;
+
+    // Tamanho do corpo da resposta, em bytes
+    @Param({"512", "65536"})
+    public int bodySize;
+
+    // Requisições enviadas de uma vez por conexão (1 = sem pipelining)
+    @Param({"1", "8"})
+    public int pipeline;
+
+    private HttpEngine server;
+    private ExecutorService executor;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("api.server.engine", engine);
+        properties.setProperty("api.server.max_requests_per_connection", String.valueOf(Integer.MAX_VALUE));
+        ApiConfig config = ApiConfig.parse(properties, new ArrayList<>());
+
+        body = new byte[bodySize];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) ('a' + i % 26);
+        }
+        executor = Executors.newFixedThreadPool(8);
+        server = HttpEngine.create(config, new InetSocketAddress("127.0.0.1", PORT));
+        server.setExecutor(executor);
+        server.createContext("/status", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                if (os instanceof HttpEngine.SharedBodyOutput) {
+                    ((HttpEngine.SharedBodyOutput) os).writeShared(ByteBuffer.wrap(body));
+                } else {
+                    os.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private LoopbackClient connection;
+        private byte[] requests;
+
+        @Setup(Level.Trial)
+        public void connect(HttpEngineBenchmark benchmark) throws IOException {
+            connection = new LoopbackClient(new InetSocketAddress("127.0.0.1", PORT));
+            requests = LoopbackClient.requests("/status", "", benchmark.pipeline);
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            connection.close();
+        }
+    }
+
+    /**
+     * Uma operação = "pipeline" requisições completas (todas as respostas lidas)
+     */
+    @Benchmark
+    public int request(Client client) throws IOException {
+        client.connection.send(client.requests);
+        int total = 0;
+        for (int i = 0; i < pipeline; i++) {
+            total += client.connection.readResponse();
+        }
+        return total;
+    }
+}
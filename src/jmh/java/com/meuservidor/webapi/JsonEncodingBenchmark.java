@@ -0,0 +1,116 @@
+package com.meuservidor.webapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compara a montagem antiga com String.format + getBytes(UTF_8) com o JsonWriter
+ * usado pelos handlers, para /status e /players.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="JsonEncodingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonEncodingBenchmark {
+
+    @Param({"1", "50", "500"})
+    public int players;
+
+    private ServerSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        List<PlayerSnapshot> list = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            PlayerSnapshot.Builder p = new PlayerSnapshot.Builder();
+            p.name = "Jogador" + i;
+            p.uuid = new UUID(0x5EED, i);
+            p.latency = 20 + i % 80;
+            p.levelId = i % 4;
+            p.x = 1234.5f + i;
+            p.y = -987.25f - i;
+            p.biome = "forest";
+            p.health = 90;
+            p.maxHealth = 100;
+            p.mana = 40;
+            p.maxMana = 50;
+            p.onlineTime = 3_600_000L + i;
+            p.playerClass = "player";
+            p.playerLevel = 10 + i % 30;
+            p.experience = 123_456L * i;
+            list.add(p.build());
+        }
+
+        ServerSnapshot.Builder b = new ServerSnapshot.Builder();
+        b.sequence = 42;
+        b.capturedAt = System.currentTimeMillis();
+        b.serverName = "Servidor de Benchmark";
+        b.serverVersion = "0.21.20";
+        b.motd = "Bem-vindo!";
+        b.playersOnline = players;
+        b.maxPlayers = 500;
+        b.worldTime = "12:00";
+        b.tps = 19.97f;
+        b.players = list;
+        snapshot = b.build();
+    }
+
+    @Benchmark
+    public byte[] statusStringFormat() {
+        ServerSnapshot s = snapshot;
+        String json = String.format(
+            "{\"online\":true,\"players\":%d,\"max_players\":%d,\"world_time\":\"%s\",\"uptime\":%d,\"server_version\":\"%s\",\"api_version\":\"2.0.0\",\"server_name\":\"%s\",\"motd\":\"%s\",\"has_password\":%b,\"pvp_enabled\":%b,\"tps\":%.2f}",
+            s.playersOnline, s.maxPlayers, s.worldTime, s.uptime, s.serverVersion, s.serverName, s.motd,
+            s.hasPassword, s.pvpEnabled, s.tps);
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] statusJsonWriter() {
+        return WebInfoAPI.StatusHandler.render(snapshot);
+    }
+
+    @Benchmark
+    public byte[] playersStringFormat() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"players\":[");
+        boolean first = true;
+        for (PlayerSnapshot p : snapshot.players) {
+            if (!first) {
+                json.append(",");
+            }
+            first = false;
+            json.append(String.format(
+                "{\"name\":\"%s\",\"id\":\"%s\",\"latency\":%d,\"level_id\":%d,\"position\":{\"x\":%.2f,\"y\":%.2f},\"biome\":\"%s\",\"health\":{\"current\":%d,\"max\":%d},\"mana\":{\"current\":%d,\"max\":%d},\"online_time\":%d,\"is_admin\":%b,\"player_class\":\"%s\",\"player_level\":%d,\"experience\":%d}",
+                p.name, p.id, p.latency, p.levelId, p.x, p.y, p.biome, p.health, p.maxHealth,
+                p.mana, p.maxMana, p.onlineTime, p.admin, p.playerClass, p.playerLevel, p.experience));
+        }
+        json.append("],\"total_players\":").append(snapshot.playersOnline)
+            .append(",\"version\":").append(snapshot.playersVersion).append("}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] playersJsonWriter() {
+        return WebInfoAPI.PlayersHandler.render(snapshot);
+    }
+}
@@ -0,0 +1,113 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requisição completa em loopback: a API sobe como no jogo (handlers, scheduler, cache,
+ * rate limit desligado) e uma thread faz o papel da thread do jogo, avançando o
+ * {@link FakeServer} e publicando um snapshot a cada intervalo de captura. Cada thread do
+ * JMH é um cliente keep-alive fazendo GET e lendo a resposta inteira.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="LoopbackBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LoopbackBenchmark {
+
+    private static final int PLAYERS = 50;
+    // Intervalo entre snapshots, como o padrão de captura do jogo (a cada poucos ticks)
+    private static final long PUBLISH_INTERVAL_MS = 250;
+
+    @Param({"jdk", "nio"})
+    public String engine;
+
+    @Param({"/status", "/players", "/players?sort=name&limit=20"})
+    public String path;
+
+    private WebInfoAPI api;
+    private InetSocketAddress address;
+    private Thread publisher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApiConfig config = HandlerBenchmark.config(
+            "api.server.engine", engine,
+            "api.server.max_requests_per_connection", String.valueOf(Integer.MAX_VALUE),
+            "api.rate_limit.enabled", "false");
+        FakeServer server = new FakeServer(PLAYERS, 42);
+        api = WebInfoAPI.startStandalone(config, "127.0.0.1", 0);
+        WebInfoAPI.publishSnapshot(server.capture(1));
+        address = api.address();
+
+        publisher = new Thread(() -> {
+            long sequence = 1;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    Thread.sleep(PUBLISH_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                server.tick();
+                WebInfoAPI.publishSnapshot(server.capture(++sequence));
+            }
+        }, "WebInfoAPI-Benchmark-Tick");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        publisher.interrupt();
+        publisher.join();
+        api.dispose();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private LoopbackClient connection;
+        private byte[] request;
+
+        @Setup(Level.Trial)
+        public void connect(LoopbackBenchmark benchmark) throws IOException {
+            connection = new LoopbackClient(benchmark.address);
+            request = LoopbackClient.requests(benchmark.path, "Accept-Encoding: gzip\r\n", 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public int request(Client client) throws IOException {
+        client.connection.send(client.request);
+        int length = client.connection.readResponse();
+        if (client.connection.lastStatus() != 200) {
+            throw new IOException("Status inesperado: " + client.connection.lastStatus());
+        }
+        return length;
+    }
+}
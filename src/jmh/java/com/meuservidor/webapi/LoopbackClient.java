@@ -0,0 +1,97 @@
+package com.meuservidor.webapi;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cliente HTTP/1.1 mínimo para os benchmarks de loopback: uma conexão keep-alive, que
+ * envia requisições já montadas e lê respostas com Content-Length sem guardar o corpo.
+ */
+final class LoopbackClient implements Closeable {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+    private final byte[] skip = new byte[8192];
+    private int lastStatus;
+
+    LoopbackClient(InetSocketAddress address) throws IOException {
+        socket = new Socket(address.getAddress(), address.getPort());
+        socket.setTcpNoDelay(true);
+        out = socket.getOutputStream();
+        in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+    }
+
+    /**
+     * "count" vezes a mesma requisição GET, para enviar de uma só vez (pipelining)
+     */
+    static byte[] requests(String path, String extraHeaders, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("GET ").append(path).append(" HTTP/1.1\r\nHost: localhost\r\nAccept: */*\r\n")
+                .append(extraHeaders).append("\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    void send(byte[] requests) throws IOException {
+        out.write(requests);
+    }
+
+    /**
+     * Status da última resposta lida
+     */
+    int lastStatus() {
+        return lastStatus;
+    }
+
+    /**
+     * Lê uma resposta com Content-Length; devolve o tamanho do corpo
+     */
+    int readResponse() throws IOException {
+        int contentLength = 0;
+        StringBuilder line = new StringBuilder();
+        boolean statusLine = true;
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Conexão fechada pelo servidor");
+            }
+            if (c == '\n') {
+                if (line.length() == 0) {
+                    break;
+                }
+                String header = line.toString();
+                if (statusLine) {
+                    lastStatus = Integer.parseInt(header.substring(9, 12));
+                    statusLine = false;
+                } else if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+                line.setLength(0);
+            } else if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        int remaining = contentLength;
+        while (remaining > 0) {
+            int n = in.read(skip, 0, Math.min(skip.length, remaining));
+            if (n < 0) {
+                throw new IOException("Conexão fechada pelo servidor");
+            }
+            remaining -= n;
+        }
+        return contentLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,75 @@
+package com.meuservidor.webapi;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * checkRateLimit sob contenção: 8 threads consultando o RateLimiter ao mesmo tempo, todas
+ * com o mesmo IP (mesmo bucket, disputa no mesmo estado) ou cada uma com o seu. A cota é
+ * alta o bastante para quase tudo ser permitido, então o custo medido é o da decisão e
+ * dos cabeçalhos X-RateLimit-*, não o do 429.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="RateLimitBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimitBenchmark {
+
+    @Param({"shared", "distinct"})
+    public String clients;
+
+    private WebInfoAPI api;
+    private final AtomicInteger nextClient = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ApiConfig config = HandlerBenchmark.config(
+            "api.rate_limit.enabled", "true",
+            "api.rate_limit.requests_per_minute", "1000000",
+            "api.rate_limit.burst_size", "1000000");
+        api = WebInfoAPI.startStandalone(config, "127.0.0.1", 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.dispose();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private FakeExchange exchange;
+
+        @Setup(Level.Trial)
+        public void setup(RateLimitBenchmark benchmark) {
+            int id = "distinct".equals(benchmark.clients) ? benchmark.nextClient.incrementAndGet() : 1;
+            exchange = new FakeExchange("/status", null, "/status")
+                .remote(new InetSocketAddress("10.0." + (id >> 8) + "." + (id & 0xFF), 40_000 + id));
+        }
+    }
+
+    @Benchmark
+    public boolean check(Client client) {
+        return WebInfoAPI.checkRateLimit(client.exchange.reset());
+    }
+}
@@ -0,0 +1,75 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Envio de uma resposta já em cache (sendResponse): negociação de formato e de
+ * Content-Encoding, ETag, validação condicional e escrita do corpo, para /players com
+ * 200 jogadores do {@link FakeServer}. Com conditional=true o cliente manda o ETag atual
+ * e a resposta é um 304 sem corpo.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="ResponseBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBenchmark {
+
+    private static final int PLAYERS = 200;
+
+    @Param({"application/json", "application/cbor", "application/x-msgpack"})
+    public String accept;
+
+    @Param({"identity", "gzip"})
+    public String encoding;
+
+    @Param({"false", "true"})
+    public boolean conditional;
+
+    private WebInfoAPI api;
+    private FakeExchange exchange;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ApiConfig config = HandlerBenchmark.config("api.rate_limit.enabled", "false");
+        api = WebInfoAPI.startStandalone(config, "127.0.0.1", 0);
+        WebInfoAPI.publishSnapshot(new FakeServer(PLAYERS, 42).capture(1));
+
+        exchange = new FakeExchange("/players", new WebInfoAPI.PlayersHandler(), "/players")
+            .header("Accept", accept)
+            .header("Accept-Encoding", encoding);
+        exchange.getHttpContext().getHandler().handle(exchange);
+        if (conditional) {
+            exchange.header("If-None-Match", exchange.getResponseHeaders().getFirst("ETag"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.dispose();
+    }
+
+    @Benchmark
+    public int send() throws IOException {
+        exchange.reset().getHttpContext().getHandler().handle(exchange);
+        return exchange.getResponseCode();
+    }
+}
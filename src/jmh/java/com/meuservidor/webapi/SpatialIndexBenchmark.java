@@ -0,0 +1,141 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consultas de /players/near e /players/region com o índice em grade contra a varredura
+ * linear de todos os jogadores, e o custo de montar o índice a cada snapshot.
+ *
+ * As entidades ficam espalhadas por 4 níveis num mundo de ~100k x 100k pixels, com
+ * metade delas agrupada em torno de alguns pontos (vilas), como num servidor real.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="SpatialIndexBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+    private static final float WORLD = 100_000f;
+    private static final float RADIUS = 1_500f;
+
+    @Param({"1000", "5000", "10000"})
+    public int entities;
+
+    private PlayerSnapshot[] players;
+    private SpatialIndex index;
+    private float[] queryX;
+    private float[] queryY;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        players = new PlayerSnapshot[entities];
+        for (int i = 0; i < entities; i++) {
+            PlayerSnapshot.Builder p = new PlayerSnapshot.Builder();
+            p.name = "Entidade" + i;
+            p.uuid = new UUID(0x5EED, i);
+            p.levelId = i % 4;
+            if (i % 2 == 0) {
+                int village = random.nextInt(16);
+                p.x = (village * 6_000f) + (float) random.nextGaussian() * 800f;
+                p.y = (village * 5_000f) + (float) random.nextGaussian() * 800f;
+            } else {
+                p.x = random.nextFloat() * WORLD;
+                p.y = random.nextFloat() * WORLD;
+            }
+            players[i] = p.build();
+        }
+        index = new SpatialIndex(players);
+
+        // Centros de consulta: posições de jogadores (como o mapa centrado em alguém)
+        queryX = new float[1024];
+        queryY = new float[1024];
+        for (int i = 0; i < queryX.length; i++) {
+            PlayerSnapshot target = players[random.nextInt(entities)];
+            queryX[i] = target.x;
+            queryY[i] = target.y;
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (queryX.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public List<PlayerSnapshot> nearGrid() {
+        int q = nextQuery();
+        List<PlayerSnapshot> out = new ArrayList<>();
+        index.near(q & 3, queryX[q], queryY[q], RADIUS, out);
+        return out;
+    }
+
+    @Benchmark
+    public List<PlayerSnapshot> nearLinearScan() {
+        int q = nextQuery();
+        int level = q & 3;
+        float x = queryX[q];
+        float y = queryY[q];
+        double radiusSquared = (double) RADIUS * RADIUS;
+        List<PlayerSnapshot> out = new ArrayList<>();
+        for (PlayerSnapshot player : players) {
+            double dx = player.x - x;
+            double dy = player.y - y;
+            if (player.levelId == level && dx * dx + dy * dy <= radiusSquared) {
+                out.add(player);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public List<PlayerSnapshot> regionGrid() {
+        int q = nextQuery();
+        List<PlayerSnapshot> out = new ArrayList<>();
+        index.region(q & 3, queryX[q] - 2_000f, queryY[q] - 1_200f, queryX[q] + 2_000f, queryY[q] + 1_200f, out);
+        return out;
+    }
+
+    @Benchmark
+    public List<PlayerSnapshot> regionLinearScan() {
+        int q = nextQuery();
+        int level = q & 3;
+        float minX = queryX[q] - 2_000f;
+        float maxX = queryX[q] + 2_000f;
+        float minY = queryY[q] - 1_200f;
+        float maxY = queryY[q] + 1_200f;
+        List<PlayerSnapshot> out = new ArrayList<>();
+        for (PlayerSnapshot player : players) {
+            if (player.levelId == level && player.x >= minX && player.x <= maxX && player.y >= minY && player.y <= maxY) {
+                out.add(player);
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public SpatialIndex buildIndex() {
+        return new SpatialIndex(players);
+    }
+}
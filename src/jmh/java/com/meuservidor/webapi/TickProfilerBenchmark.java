@@ -0,0 +1,77 @@
+package com.meuservidor.webapi;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Custo do {@link TickProfiler}: record() é o que a thread do jogo paga em todo tick
+ * (relógio simulado avançando 1 ms por chamada, então a troca de segundo do anel entra
+ * amortizada a cada 1000 registros); window() e worstTicks() são o lado de /performance,
+ * com o anel de 5 minutos cheio.
+ *
+ * Rodar com: ./gradlew jmh -PjmhArgs="TickProfilerBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickProfilerBenchmark {
+
+    private TickProfiler profiler;
+    private TickProfiler full;
+    // Durações de tick entre 0,5 e ~60 ms, com cauda longa
+    private final long[] durations = new long[1024];
+    private long clock;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < durations.length; i++) {
+            double ms = 0.5 + Math.abs(random.nextGaussian()) * (random.nextInt(50) == 0 ? 30 : 4);
+            durations[i] = (long) (ms * 1_000_000);
+        }
+        profiler = new TickProfiler();
+        clock = System.nanoTime();
+
+        // Cinco minutos de ticks a 20 TPS terminando agora
+        full = new TickProfiler();
+        long end = System.nanoTime() - 300_000_000_000L;
+        for (int i = 0; i < 300 * 20; i++) {
+            end += 50_000_000L;
+            full.record(end - durations[i & 1023], end);
+        }
+    }
+
+    @Benchmark
+    public long record() {
+        long end = clock += 1_000_000;
+        profiler.record(end - durations[next++ & 1023], end);
+        return end;
+    }
+
+    @Benchmark
+    public TickProfiler.Window window5m() {
+        return full.window(300, 50_000);
+    }
+
+    @Benchmark
+    public List<TickProfiler.SlowTick> worstTicks() {
+        return full.worstTicks(10);
+    }
+}
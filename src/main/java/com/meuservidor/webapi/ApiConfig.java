@@ -0,0 +1,422 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Configuração tipada e imutável, compilada a partir do webapi.properties.
+ *
+ * Os handlers leem campos finais de uma instância publicada por uma referência
+ * volátil, em vez de consultar o Properties (um Hashtable sincronizado) e converter
+ * strings a cada requisição. Uma recarga monta uma instância nova e troca a referência.
+ */
+final class ApiConfig {
+
+    // Chaves endpoints.<nome>.enabled conhecidas
+    static final String[] ENDPOINTS = {
+        "status", "players", "server_info", "world_info", "system", "jvm", "performance", "health", "stream", "metrics", "history", "events", "batch"
+    };
+
+    private static final String PLACEHOLDER_API_KEY = "your-secure-api-key-here";
+
+    // API
+    final boolean enabled;
+    final int port;
+    final String host;
+    final boolean loggingEnabled;
+
+    // CORS
+    final boolean corsEnabled;
+    final String corsAllowedOrigins;
+
+    // Segurança: a chave só vale se configurada de fato (não vazia e diferente do exemplo)
+    final boolean authRequired;
+    final String apiKey;
+    final String bearerToken;
+
+    // Rate limiting
+    final boolean rateLimitEnabled;
+    final int requestsPerMinute;
+    final int burstSize;
+    final Map<String, Integer> apiKeyQuotas;
+    final Map<String, Integer> endpointCosts;
+
+    // Servidor HTTP: engine "jdk" (com.sun.net.httpserver) ou "nio" (NioHttpEngine)
+    final String serverEngine;
+    final int serverIoThreads;
+    final int serverMaxConnections;
+    final int serverIdleTimeoutSeconds;
+    final int serverMaxPipelinedRequests;
+    final int serverMaxRequestsPerConnection;
+    final int serverSocketBufferBytes;
+
+    // Thread pool
+    final String threadPoolMode;
+    final int threadPoolVirtualMaxConcurrent;
+    final int threadPoolCoreSize;
+    final int threadPoolMaxSize;
+    final int threadPoolKeepAliveSeconds;
+    final int threadPoolQueueSize;
+    final int threadPoolQueueDeadlineMs;
+    final Set<String> priorityEndpoints;
+    final int priorityReserved;
+
+    // Snapshot e telemetria
+    final int snapshotIntervalTicks;
+    // Snapshots retidos para /players?since= (0 = sempre lista completa)
+    final int playersDeltaWindow;
+    final int systemSampleIntervalMs;
+    final int jvmSampleIntervalMs;
+    // Ticks acima disso contam como lentos em /performance
+    final int performanceSlowTickMs;
+    final boolean historyPersist;
+
+    // Journal de eventos para /events
+    final boolean eventsPersist;
+    final int eventsSegmentBytes;
+    final int eventsRetentionMb;
+    final int eventsRetentionHours;
+
+    // Cache e compressão
+    final boolean cacheEnabled;
+    final int cacheTtlSeconds;
+    final int cacheMaxEntries;
+    final boolean compressionEnabled;
+    final int compressionMinSizeBytes;
+    final int compressionLevel;
+
+    // /stream
+    final int streamMaxClients;
+    final int streamMaxBacklog;
+    final int streamHeartbeatSeconds;
+    final int streamWriterThreads;
+    final int streamWriteTimeoutSeconds;
+
+    // Exportação estática (arquivos para um proxy reverso servir)
+    final boolean exportEnabled;
+    final String exportDirectory;
+    final int exportIntervalMs;
+    final boolean exportGzip;
+    final Set<StaticExporter.Resource> exportResources;
+
+    // Dados
+    final boolean includeCoordinates;
+    final boolean includePlayerStats;
+
+    private final Set<String> enabledEndpoints;
+
+    private ApiConfig(Reader r) {
+        enabled = r.bool("api.enabled", true);
+        port = r.integer("api.port", 8080, 1, 65535);
+        host = r.string("api.host", "0.0.0.0");
+        loggingEnabled = r.bool("api.logging.enabled", true);
+
+        corsEnabled = r.bool("api.cors.enabled", true);
+        corsAllowedOrigins = r.string("api.cors.allowed_origins", "*");
+
+        String key = r.string("api.security.api_key", "");
+        boolean keyConfigured = !key.isEmpty() && !PLACEHOLDER_API_KEY.equals(key);
+        authRequired = r.bool("api.security.require_auth", false) && keyConfigured;
+        apiKey = keyConfigured ? key : null;
+        bearerToken = keyConfigured ? "Bearer " + key : null;
+
+        rateLimitEnabled = r.bool("api.rate_limit.enabled", true);
+        requestsPerMinute = r.integer("api.rate_limit.requests_per_minute", 60, 1, 1_000_000);
+        burstSize = r.integer("api.rate_limit.burst_size", 10, 1, 1_000_000);
+        apiKeyQuotas = Collections.unmodifiableMap(r.quotas("api.rate_limit.api_keys"));
+        Map<String, Integer> costs = new HashMap<>();
+        costs.put("/status", cost(r, "status", 1));
+        costs.put("/players", cost(r, "players", 3));
+        costs.put("/world-info", cost(r, "world_info", 1));
+        costs.put("/system", cost(r, "system", 2));
+        costs.put("/jvm", cost(r, "jvm", 2));
+        costs.put("/performance", cost(r, "performance", 1));
+        costs.put("/history", cost(r, "history", 2));
+        costs.put("/events", cost(r, "events", 1));
+        endpointCosts = Collections.unmodifiableMap(costs);
+
+        serverEngine = r.choice("api.server.engine", "jdk", "jdk", "nio");
+        serverIoThreads = r.integer("api.server.io_threads", 2, 1, 64);
+        serverMaxConnections = r.integer("api.server.max_connections", 1024, 1, 1_000_000);
+        serverIdleTimeoutSeconds = r.integer("api.server.idle_timeout_seconds", 30, 1, 86_400);
+        serverMaxPipelinedRequests = r.integer("api.server.max_pipelined_requests", 16, 1, 1024);
+        serverMaxRequestsPerConnection = r.integer("api.server.max_requests_per_connection", 1000, 1, Integer.MAX_VALUE);
+        serverSocketBufferBytes = r.integer("api.server.socket_buffer_bytes", 0, 0, 64 * 1024 * 1024);
+
+        threadPoolMode = r.choice("api.thread_pool.mode", "platform", "platform", "virtual");
+        threadPoolVirtualMaxConcurrent = r.integer("api.thread_pool.virtual_max_concurrent", 256, 1, 1_000_000);
+        int coreSize = r.integer("api.thread_pool.core_size", 4, 1, 1024);
+        int maxSize = r.integer("api.thread_pool.max_size", 8, 1, 1024);
+        if (coreSize > maxSize) {
+            r.error("api.thread_pool.core_size (" + coreSize + ") maior que api.thread_pool.max_size (" + maxSize + ")");
+            coreSize = 4;
+            maxSize = 8;
+        }
+        threadPoolCoreSize = coreSize;
+        threadPoolMaxSize = maxSize;
+        threadPoolKeepAliveSeconds = r.integer("api.thread_pool.keep_alive_seconds", 60, 1, 86_400);
+        threadPoolQueueSize = r.integer("api.thread_pool.queue_size", 100, 1, 1_000_000);
+        threadPoolQueueDeadlineMs = r.integer("api.thread_pool.queue_deadline_ms", 2000, 1, 600_000);
+        priorityEndpoints = Collections.unmodifiableSet(r.list("api.thread_pool.priority_endpoints", "/health,/status,/stream"));
+        int reserved = r.integer("api.thread_pool.priority_reserved", 1, 0, 1024);
+        if (reserved >= threadPoolMaxSize) {
+            r.error("api.thread_pool.priority_reserved (" + reserved + ") deve ser menor que api.thread_pool.max_size ("
+                + threadPoolMaxSize + "), senão não sobra thread para os demais endpoints");
+            // Com max_size 1 nem o padrão cabe: nenhuma thread reservada
+            reserved = Math.min(1, threadPoolMaxSize - 1);
+        }
+        priorityReserved = reserved;
+
+        snapshotIntervalTicks = r.integer("api.snapshot.interval_ticks", 20, 1, 72_000);
+        playersDeltaWindow = r.integer("api.players.delta_window", 60, 0, 3600);
+        systemSampleIntervalMs = r.integer("api.system.sample_interval_ms", 2000, 100, 3_600_000);
+        jvmSampleIntervalMs = r.integer("api.jvm.sample_interval_ms", 1000, 250, 3_600_000);
+        performanceSlowTickMs = r.integer("api.performance.slow_tick_ms", 50, 1, 60_000);
+        historyPersist = r.bool("api.history.persist", true);
+
+        eventsPersist = r.bool("api.events.persist", true);
+        eventsSegmentBytes = r.integer("api.events.segment_bytes", 1_048_576, 65_536, 1 << 30);
+        eventsRetentionMb = r.integer("api.events.retention_mb", 64, 1, 1_000_000);
+        eventsRetentionHours = r.integer("api.events.retention_hours", 168, 1, 87_600);
+
+        cacheEnabled = r.bool("api.cache.enabled", true);
+        cacheTtlSeconds = r.integer("api.cache.ttl_seconds", 30, 0, 86_400);
+        cacheMaxEntries = r.integer("api.cache.max_entries", 256, 1, 1_000_000);
+        compressionEnabled = r.bool("api.compression.enabled", true);
+        compressionMinSizeBytes = r.integer("api.compression.min_size_bytes", 1024, 0, Integer.MAX_VALUE);
+        compressionLevel = r.integer("api.compression.level", 6, 1, 9);
+
+        streamMaxClients = r.integer("api.stream.max_clients", 1000, 1, 100_000);
+        streamMaxBacklog = r.integer("api.stream.max_backlog", 64, 1, 100_000);
+        streamHeartbeatSeconds = r.integer("api.stream.heartbeat_seconds", 15, 1, 3600);
+        streamWriterThreads = r.integer("api.stream.writer_threads", 2, 1, 64);
+        streamWriteTimeoutSeconds = r.integer("api.stream.write_timeout_seconds", 10, 1, 3600);
+
+        exportEnabled = r.bool("api.export.enabled", false);
+        exportDirectory = r.string("api.export.directory", "");
+        exportIntervalMs = r.integer("api.export.interval_ms", 0, 0, 3_600_000);
+        exportGzip = r.bool("api.export.gzip", true);
+        Set<StaticExporter.Resource> resources = EnumSet.noneOf(StaticExporter.Resource.class);
+        for (String name : r.list("api.export.endpoints", "status,players,world_info,server_info")) {
+            StaticExporter.Resource resource = StaticExporter.Resource.fromParam(name.toLowerCase(Locale.ROOT));
+            if (resource == null) {
+                r.error("Valor inválido em api.export.endpoints: " + name + " (esperado status, players, world_info ou server_info)");
+            } else {
+                resources.add(resource);
+            }
+        }
+        exportResources = Collections.unmodifiableSet(resources);
+
+        includeCoordinates = r.bool("data.include_coordinates", true);
+        includePlayerStats = r.bool("data.include_player_stats", true);
+
+        Set<String> endpoints = new LinkedHashSet<>();
+        for (String name : ENDPOINTS) {
+            if (r.bool("endpoints." + name + ".enabled", true)) {
+                endpoints.add(name);
+            }
+        }
+        enabledEndpoints = Collections.unmodifiableSet(endpoints);
+    }
+
+    /**
+     * api.rate_limit.cost.*; com o rate limit ativo, um custo maior que burst_size nunca
+     * caberia no bucket (429 para sempre) e é recusado, valendo burst_size
+     */
+    private int cost(Reader r, String name, int defaultValue) {
+        String key = "api.rate_limit.cost." + name;
+        int cost = r.integer(key, defaultValue, 0, 1000);
+        if (rateLimitEnabled && cost > burstSize) {
+            r.error(key + " (" + cost + ") maior que api.rate_limit.burst_size (" + burstSize + ")");
+            return burstSize;
+        }
+        return cost;
+    }
+
+    /**
+     * Compila as propriedades; valores inválidos usam o padrão e são reportados em errors
+     */
+    static ApiConfig parse(Properties properties, List<String> errors) {
+        return new ApiConfig(new Reader(properties, errors));
+    }
+
+    static ApiConfig defaults() {
+        return parse(new Properties(), new ArrayList<>());
+    }
+
+    boolean isEndpointEnabled(String name) {
+        return enabledEndpoints.contains(name);
+    }
+
+    /**
+     * Diferenças que só têm efeito após reiniciar o servidor HTTP
+     */
+    List<String> restartRequiredChanges(ApiConfig other) {
+        List<String> changes = new ArrayList<>();
+        if (port != other.port || !host.equals(other.host)) {
+            changes.add("api.host/api.port");
+        }
+        if (!serverEngine.equals(other.serverEngine) || serverIoThreads != other.serverIoThreads
+            || serverMaxConnections != other.serverMaxConnections
+            || serverIdleTimeoutSeconds != other.serverIdleTimeoutSeconds
+            || serverMaxPipelinedRequests != other.serverMaxPipelinedRequests
+            || serverMaxRequestsPerConnection != other.serverMaxRequestsPerConnection
+            || serverSocketBufferBytes != other.serverSocketBufferBytes) {
+            changes.add("api.server.*");
+        }
+        if (!threadPoolMode.equals(other.threadPoolMode)
+            || threadPoolVirtualMaxConcurrent != other.threadPoolVirtualMaxConcurrent
+            || threadPoolCoreSize != other.threadPoolCoreSize || threadPoolMaxSize != other.threadPoolMaxSize
+            || threadPoolKeepAliveSeconds != other.threadPoolKeepAliveSeconds
+            || threadPoolQueueSize != other.threadPoolQueueSize
+            || threadPoolQueueDeadlineMs != other.threadPoolQueueDeadlineMs
+            || !priorityEndpoints.equals(other.priorityEndpoints) || priorityReserved != other.priorityReserved) {
+            changes.add("api.thread_pool.*");
+        }
+        if (!enabledEndpoints.equals(other.enabledEndpoints)) {
+            changes.add("endpoints.*.enabled");
+        }
+        if (systemSampleIntervalMs != other.systemSampleIntervalMs) {
+            changes.add("api.system.sample_interval_ms");
+        }
+        if (jvmSampleIntervalMs != other.jvmSampleIntervalMs) {
+            changes.add("api.jvm.sample_interval_ms");
+        }
+        if (historyPersist != other.historyPersist) {
+            changes.add("api.history.persist");
+        }
+        if (eventsPersist != other.eventsPersist || eventsSegmentBytes != other.eventsSegmentBytes
+            || eventsRetentionMb != other.eventsRetentionMb || eventsRetentionHours != other.eventsRetentionHours) {
+            changes.add("api.events.*");
+        }
+        if (exportEnabled != other.exportEnabled || !exportDirectory.equals(other.exportDirectory)
+            || exportIntervalMs != other.exportIntervalMs || exportGzip != other.exportGzip
+            || !exportResources.equals(other.exportResources)) {
+            changes.add("api.export.*");
+        }
+        if (streamMaxClients != other.streamMaxClients || streamMaxBacklog != other.streamMaxBacklog
+            || streamHeartbeatSeconds != other.streamHeartbeatSeconds || streamWriterThreads != other.streamWriterThreads
+            || streamWriteTimeoutSeconds != other.streamWriteTimeoutSeconds) {
+            changes.add("api.stream.*");
+        }
+        return changes;
+    }
+
+    /**
+     * Conversão das propriedades com registro de erros de validação
+     */
+    private static final class Reader {
+        private final Properties properties;
+        private final List<String> errors;
+
+        Reader(Properties properties, List<String> errors) {
+            this.properties = properties;
+            this.errors = errors;
+        }
+
+        void error(String message) {
+            errors.add(message);
+        }
+
+        String string(String key, String defaultValue) {
+            String value = properties.getProperty(key);
+            return value != null ? value.trim() : defaultValue;
+        }
+
+        /**
+         * Um dos valores permitidos (sem diferença de maiúsculas)
+         */
+        String choice(String key, String defaultValue, String... allowed) {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            for (String option : allowed) {
+                if (option.equalsIgnoreCase(value.trim())) {
+                    return option;
+                }
+            }
+            error("Valor inválido para " + key + ": " + value.trim() + " (esperado " + String.join(", ", allowed) + ")");
+            return defaultValue;
+        }
+
+        boolean bool(String key, boolean defaultValue) {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            value = value.trim();
+            if ("true".equalsIgnoreCase(value)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(value)) {
+                return false;
+            }
+            error("Valor inválido para " + key + ": " + value + " (esperado true ou false)");
+            return defaultValue;
+        }
+
+        int integer(String key, int defaultValue, int min, int max) {
+            String value = properties.getProperty(key);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                int parsed = Integer.parseInt(value.trim());
+                if (parsed < min || parsed > max) {
+                    error("Valor fora do intervalo para " + key + ": " + parsed + " (" + min + ".." + max + ")");
+                    return defaultValue;
+                }
+                return parsed;
+            } catch (NumberFormatException e) {
+                error("Valor inválido para " + key + ": " + value);
+                return defaultValue;
+            }
+        }
+
+        Set<String> list(String key, String defaultValue) {
+            Set<String> values = new LinkedHashSet<>();
+            for (String item : string(key, defaultValue).split(",")) {
+                if (!item.trim().isEmpty()) {
+                    values.add(item.trim());
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Cotas no formato chave:req_por_minuto, separadas por vírgula
+         */
+        Map<String, Integer> quotas(String key) {
+            Map<String, Integer> quotas = new HashMap<>();
+            for (String entry : string(key, "").split(",")) {
+                if (entry.trim().isEmpty()) {
+                    continue;
+                }
+                int separator = entry.lastIndexOf(':');
+                if (separator <= 0) {
+                    error("Cota inválida em " + key + ": " + entry.trim());
+                    continue;
+                }
+                try {
+                    int quota = Integer.parseInt(entry.substring(separator + 1).trim());
+                    if (quota <= 0) {
+                        throw new NumberFormatException();
+                    }
+                    quotas.put(entry.substring(0, separator).trim(), quota);
+                } catch (NumberFormatException e) {
+                    error("Cota inválida em " + key + ": " + entry.trim());
+                }
+            }
+            return quotas;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.meuservidor.webapi;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas da própria API, exportadas em formato texto do Prometheus em /metrics.
+ *
+ * O registro no caminho quente é livre de locks e de alocação: contadores são
+ * LongAdder/AtomicLongArray pré-alocados por endpoint, e a latência vai para um
+ * histograma de buckets fixos encontrado por busca binária.
+ */
+final class ApiMetrics {
+
+    // Limites superiores dos buckets de latência, em microssegundos
+    static final long[] LATENCY_BOUNDS_MICROS = {
+        50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000
+    };
+
+    // Códigos de status acompanhados individualmente; o resto cai em "other"
+    private static final int[] STATUS_CODES = {200, 304, 400, 401, 404, 429, 500, 503};
+
+    /**
+     * Contadores de um contexto HTTP
+     */
+    static final class EndpointMetrics {
+        final String path;
+        final LongAdder[] statusCounts = new LongAdder[STATUS_CODES.length + 1];
+        // Um slot por bucket, mais o +Inf
+        final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BOUNDS_MICROS.length + 1);
+        final LongAdder latencySumNanos = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+        final LongAdder authFailures = new LongAdder();
+        final LongAdder rateLimited = new LongAdder();
+
+        EndpointMetrics(String path) {
+            this.path = path;
+            for (int i = 0; i < statusCounts.length; i++) {
+                statusCounts[i] = new LongAdder();
+            }
+        }
+
+        void record(int statusCode, long elapsedNanos) {
+            statusCounts[statusIndex(statusCode)].increment();
+            latencyBuckets.incrementAndGet(latencyIndex(elapsedNanos / 1_000));
+            latencySumNanos.add(elapsedNanos);
+        }
+    }
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Obtém (ou cria, no registro do contexto) as métricas de um caminho
+     */
+    EndpointMetrics endpoint(String path) {
+        EndpointMetrics metrics = endpoints.get(path);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(path, EndpointMetrics::new);
+        }
+        return metrics;
+    }
+
+    void recordBytes(String path, long bytes) {
+        EndpointMetrics metrics = endpoints.get(path);
+        if (metrics != null) {
+            metrics.bytesWritten.add(bytes);
+        }
+    }
+
+    void recordAuthFailure(String path) {
+        EndpointMetrics metrics = endpoints.get(path);
+        if (metrics != null) {
+            metrics.authFailures.increment();
+        }
+    }
+
+    void recordRateLimited(String path) {
+        EndpointMetrics metrics = endpoints.get(path);
+        if (metrics != null) {
+            metrics.rateLimited.increment();
+        }
+    }
+
+    static int statusIndex(int statusCode) {
+        for (int i = 0; i < STATUS_CODES.length; i++) {
+            if (STATUS_CODES[i] == statusCode) {
+                return i;
+            }
+        }
+        return STATUS_CODES.length;
+    }
+
+    static String statusLabel(int index) {
+        return index < STATUS_CODES.length ? Integer.toString(STATUS_CODES[index]) : "other";
+    }
+
+    static int latencyIndex(long micros) {
+        int low = 0;
+        int high = LATENCY_BOUNDS_MICROS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (LATENCY_BOUNDS_MICROS[mid] < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // ---- Exportação Prometheus ----
+
+    /**
+     * Escreve as séries de todos os endpoints no formato de exposição texto 0.0.4
+     */
+    void writeEndpoints(PrometheusText out) {
+        out.help("webapi_requests_total", "Requisições atendidas por endpoint e código de status", "counter");
+        for (EndpointMetrics m : endpoints.values()) {
+            for (int i = 0; i < m.statusCounts.length; i++) {
+                long count = m.statusCounts[i].sum();
+                if (count > 0) {
+                    out.sample("webapi_requests_total", "endpoint", m.path, "code", statusLabel(i), count);
+                }
+            }
+        }
+
+        out.help("webapi_request_duration_seconds", "Latência das requisições por endpoint", "histogram");
+        for (EndpointMetrics m : endpoints.values()) {
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BOUNDS_MICROS.length; i++) {
+                cumulative += m.latencyBuckets.get(i);
+                out.sample("webapi_request_duration_seconds_bucket", "endpoint", m.path,
+                    "le", seconds(LATENCY_BOUNDS_MICROS[i]), cumulative);
+            }
+            cumulative += m.latencyBuckets.get(LATENCY_BOUNDS_MICROS.length);
+            out.sample("webapi_request_duration_seconds_bucket", "endpoint", m.path, "le", "+Inf", cumulative);
+            out.sample("webapi_request_duration_seconds_sum", "endpoint", m.path, m.latencySumNanos.sum() / 1e9);
+            out.sample("webapi_request_duration_seconds_count", "endpoint", m.path, cumulative);
+        }
+
+        out.help("webapi_response_bytes_total", "Bytes de corpo de resposta escritos", "counter");
+        for (EndpointMetrics m : endpoints.values()) {
+            out.sample("webapi_response_bytes_total", "endpoint", m.path, m.bytesWritten.sum());
+        }
+
+        out.help("webapi_auth_failures_total", "Requisições recusadas por autenticação", "counter");
+        for (EndpointMetrics m : endpoints.values()) {
+            out.sample("webapi_auth_failures_total", "endpoint", m.path, m.authFailures.sum());
+        }
+
+        out.help("webapi_rate_limited_total", "Requisições recusadas por rate limiting", "counter");
+        for (EndpointMetrics m : endpoints.values()) {
+            out.sample("webapi_rate_limited_total", "endpoint", m.path, m.rateLimited.sum());
+        }
+    }
+
+    private static String seconds(long micros) {
+        return BigDecimal.valueOf(micros, 6).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Montador simples do formato texto do Prometheus
+     */
+    static final class PrometheusText {
+        private final StringBuilder out = new StringBuilder(4096);
+
+        PrometheusText help(String name, String help, String type) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            return this;
+        }
+
+        PrometheusText gauge(String name, String help, double value) {
+            help(name, help, "gauge");
+            return sample(name, value);
+        }
+
+        PrometheusText counter(String name, String help, double value) {
+            help(name, help, "counter");
+            return sample(name, value);
+        }
+
+        PrometheusText sample(String name, double value) {
+            out.append(name).append(' ');
+            appendValue(value);
+            return this;
+        }
+
+        PrometheusText sample(String name, String label, String labelValue, double value) {
+            out.append(name).append('{');
+            appendLabel(label, labelValue);
+            out.append("} ");
+            appendValue(value);
+            return this;
+        }
+
+        PrometheusText sample(String name, String label1, String value1, String label2, String value2, double value) {
+            out.append(name).append('{');
+            appendLabel(label1, value1);
+            out.append(',');
+            appendLabel(label2, value2);
+            out.append("} ");
+            appendValue(value);
+            return this;
+        }
+
+        private void appendLabel(String label, String value) {
+            out.append(label).append("=\"");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '"') {
+                    out.append('\\').append(c);
+                } else if (c == '\n') {
+                    out.append("\\n");
+                } else {
+                    out.append(c);
+                }
+            }
+            out.append('"');
+        }
+
+        private void appendValue(double value) {
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                out.append((long) value);
+            } else {
+                out.append(value);
+            }
+            out.append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.meuservidor.webapi;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Corpo de resposta já codificado junto com seus validadores HTTP.
+ *
+ * O ETag (forte, hash FNV-1a de 64 bits do conteúdo) e o Last-Modified são calculados
+ * uma única vez, quando o corpo entra no cache; requisições condicionais que batem
+ * com eles recebem 304 sem serializar nem transmitir o corpo. Recursos com campos de
+ * relógio (uptime, tps, hora do jogo) usam um ETag fraco sobre o resto do conteúdo, e
+ * o Last-Modified só avança quando o ETag muda, não a cada recarga do cache. As variantes comprimidas
+ * são geradas na primeira requisição que as aceita e guardadas junto com o corpo, então
+ * cada versão é comprimida no máximo uma vez por codificação.
+ */
+final class CachedResponse {
+
+    // A partir deste tamanho o corpo sem compressão ganha uma cópia fora do heap para o engine "nio"
+    private static final int DIRECT_MIN_BYTES = 64 * 1024;
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    final byte[] body;
+    final String etag;
+    private final String gzipEtag;
+    private final String deflateEtag;
+    final long lastModified;
+    final String lastModifiedHeader;
+    final long expiresAt;
+    // Snapshot de onde o corpo veio (X-Snapshot-Sequence/X-Snapshot-Time); -1 fora deles
+    final long snapshotSequence;
+    final long snapshotTime;
+
+    // Corridas aqui apenas comprimem duas vezes o mesmo conteúdo; o resultado é idêntico
+    private volatile byte[] gzip;
+    private volatile byte[] deflate;
+    private volatile ByteBuffer direct;
+
+    CachedResponse(byte[] body, long lastModified, long expiresAt) {
+        this(body, null, null, null, lastModified, expiresAt);
+    }
+
+    /**
+     * @param validator conteúdo do qual sai um ETag fraco, no lugar do corpo; null para o ETag forte
+     * @param source snapshot que gerou o corpo, ou null
+     * @param previous entrada anterior da mesma chave; com o mesmo ETag, o Last-Modified dela é mantido
+     */
+    CachedResponse(byte[] body, byte[] validator, ServerSnapshot source, CachedResponse previous,
+                   long lastModified, long expiresAt) {
+        this.body = body;
+        String hash = Long.toHexString(fnv1a(validator != null ? validator : body));
+        String weak = validator != null ? "W/" : "";
+        this.etag = weak + '"' + hash + '"';
+        this.gzipEtag = weak + '"' + hash + "-gzip\"";
+        this.deflateEtag = weak + '"' + hash + "-deflate\"";
+        if (previous != null && previous.etag.equals(etag)) {
+            this.lastModified = previous.lastModified;
+            this.lastModifiedHeader = previous.lastModifiedHeader;
+        } else {
+            // Datas HTTP têm resolução de segundos
+            this.lastModified = lastModified - lastModified % 1000;
+            this.lastModifiedHeader = HTTP_DATE.format(Instant.ofEpochMilli(this.lastModified));
+        }
+        this.expiresAt = expiresAt;
+        this.snapshotSequence = source != null ? source.sequence : -1;
+        this.snapshotTime = source != null ? source.capturedAt : -1;
+    }
+
+    /**
+     * Corpo na codificação pedida, comprimido sob demanda e reaproveitado nas próximas requisições
+     */
+    byte[] body(Compression compression, Compression.Encoding encoding) {
+        switch (encoding) {
+            case GZIP: {
+                byte[] encoded = gzip;
+                if (encoded == null) {
+                    gzip = encoded = compression.encode(body, encoding);
+                }
+                return encoded;
+            }
+            case DEFLATE: {
+                byte[] encoded = deflate;
+                if (encoded == null) {
+                    deflate = encoded = compression.encode(body, encoding);
+                }
+                return encoded;
+            }
+            default:
+                return body;
+        }
+    }
+
+    /**
+     * Corpo sem compressão em memória direta, para corpos grandes: o canal escreve dele sem a
+     * cópia para um buffer temporário que o NIO faz com arrays do heap. null para corpos
+     * pequenos. Cada chamada devolve uma visão independente (duplicate) do mesmo conteúdo.
+     */
+    ByteBuffer directBody() {
+        if (body.length < DIRECT_MIN_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = direct;
+        if (buffer == null) {
+            ByteBuffer created = ByteBuffer.allocateDirect(body.length);
+            created.put(body).flip();
+            direct = buffer = created.asReadOnlyBuffer();
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * ETag de cada representação: as variantes comprimidas têm bytes diferentes,
+     * então recebem um sufixo próprio
+     */
+    String etag(Compression.Encoding encoding) {
+        switch (encoding) {
+            case GZIP:
+                return gzipEtag;
+            case DEFLATE:
+                return deflateEtag;
+            default:
+                return etag;
+        }
+    }
+
+    /**
+     * Segundos restantes até a entrada expirar, para Cache-Control: max-age
+     */
+    long maxAgeSeconds(long now) {
+        return Math.max(0, (expiresAt - now) / 1000);
+    }
+
+    /**
+     * Avalia If-None-Match e, na ausência dele, If-Modified-Since (RFC 7232, seção 6)
+     */
+    boolean isNotModified(String currentEtag, String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, currentEtag);
+        }
+        if (ifModifiedSince != null) {
+            if (ifModifiedSince.equals(lastModifiedHeader)) {
+                return true;
+            }
+            try {
+                long since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+                return lastModified <= since;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Comparação fraca, como exigido para If-None-Match: "W/" é ignorado
+     */
+    private static boolean matchesAny(String header, String etag) {
+        int length = header.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && (header.charAt(i) == ' ' || header.charAt(i) == ',')) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            if (header.charAt(i) == '*') {
+                return true;
+            }
+            if (header.startsWith("W/", i)) {
+                i += 2;
+            }
+            int end = header.indexOf(',', i);
+            if (end < 0) {
+                end = length;
+            }
+            int tagEnd = end;
+            while (tagEnd > i && header.charAt(tagEnd - 1) == ' ') {
+                tagEnd--;
+            }
+            int offset = etag.startsWith("W/") ? 2 : 0;
+            int tagLength = etag.length() - offset;
+            if (tagEnd - i == tagLength && header.regionMatches(i, etag, offset, tagLength)) {
+                return true;
+            }
+            i = end;
+        }
+        return false;
+    }
+
+    private static long fnv1a(byte[] data) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,190 @@
+package com.meuservidor.webapi;
+
+/**
+ * Codificador CBOR (RFC 8949) em streaming para o mesmo modelo de documento do JSON.
+ *
+ * Objetos e arrays usam comprimento indefinido (0xBF/0x9F ... 0xFF), então nada precisa
+ * ser contado nem reescrito depois. Inteiros usam a menor largura que os representa e
+ * decimais vão como float32 quando a conversão é exata (coordenadas, TPS) ou float64 no
+ * resto, com precisão total em vez das duas casas do JSON.
+ */
+final class CborWriter extends DocumentWriter {
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1 << 5;
+    private static final int MAJOR_TEXT = 3 << 5;
+
+    private static final byte INDEFINITE_ARRAY = (byte) 0x9F;
+    private static final byte INDEFINITE_MAP = (byte) 0xBF;
+    private static final byte BREAK = (byte) 0xFF;
+    private static final byte FALSE = (byte) 0xF4;
+    private static final byte TRUE = (byte) 0xF5;
+    private static final byte NULL = (byte) 0xF6;
+    private static final byte FLOAT32 = (byte) 0xFA;
+    private static final byte FLOAT64 = (byte) 0xFB;
+
+    private int depth;
+
+    CborWriter(int initialCapacity) {
+        super(Format.CBOR, initialCapacity);
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        depth = 0;
+    }
+
+    // ---- Estrutura ----
+
+    @Override
+    CborWriter beginObject() {
+        return open(INDEFINITE_MAP);
+    }
+
+    @Override
+    CborWriter endObject() {
+        return close();
+    }
+
+    @Override
+    CborWriter beginArray() {
+        return open(INDEFINITE_ARRAY);
+    }
+
+    @Override
+    CborWriter endArray() {
+        return close();
+    }
+
+    @Override
+    CborWriter name(String name) {
+        writeText(name);
+        return this;
+    }
+
+    // ---- Valores ----
+
+    @Override
+    CborWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        writeText(value);
+        return this;
+    }
+
+    @Override
+    CborWriter value(boolean value) {
+        ensure(1);
+        buffer[size++] = value ? TRUE : FALSE;
+        return this;
+    }
+
+    @Override
+    CborWriter value(long value) {
+        if (value >= 0) {
+            writeHead(MAJOR_UNSIGNED, value);
+        } else {
+            // Negativos: -1 - n, sem estouro mesmo para Long.MIN_VALUE
+            writeHead(MAJOR_NEGATIVE, -1 - value);
+        }
+        return this;
+    }
+
+    @Override
+    CborWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        float narrow = (float) value;
+        if (narrow == value) {
+            ensure(5);
+            buffer[size++] = FLOAT32;
+            writeInt(Float.floatToRawIntBits(narrow));
+        } else {
+            ensure(9);
+            buffer[size++] = FLOAT64;
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+        return this;
+    }
+
+    @Override
+    CborWriter nullValue() {
+        ensure(1);
+        buffer[size++] = NULL;
+        return this;
+    }
+
+    @Override
+    CborWriter rawValue(byte[] encoded) {
+        writeRaw(encoded);
+        return this;
+    }
+
+    // ---- Internos ----
+
+    private CborWriter open(byte token) {
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException("Documento aninhado demais");
+        }
+        ensure(1);
+        buffer[size++] = token;
+        depth++;
+        return this;
+    }
+
+    private CborWriter close() {
+        if (depth == 0) {
+            throw new IllegalStateException("Nenhum objeto ou array aberto");
+        }
+        ensure(1);
+        buffer[size++] = BREAK;
+        depth--;
+        return this;
+    }
+
+    private void writeText(String value) {
+        int length = utf8Length(value);
+        writeHead(MAJOR_TEXT, length);
+        ensure(length);
+        writeUtf8(value);
+    }
+
+    /**
+     * Cabeçalho de item: tipo maior e argumento na menor largura possível
+     */
+    private void writeHead(int major, long argument) {
+        ensure(9);
+        if (argument < 24) {
+            buffer[size++] = (byte) (major | argument);
+        } else if (argument < 0x100) {
+            buffer[size++] = (byte) (major | 24);
+            buffer[size++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            buffer[size++] = (byte) (major | 25);
+            buffer[size++] = (byte) (argument >> 8);
+            buffer[size++] = (byte) argument;
+        } else if (argument < 0x100000000L) {
+            buffer[size++] = (byte) (major | 26);
+            writeInt((int) argument);
+        } else {
+            // Argumentos acima de 2^63 não ocorrem: long é sempre >= 0 aqui
+            buffer[size++] = (byte) (major | 27);
+            writeLong(argument);
+        }
+    }
+
+    private void writeInt(int value) {
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+}
@@ -0,0 +1,211 @@
+package com.meuservidor.webapi;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Negociação de Accept-Encoding e compressão gzip/deflate dos corpos de resposta.
+ *
+ * Cada thread HTTP reutiliza seus próprios Deflater (estado zlib nativo) e buffer de
+ * saída, em vez de alocar um GZIPOutputStream por requisição. Virtual threads vivem uma
+ * requisição só, então pegam esse estado emprestado de um pool compartilhado. O gzip é
+ * montado à mão (cabeçalho fixo, deflate sem wrapper e trailer com CRC32 e tamanho).
+ */
+final class Compression {
+
+    enum Encoding {
+        IDENTITY(null),
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        final String token;
+
+        Encoding(String token) {
+            this.token = token;
+        }
+    }
+
+    private static final byte[] GZIP_HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static final ThreadLocal<Workspace> LOCAL = ThreadLocal.withInitial(Workspace::new);
+    // Estado emprestado às virtual threads; o excedente é liberado na devolução
+    private static final int MAX_SHARED = 64;
+    private static final ConcurrentLinkedQueue<Workspace> SHARED = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger SHARED_COUNT = new AtomicInteger();
+
+    private volatile boolean enabled = true;
+    private volatile int minSize = 1024;
+    private volatile int level = 6;
+
+    void configure(boolean enabled, int minSizeBytes, int level) {
+        this.enabled = enabled;
+        this.minSize = Math.max(0, minSizeBytes);
+        this.level = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Escolhe a codificação pelo Accept-Encoding do cliente; corpos menores que o
+     * limite mínimo seguem sem compressão (o overhead não compensa)
+     */
+    Encoding negotiate(String acceptEncoding, int length) {
+        if (!enabled || acceptEncoding == null || length < minSize) {
+            return Encoding.IDENTITY;
+        }
+
+        double gzip = 0;
+        double deflate = 0;
+        double wildcard = -1;
+        boolean gzipListed = false;
+        boolean deflateListed = false;
+        for (String part : acceptEncoding.split(",")) {
+            int semicolon = part.indexOf(';');
+            String coding = (semicolon >= 0 ? part.substring(0, semicolon) : part).trim();
+            double q = semicolon >= 0 ? quality(part.substring(semicolon + 1)) : 1;
+            if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                gzip = q;
+                gzipListed = true;
+            } else if ("deflate".equalsIgnoreCase(coding)) {
+                deflate = q;
+                deflateListed = true;
+            } else if ("*".equals(coding)) {
+                wildcard = q;
+            }
+        }
+        if (wildcard >= 0) {
+            if (!gzipListed) {
+                gzip = wildcard;
+            }
+            if (!deflateListed) {
+                deflate = wildcard;
+            }
+        }
+
+        // gzip é preferido em caso de empate: o "deflate" HTTP tem histórico de implementações inconsistentes
+        if (gzip > 0 && gzip >= deflate) {
+            return Encoding.GZIP;
+        }
+        if (deflate > 0) {
+            return Encoding.DEFLATE;
+        }
+        return Encoding.IDENTITY;
+    }
+
+    private static double quality(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=") || p.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Comprime o corpo na codificação pedida (IDENTITY devolve o próprio array)
+     */
+    byte[] encode(byte[] body, Encoding encoding) {
+        switch (encoding) {
+            case GZIP:
+            case DEFLATE:
+                break;
+            default:
+                return body;
+        }
+        boolean borrowed = VirtualThreads.isVirtual(Thread.currentThread());
+        Workspace workspace = borrowed ? borrow() : LOCAL.get();
+        try {
+            return encoding == Encoding.GZIP
+                ? gzip(workspace, body)
+                : deflate(workspace, workspace.zlib, body, 0, 0);
+        } finally {
+            if (borrowed) {
+                giveBack(workspace);
+            }
+        }
+    }
+
+    private static Workspace borrow() {
+        Workspace workspace = SHARED.poll();
+        if (workspace == null) {
+            return new Workspace();
+        }
+        SHARED_COUNT.decrementAndGet();
+        return workspace;
+    }
+
+    private static void giveBack(Workspace workspace) {
+        if (SHARED_COUNT.incrementAndGet() <= MAX_SHARED) {
+            SHARED.offer(workspace);
+        } else {
+            SHARED_COUNT.decrementAndGet();
+            workspace.raw.end();
+            workspace.zlib.end();
+        }
+    }
+
+    private byte[] gzip(Workspace workspace, byte[] body) {
+        byte[] compressed = deflate(workspace, workspace.raw, body, GZIP_HEADER.length, 8);
+        System.arraycopy(GZIP_HEADER, 0, compressed, 0, GZIP_HEADER.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        int trailer = compressed.length - 8;
+        writeIntLE(compressed, trailer, (int) crc.getValue());
+        writeIntLE(compressed, trailer + 4, body.length);
+        return compressed;
+    }
+
+    /**
+     * Executa o deflate reservando "prefix" bytes antes e "suffix" bytes depois da saída
+     */
+    private byte[] deflate(Workspace workspace, Deflater deflater, byte[] body, int prefix, int suffix) {
+        byte[] buffer = workspace.buffer;
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(body, 0, body.length);
+        deflater.finish();
+
+        int length = prefix;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                workspace.buffer = buffer;
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+
+        byte[] result = new byte[length + suffix];
+        System.arraycopy(buffer, prefix, result, prefix, length - prefix);
+        return result;
+    }
+
+    private static void writeIntLE(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+
+    /**
+     * Deflater "nowrap" para o gzip, Deflater com wrapper zlib para o Content-Encoding
+     * deflate e o buffer de saída
+     */
+    private static final class Workspace {
+        final Deflater raw = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final Deflater zlib = new Deflater(Deflater.DEFAULT_COMPRESSION, false);
+        byte[] buffer = new byte[8192];
+    }
+}
@@ -0,0 +1,123 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Observa o webapi.properties e chama o callback quando o arquivo muda.
+ *
+ * Editores costumam gravar em várias etapas (truncar, escrever, renomear), então os
+ * eventos são agrupados por um pequeno intervalo e o callback só roda se a data de
+ * modificação realmente mudou.
+ */
+final class ConfigWatcher {
+
+    private static final long DEBOUNCE_MILLIS = 300;
+
+    private final Path file;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long lastModified;
+
+    private ConfigWatcher(Path file, Runnable onChange) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.lastModified = modifiedTime();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::run, "WebInfoAPI-ConfigWatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Inicia a observação; retorna null se o diretório não puder ser observado
+     */
+    static ConfigWatcher start(Path file, Runnable onChange) {
+        try {
+            return new ConfigWatcher(file, onChange);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("WebInfoAPI: Recarga automática da configuração indisponível: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            boolean relevant = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                Object context = event.context();
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                    relevant = true;
+                }
+            }
+            if (!key.reset()) {
+                System.err.println("WebInfoAPI: Diretório de configuração não pode mais ser observado");
+                return;
+            }
+            if (!relevant) {
+                continue;
+            }
+
+            try {
+                // Agrupar a rajada de eventos de uma mesma gravação
+                Thread.sleep(DEBOUNCE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            WatchKey pending;
+            while ((pending = watchService.poll()) != null) {
+                pending.pollEvents();
+                pending.reset();
+            }
+
+            long modified = modifiedTime();
+            if (modified == lastModified) {
+                continue;
+            }
+            lastModified = modified;
+            try {
+                onChange.run();
+            } catch (RuntimeException e) {
+                System.err.println("WebInfoAPI: Erro ao recarregar configuração: " + e);
+            }
+        }
+    }
+
+    private long modifiedTime() {
+        try {
+            return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // Encerrando de qualquer forma
+        }
+    }
+}
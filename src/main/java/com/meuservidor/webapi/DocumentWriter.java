@@ -0,0 +1,319 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Codificador em streaming do modelo de documento das respostas (objetos, arrays, strings,
+ * inteiros, decimais, booleanos e null), escrevendo direto em um buffer de bytes reutilizável.
+ *
+ * JSON ({@link JsonWriter}) é o formato padrão; CBOR ({@link CborWriter}) e MessagePack
+ * ({@link MsgPackWriter}) são escolhidos pelo cabeçalho Accept e evitam formatar e interpretar
+ * números como texto. Instâncias são reaproveitadas por thread e por formato via
+ * {@link #acquire(Format)} / {@link #release(DocumentWriter)}; virtual threads, que vivem uma
+ * requisição só, usam um pool compartilhado.
+ */
+abstract class DocumentWriter {
+
+    enum Format {
+        JSON("application/json; charset=UTF-8"),
+        CBOR("application/cbor"),
+        MSGPACK("application/x-msgpack");
+
+        final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        /**
+         * Formato pedido no Accept. Um formato binário só é usado quando tem q maior que o
+         * do JSON (incluindo curingas); sem Accept, ou em empate, a resposta é JSON.
+         */
+        static Format negotiate(String accept) {
+            if (accept == null || accept.isEmpty() || accept.indexOf("application/") < 0) {
+                return JSON;
+            }
+            double jsonQ = 0;
+            double cborQ = 0;
+            double msgpackQ = 0;
+            boolean jsonListed = false;
+            for (String range : accept.split(",")) {
+                int semicolon = range.indexOf(';');
+                String type = (semicolon >= 0 ? range.substring(0, semicolon) : range).trim().toLowerCase(Locale.ROOT);
+                double q = semicolon >= 0 ? quality(range.substring(semicolon + 1)) : 1.0;
+                switch (type) {
+                    case "application/json":
+                    case "application/*":
+                    case "*/*":
+                        jsonQ = Math.max(jsonQ, q);
+                        jsonListed = true;
+                        break;
+                    case "application/cbor":
+                        cborQ = Math.max(cborQ, q);
+                        break;
+                    case "application/x-msgpack":
+                    case "application/msgpack":
+                    case "application/vnd.msgpack":
+                        msgpackQ = Math.max(msgpackQ, q);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            double binaryQ = Math.max(cborQ, msgpackQ);
+            if (binaryQ <= 0 || (jsonListed && jsonQ >= binaryQ)) {
+                return JSON;
+            }
+            return cborQ >= msgpackQ ? CBOR : MSGPACK;
+        }
+
+        private static double quality(String parameters) {
+            for (String parameter : parameters.split(";")) {
+                String p = parameter.trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(p.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+            return 1.0;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // Buffers maiores que isso não voltam para o pool, para não reter memória após uma resposta grande
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+    protected static final int MAX_DEPTH = 63;
+
+    // Um writer por formato e por thread
+    private static final ThreadLocal<DocumentWriter[]> POOL =
+        ThreadLocal.withInitial(() -> new DocumentWriter[Format.values().length]);
+    // Writers das virtual threads, por formato (tamanho aproximado; o excedente vai para o GC)
+    private static final int MAX_SHARED = 64;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ConcurrentLinkedQueue<DocumentWriter>[] SHARED = new ConcurrentLinkedQueue[Format.values().length];
+
+    static {
+        for (int i = 0; i < SHARED.length; i++) {
+            SHARED[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    final Format format;
+    protected byte[] buffer;
+    protected int size;
+    private boolean inUse;
+    private boolean shared;
+
+    protected DocumentWriter(Format format, int initialCapacity) {
+        this.format = format;
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    static DocumentWriter create(Format format) {
+        switch (format) {
+            case CBOR:
+                return new CborWriter(INITIAL_CAPACITY);
+            case MSGPACK:
+                return new MsgPackWriter(INITIAL_CAPACITY);
+            default:
+                return new JsonWriter(INITIAL_CAPACITY);
+        }
+    }
+
+    /**
+     * Obtém o writer do formato na thread atual, já limpo. Se ele estiver em uso
+     * (renderização aninhada), devolve uma instância nova.
+     */
+    static DocumentWriter acquire(Format format) {
+        if (VirtualThreads.isVirtual(Thread.currentThread())) {
+            DocumentWriter writer = SHARED[format.ordinal()].poll();
+            if (writer == null) {
+                writer = create(format);
+            }
+            writer.reset();
+            writer.inUse = true;
+            writer.shared = true;
+            return writer;
+        }
+        DocumentWriter[] pooled = POOL.get();
+        DocumentWriter writer = pooled[format.ordinal()];
+        if (writer == null || writer.inUse) {
+            writer = create(format);
+            if (pooled[format.ordinal()] == null) {
+                pooled[format.ordinal()] = writer;
+            }
+        }
+        writer.reset();
+        writer.inUse = true;
+        return writer;
+    }
+
+    static void release(DocumentWriter writer) {
+        writer.inUse = false;
+        if (writer.shared) {
+            ConcurrentLinkedQueue<DocumentWriter> queue = SHARED[writer.format.ordinal()];
+            if (writer.buffer.length <= MAX_POOLED_CAPACITY && queue.size() < MAX_SHARED) {
+                queue.offer(writer);
+            }
+            return;
+        }
+        if (writer.buffer.length > MAX_POOLED_CAPACITY) {
+            DocumentWriter[] pooled = POOL.get();
+            if (pooled[writer.format.ordinal()] == writer) {
+                pooled[writer.format.ordinal()] = null;
+            }
+        }
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    // ---- Estrutura ----
+
+    abstract DocumentWriter beginObject();
+
+    abstract DocumentWriter endObject();
+
+    abstract DocumentWriter beginArray();
+
+    abstract DocumentWriter endArray();
+
+    /**
+     * Escreve o nome de um campo; o próximo valor pertence a ele
+     */
+    abstract DocumentWriter name(String name);
+
+    // ---- Valores ----
+
+    abstract DocumentWriter value(String value);
+
+    abstract DocumentWriter value(boolean value);
+
+    DocumentWriter value(int value) {
+        return value((long) value);
+    }
+
+    abstract DocumentWriter value(long value);
+
+    /**
+     * Número decimal; NaN e infinitos viram null em todos os formatos
+     */
+    abstract DocumentWriter value(double value);
+
+    abstract DocumentWriter nullValue();
+
+    /**
+     * Insere um valor já codificado no mesmo formato (por exemplo, uma seção em cache)
+     */
+    abstract DocumentWriter rawValue(byte[] encoded);
+
+    // ---- Atalhos campo + valor ----
+
+    DocumentWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    DocumentWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    DocumentWriter field(String name, int value) {
+        return name(name).value(value);
+    }
+
+    DocumentWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    DocumentWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    // ---- Internos compartilhados ----
+
+    protected final void writeRaw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Tamanho em UTF-8, contando surrogates isolados como '?' (1 byte)
+     */
+    protected static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2; // 4 bytes para 2 chars
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes UTF-8 da string, sem escape; o espaço (utf8Length) já deve estar reservado
+     */
+    protected final void writeUtf8(String value) {
+        byte[] b = buffer;
+        int pos = size;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                b[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                b[pos++] = (byte) (0xC0 | (c >> 6));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                b[pos++] = (byte) (0xF0 | (cp >> 18));
+                b[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[pos++] = '?';
+            } else {
+                b[pos++] = (byte) (0xE0 | (c >> 12));
+                b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        size = pos;
+    }
+
+    protected final void ensure(int extra) {
+        int required = size + extra;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,668 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal de eventos do servidor para /events: entradas e saídas de jogadores, mudanças
+ * de clima, estação e PvP (detectadas entre snapshots) e início/parada do servidor
+ * (eventos do Necesse).
+ *
+ * Os registros são binários e só são acrescentados, em segmentos de tamanho fixo
+ * mapeados em memória (webapi-events/events-&lt;posição&gt;.log). Cada registro é
+ * [tamanho][crc32][tipo, instante, sequência do snapshot, campos]; o tamanho é gravado
+ * por último, então um registro incompleto (queda no meio da escrita) nunca é lido e é
+ * descartado ao reabrir. Segmentos antigos saem por tamanho total e por idade.
+ *
+ * O cursor é "&lt;journal&gt;-&lt;posição&gt;": a posição em bytes desde o início do journal,
+ * que só cresce e sobrevive a reinícios. Se o journal for recriado, o identificador
+ * muda e um cursor antigo recomeça do registro mais antigo em vez de apontar para o
+ * lugar errado.
+ *
+ * Há um único gravador (thread própria, alimentada pelo listener do SnapshotEngine);
+ * a leitura percorre os segmentos direto do buffer mapeado, sem travas nem cópias.
+ */
+final class EventJournal implements SnapshotEngine.Listener {
+
+    /**
+     * Tipos gravados; o código em disco é ordinal() + 1, então novos tipos só no final
+     */
+    enum Type {
+        SERVER_START("server_start"),
+        SERVER_STOP("server_stop"),
+        PLAYER_JOIN("player_join"),
+        PLAYER_LEAVE("player_leave"),
+        WEATHER("weather"),
+        SEASON("season"),
+        PVP("pvp");
+
+        final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+
+        static Type fromCode(int code) {
+            Type[] types = values();
+            return code >= 1 && code <= types.length ? types[code - 1] : null;
+        }
+    }
+
+    private static final int MAGIC = 0x5749414A; // "WIAJ"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".log";
+
+    // Cabeçalho do segmento: magic, versão, id do journal, posição inicial, criação
+    private static final int SEGMENT_HEADER = 32;
+    private static final int HEADER_JOURNAL = 8;
+    private static final int HEADER_BASE = 16;
+    private static final int HEADER_CREATED = 24;
+
+    // Registro: tamanho do conteúdo e crc32 do conteúdo, depois o conteúdo
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_PAYLOAD = 4096;
+    private static final int MAX_STRING = 1024;
+    // Conteúdo: tipo (byte), instante (long), sequência (long)
+    private static final int PAYLOAD_FIXED = 17;
+
+    private static final class Segment {
+        final long base;
+        final long createdAt;
+        final ByteBuffer buffer;
+        final FileChannel channel;
+        final Path file;
+        // Fim dos registros confirmados (offset no buffer); publicado depois da escrita
+        volatile int limit;
+
+        Segment(long base, long createdAt, ByteBuffer buffer, FileChannel channel, Path file, int limit) {
+            this.base = base;
+            this.createdAt = createdAt;
+            this.buffer = buffer;
+            this.channel = channel;
+            this.file = file;
+            this.limit = limit;
+        }
+
+        /**
+         * Posição do journal logo depois do último registro confirmado
+         */
+        long end() {
+            return base + limit - SEGMENT_HEADER;
+        }
+    }
+
+    private final SnapshotEngine snapshots;
+    private final int segmentBytes;
+    private final long retentionBytes;
+    private final long retentionMillis;
+    private final ScheduledExecutorService writer;
+    private Path directory;
+    private long journalId;
+    private volatile Segment[] segments;
+
+    // Acessados apenas pela thread do gravador
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD);
+    private final CRC32 crc = new CRC32();
+    private final List<Path> pendingDeletes = new ArrayList<>();
+
+    private EventJournal(SnapshotEngine snapshots, Path directory, int segmentBytes, long retentionBytes, long retentionMillis) {
+        this.snapshots = snapshots;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retentionBytes = retentionBytes;
+        this.retentionMillis = retentionMillis;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-EventJournal");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Abre (ou cria) o journal no diretório; sem diretório, ou se ele não puder ser usado,
+     * os segmentos ficam em memória e o journal recomeça a cada início
+     */
+    static EventJournal start(SnapshotEngine snapshots, Path directory, int segmentBytes, int retentionMb, int retentionHours) {
+        EventJournal journal = new EventJournal(snapshots, directory, segmentBytes,
+            retentionMb * 1024L * 1024L, retentionHours * 3_600_000L);
+        journal.load();
+        journal.writer.scheduleAtFixedRate(journal::enforceRetentionSafely, 1, 1, TimeUnit.MINUTES);
+        snapshots.addListener(journal);
+        return journal;
+    }
+
+    // ---- Gravação ----
+
+    @Override
+    public void onSnapshot(ServerSnapshot previous, ServerSnapshot current) {
+        // Chamado na thread do jogo: o primeiro snapshot é só a base de comparação
+        if (previous != null) {
+            submit(() -> recordChanges(previous, current));
+        }
+    }
+
+    /**
+     * Registra um evento do servidor (início/parada) com a sequência do último snapshot
+     */
+    void record(Type type) {
+        ServerSnapshot latest = snapshots.latest();
+        long sequence = latest != null ? latest.sequence : 0;
+        long timestamp = System.currentTimeMillis();
+        submit(() -> {
+            begin(type, timestamp, sequence);
+            commit();
+        });
+    }
+
+    private void submit(Runnable task) {
+        try {
+            // Executor agendado guarda exceções no Future; registrar aqui para não sumirem
+            writer.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("WebInfoAPI: Erro ao gravar evento no journal: " + e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Journal já fechado
+        }
+    }
+
+    private void recordChanges(ServerSnapshot previous, ServerSnapshot current) {
+        long timestamp = current.capturedAt;
+        for (PlayerSnapshot player : SnapshotDiff.joined(previous, current)) {
+            recordPlayer(Type.PLAYER_JOIN, timestamp, current.sequence, player);
+        }
+        for (PlayerSnapshot player : SnapshotDiff.left(previous, current)) {
+            recordPlayer(Type.PLAYER_LEAVE, timestamp, current.sequence, player);
+        }
+        if (!Objects.equals(previous.weather, current.weather)) {
+            recordChange(Type.WEATHER, timestamp, current.sequence, previous.weather, current.weather);
+        }
+        if (!Objects.equals(previous.season, current.season)) {
+            recordChange(Type.SEASON, timestamp, current.sequence, previous.season, current.season);
+        }
+        if (previous.pvpEnabled != current.pvpEnabled) {
+            begin(Type.PVP, timestamp, current.sequence);
+            scratch.put((byte) (current.pvpEnabled ? 1 : 0));
+            commit();
+        }
+    }
+
+    private void recordPlayer(Type type, long timestamp, long sequence, PlayerSnapshot player) {
+        begin(type, timestamp, sequence);
+        UUID uuid = player.uuid != null ? player.uuid : new UUID(0, 0);
+        scratch.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        putString(player.name);
+        commit();
+    }
+
+    private void recordChange(Type type, long timestamp, long sequence, String from, String to) {
+        begin(type, timestamp, sequence);
+        putString(from);
+        putString(to);
+        commit();
+    }
+
+    private void begin(Type type, long timestamp, long sequence) {
+        scratch.clear();
+        scratch.put((byte) (type.ordinal() + 1)).putLong(timestamp).putLong(sequence);
+    }
+
+    private void putString(String value) {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING);
+        scratch.putShort((short) length).put(bytes, 0, length);
+    }
+
+    /**
+     * Acrescenta o conteúdo montado em scratch ao segmento ativo (rolando se não couber)
+     */
+    private void commit() {
+        int length = scratch.position();
+        Segment[] current = segments;
+        Segment segment = current[current.length - 1];
+        if (segment.limit + RECORD_HEADER + length > segment.buffer.capacity()) {
+            segment = roll(segment);
+            if (segment == null) {
+                return;
+            }
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+
+        int offset = segment.limit;
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position(offset + RECORD_HEADER);
+        view.put(scratch.array(), 0, length);
+        view.putInt(offset + 4, (int) crc.getValue());
+        // O tamanho confirma o registro
+        view.putInt(offset, length);
+        segment.limit = offset + RECORD_HEADER + length;
+    }
+
+    /**
+     * Fecha o segmento ativo e abre o próximo, começando na posição em que ele terminou
+     */
+    private Segment roll(Segment active) {
+        Segment next;
+        try {
+            next = createSegment(active.end(), System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("WebInfoAPI: Falha ao criar segmento do journal de eventos: " + e.getMessage());
+            return null;
+        }
+        force(active);
+        Segment[] current = segments;
+        Segment[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = next;
+        segments = updated;
+        enforceRetention(System.currentTimeMillis());
+        return next;
+    }
+
+    private void enforceRetentionSafely() {
+        try {
+            Segment[] current = segments;
+            Segment active = current[current.length - 1];
+            long now = System.currentTimeMillis();
+            // Um segmento ativo antigo é fechado para que seus registros possam expirar
+            if (active.limit > SEGMENT_HEADER && now - active.createdAt > retentionMillis / 4) {
+                roll(active);
+            } else {
+                enforceRetention(now);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("WebInfoAPI: Erro na retenção do journal de eventos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove os segmentos fechados mais antigos enquanto o total passar do limite ou
+     * enquanto todos os seus registros forem mais velhos que a retenção (o segmento
+     * seguinte foi criado depois do último registro dele)
+     */
+    private void enforceRetention(long now) {
+        Segment[] current = segments;
+        long total = 0;
+        for (Segment segment : current) {
+            total += segment.buffer.capacity();
+        }
+        int drop = 0;
+        while (drop < current.length - 1) {
+            boolean expired = now - current[drop + 1].createdAt > retentionMillis;
+            if (!expired && total <= retentionBytes) {
+                break;
+            }
+            total -= current[drop].buffer.capacity();
+            drop++;
+        }
+        if (drop > 0) {
+            // Leitores em andamento ainda enxergam o buffer dos segmentos removidos
+            segments = Arrays.copyOfRange(current, drop, current.length);
+            for (int i = 0; i < drop; i++) {
+                release(current[i]);
+            }
+        }
+        for (Iterator<Path> it = pendingDeletes.iterator(); it.hasNext(); ) {
+            if (delete(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private void release(Segment segment) {
+        close(segment);
+        if (segment.file != null && !delete(segment.file)) {
+            // No Windows um arquivo ainda mapeado não pode ser apagado; tentar de novo depois
+            pendingDeletes.add(segment.file);
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // ---- Segmentos ----
+
+    /**
+     * Reabre os segmentos existentes e descarta o final incompleto do último
+     */
+    private void load() {
+        List<Segment> loaded = new ArrayList<>();
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+                    for (Path file : stream) {
+                        files.add(file);
+                    }
+                }
+                // Nome com a posição inicial em 20 dígitos: ordem alfabética = ordem do journal
+                files.sort(null);
+                for (Path file : files) {
+                    Segment segment = openSegment(file);
+                    if (segment == null || (!loaded.isEmpty() && segment.buffer.getLong(HEADER_JOURNAL) != journalId)) {
+                        System.err.println("WebInfoAPI: Segmento do journal inválido descartado: " + file.getFileName());
+                        if (segment != null) {
+                            close(segment);
+                        }
+                        delete(file);
+                        continue;
+                    }
+                    if (loaded.isEmpty()) {
+                        journalId = segment.buffer.getLong(HEADER_JOURNAL);
+                    }
+                    loaded.add(segment);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("WebInfoAPI: Journal de eventos não será persistido (" + directory + "): " + e.getMessage());
+                for (Segment segment : loaded) {
+                    close(segment);
+                }
+                loaded.clear();
+                directory = null;
+            }
+        }
+
+        if (loaded.isEmpty()) {
+            journalId = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+            try {
+                loaded.add(createSegment(0, System.currentTimeMillis()));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("WebInfoAPI: Journal de eventos não será persistido (" + directory + "): " + e.getMessage());
+                directory = null;
+                loaded.add(memorySegment(0, System.currentTimeMillis()));
+            }
+        } else {
+            // Bytes depois do último registro válido podem ser restos de uma escrita interrompida
+            Segment last = loaded.get(loaded.size() - 1);
+            for (int i = last.limit; i < last.buffer.capacity(); i++) {
+                last.buffer.put(i, (byte) 0);
+            }
+        }
+        segments = loaded.toArray(new Segment[0]);
+    }
+
+    private Segment openSegment(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size < SEGMENT_HEADER + RECORD_HEADER || size > Integer.MAX_VALUE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                channel.close();
+                return null;
+            }
+            return new Segment(buffer.getLong(HEADER_BASE), buffer.getLong(HEADER_CREATED), buffer, channel, file, scan(buffer));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Segment createSegment(long base, long createdAt) throws IOException {
+        if (directory == null) {
+            return memorySegment(base, createdAt);
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, base, SUFFIX));
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            writeHeader(buffer, base, createdAt);
+            return new Segment(base, createdAt, buffer, channel, file, SEGMENT_HEADER);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private Segment memorySegment(long base, long createdAt) {
+        ByteBuffer buffer = ByteBuffer.allocate(segmentBytes);
+        writeHeader(buffer, base, createdAt);
+        return new Segment(base, createdAt, buffer, null, null, SEGMENT_HEADER);
+    }
+
+    private void writeHeader(ByteBuffer buffer, long base, long createdAt) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(HEADER_JOURNAL, journalId);
+        buffer.putLong(HEADER_BASE, base);
+        buffer.putLong(HEADER_CREATED, createdAt);
+    }
+
+    /**
+     * Offset logo depois do último registro íntegro (tamanho plausível e crc correto)
+     */
+    private static int scan(ByteBuffer buffer) {
+        CRC32 check = new CRC32();
+        byte[] payload = new byte[MAX_PAYLOAD];
+        int offset = SEGMENT_HEADER;
+        while (offset + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < PAYLOAD_FIXED || length > MAX_PAYLOAD || offset + RECORD_HEADER + length > buffer.capacity()) {
+                break;
+            }
+            for (int i = 0; i < length; i++) {
+                payload[i] = buffer.get(offset + RECORD_HEADER + i);
+            }
+            check.reset();
+            check.update(payload, 0, length);
+            if ((int) check.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += RECORD_HEADER + length;
+        }
+        return offset;
+    }
+
+    private static void force(Segment segment) {
+        if (segment.buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) segment.buffer).force();
+        }
+    }
+
+    private static void close(Segment segment) {
+        if (segment.channel == null) {
+            return;
+        }
+        try {
+            force(segment);
+            segment.channel.close();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("WebInfoAPI: Erro ao fechar segmento do journal: " + e.getMessage());
+        }
+    }
+
+    // ---- Leitura ----
+
+    /**
+     * Escreve em json os eventos a partir do cursor (ou do mais antigo retido, se cursor
+     * for null), no máximo limit, seguidos de next_cursor, count, end e truncated.
+     * Valida o cursor antes de escrever qualquer coisa.
+     *
+     * @throws IllegalArgumentException se o cursor for mal formado ou não apontar para um registro
+     */
+    void read(String cursor, int limit, DocumentWriter json) {
+        Segment[] current = segments;
+        long oldest = current[0].base;
+        long end = current[current.length - 1].end();
+
+        long position = oldest;
+        boolean truncated = false;
+        if (cursor != null && !cursor.isEmpty()) {
+            int dash = cursor.indexOf('-');
+            long id;
+            try {
+                if (dash <= 0) {
+                    throw new NumberFormatException();
+                }
+                id = Long.parseLong(cursor.substring(0, dash), 16);
+                position = Long.parseLong(cursor.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            if (id != journalId || position < oldest) {
+                // Journal recriado, ou registros já removidos pela retenção
+                position = oldest;
+                truncated = true;
+            } else if (position > end) {
+                throw new IllegalArgumentException("Cursor além do fim do journal: " + cursor);
+            }
+        }
+
+        int index = segmentIndex(current, position);
+        Segment segment = current[index];
+        int offset = (int) (position - segment.base) + SEGMENT_HEADER;
+        if (offset < segment.limit && !isRecord(segment, offset)) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+
+        json.name("events").beginArray();
+        int count = 0;
+        while (true) {
+            int segmentLimit = segment.limit;
+            while (count < limit && offset < segmentLimit) {
+                int length = segment.buffer.getInt(offset);
+                writeEvent(json, segment.buffer, offset + RECORD_HEADER);
+                offset += RECORD_HEADER + length;
+                count++;
+            }
+            if (offset < segmentLimit || index == current.length - 1) {
+                break;
+            }
+            // Segmento lido até o fim: continuar no próximo
+            segment = current[++index];
+            offset = SEGMENT_HEADER;
+        }
+        json.endArray();
+
+        long next = segment.base + offset - SEGMENT_HEADER;
+        json.field("count", count)
+            .field("next_cursor", Long.toHexString(journalId) + "-" + next)
+            .field("end", next >= segments[segments.length - 1].end())
+            .field("truncated", truncated);
+    }
+
+    /**
+     * Índice do último segmento que começa em position ou antes
+     */
+    private static int segmentIndex(Segment[] current, long position) {
+        int low = 0;
+        int high = current.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (current[mid].base <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isRecord(Segment segment, int offset) {
+        if (offset < SEGMENT_HEADER || offset + RECORD_HEADER > segment.limit) {
+            return false;
+        }
+        int length = segment.buffer.getInt(offset);
+        return length >= PAYLOAD_FIXED && length <= MAX_PAYLOAD
+            && offset + RECORD_HEADER + length <= segment.limit
+            && Type.fromCode(segment.buffer.get(offset + RECORD_HEADER)) != null;
+    }
+
+    private static void writeEvent(DocumentWriter json, ByteBuffer buffer, int offset) {
+        Type type = Type.fromCode(buffer.get(offset));
+        json.beginObject()
+            .field("type", type != null ? type.name : "unknown")
+            .field("time", buffer.getLong(offset + 1))
+            .field("snapshot_sequence", buffer.getLong(offset + 9));
+        int p = offset + PAYLOAD_FIXED;
+        if (type == Type.PLAYER_JOIN || type == Type.PLAYER_LEAVE) {
+            UUID uuid = new UUID(buffer.getLong(p), buffer.getLong(p + 8));
+            json.field("id", uuid.toString())
+                .field("name", readString(buffer, p + 16));
+        } else if (type == Type.WEATHER || type == Type.SEASON) {
+            int toOffset = p + 2 + (buffer.getShort(p) & 0xFFFF);
+            json.field("from", readString(buffer, p))
+                .field("to", readString(buffer, toOffset));
+        } else if (type == Type.PVP) {
+            json.field("enabled", buffer.get(p) != 0);
+        }
+        json.endObject();
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---- Estado ----
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Bytes ocupados pelos segmentos retidos (tamanho dos arquivos)
+     */
+    long retainedBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.buffer.capacity();
+        }
+        return total;
+    }
+
+    /**
+     * Grava o que ainda estiver na fila (ex.: server_stop), sincroniza e fecha os arquivos
+     */
+    void stop() {
+        snapshots.removeListener(this);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments) {
+            close(segment);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out de Server-Sent Events para o endpoint /stream.
+ *
+ * Cada mudança (entrada/saída de jogadores, hora/clima/estação do mundo) e cada
+ * heartbeat é codificado uma única vez e o mesmo array de bytes é enfileirado para
+ * todos os inscritos. Conexões ociosas não ocupam threads: a escrita é feita por um
+ * pool pequeno apenas quando há algo na fila. Um cliente lento que estoura o backlog
+ * por conexão é desconectado (o EventSource do navegador reconecta e recebe o estado atual).
+ *
+ * As escritas no socket bloqueiam, então um cliente que parou de ler prenderia a thread de
+ * escrita: toda escrita (e o fechamento, que envia o chunk final) tem prazo, e ao passar
+ * dele a conexão é abortada. O fechamento nunca roda no dispatcher nem no broadcast; vai
+ * para uma thread própria, e só depois que a escrita em andamento da conexão terminou.
+ */
+final class EventStream implements SnapshotEngine.Listener {
+
+    private final SnapshotEngine snapshots;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService dispatcher;
+    private final ExecutorService writers;
+    private final ExecutorService closer;
+    private final ScheduledExecutorService heartbeat;
+    private final int maxClients;
+    private final int maxBacklog;
+    private final long writeTimeoutNanos;
+    // Conexões com uma escrita ou fechamento em andamento, vigiadas pelo prazo
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+
+    // Acessado apenas pela thread do dispatcher
+    private ServerSnapshot lastDispatched;
+
+    EventStream(SnapshotEngine snapshots, int maxClients, int maxBacklog, int heartbeatSeconds, int writerThreads,
+                int writeTimeoutSeconds) {
+        this.snapshots = snapshots;
+        this.maxClients = Math.max(1, maxClients);
+        this.maxBacklog = Math.max(1, maxBacklog);
+        this.writeTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, writeTimeoutSeconds));
+        this.dispatcher = Executors.newSingleThreadExecutor(daemon("WebInfoAPI-EventStream"));
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), daemon("WebInfoAPI-StreamWriter"));
+        this.closer = Executors.newSingleThreadExecutor(daemon("WebInfoAPI-StreamCloser"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("WebInfoAPI-StreamHeartbeat"));
+
+        int period = Math.max(1, heartbeatSeconds);
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, period, period, TimeUnit.SECONDS);
+        heartbeat.scheduleWithFixedDelay(this::abortStalled, 1, 1, TimeUnit.SECONDS);
+        snapshots.addListener(this);
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    boolean isFull() {
+        return subscribers.size() >= maxClients;
+    }
+
+    /**
+     * Registra a conexão e envia o estado atual; retorna false se o limite de clientes foi atingido.
+     * Os cabeçalhos de resposta (text/event-stream) já devem ter sido enviados pelo chamador.
+     */
+    boolean subscribe(HttpExchange exchange) {
+        if (subscribers.size() >= maxClients) {
+            return false;
+        }
+        Subscriber subscriber = new Subscriber(exchange, maxBacklog);
+        subscribers.add(subscriber);
+
+        ServerSnapshot current = snapshots.latest();
+        subscriber.offer(comment("conectado"));
+        if (current != null) {
+            subscriber.offer(playersEvent(current, SnapshotDiff.joined(null, current), SnapshotDiff.left(null, current)));
+            subscriber.offer(worldEvent(current));
+        }
+        schedule(subscriber);
+        return true;
+    }
+
+    @Override
+    public void onSnapshot(ServerSnapshot previous, ServerSnapshot current) {
+        // Chamado na thread do jogo: apenas repassa
+        dispatcher.execute(() -> dispatch(current));
+    }
+
+    private void dispatch(ServerSnapshot current) {
+        ServerSnapshot previous = lastDispatched;
+        if (previous != null && current.sequence <= previous.sequence) {
+            return;
+        }
+        // Atualizado mesmo sem inscritos: o primeiro diff depois de um período ocioso não pode
+        // partir de um snapshot antigo (o inscrito novo já recebeu o estado atual em subscribe)
+        lastDispatched = current;
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        List<PlayerSnapshot> joined = SnapshotDiff.joined(previous, current);
+        List<PlayerSnapshot> left = SnapshotDiff.left(previous, current);
+        if (!joined.isEmpty() || !left.isEmpty()) {
+            broadcast(playersEvent(current, joined, left));
+        }
+        if (SnapshotDiff.worldChanged(previous, current)) {
+            broadcast(worldEvent(current));
+        }
+    }
+
+    private void sendHeartbeat() {
+        try {
+            if (subscribers.isEmpty()) {
+                return;
+            }
+            ServerSnapshot current = snapshots.latest();
+            JsonWriter json = JsonWriter.acquire();
+            try {
+                json.beginObject()
+                    .field("timestamp", System.currentTimeMillis())
+                    .field("tps", current != null ? current.tps : 0)
+                    .field("players", current != null ? current.playersOnline : 0)
+                    .field("subscribers", subscribers.size())
+                    .endObject();
+                broadcast(frame("heartbeat", current != null ? current.sequence : 0, json));
+            } finally {
+                JsonWriter.release(json);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("WebInfoAPI: Erro no heartbeat do /stream: " + e);
+        }
+    }
+
+    private void broadcast(byte[] event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(event)) {
+                schedule(subscriber);
+            } else {
+                // Backlog cheio: cliente lento demais, desconectar
+                close(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                writers.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                close(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Escreve a fila da conexão; roda com a flag scheduled, que dá a uma única thread por vez
+     * o direito de escrever ou fechar a conexão
+     */
+    private void drain(Subscriber subscriber) {
+        beginWrite(subscriber);
+        try {
+            byte[] event;
+            while (!subscriber.closing && (event = subscriber.queue.poll()) != null) {
+                subscriber.out.write(event);
+            }
+            if (!subscriber.closing) {
+                subscriber.out.flush();
+            }
+        } catch (IOException e) {
+            subscribers.remove(subscriber);
+            subscriber.closing = true;
+        } finally {
+            endWrite(subscriber);
+        }
+        if (subscriber.closing) {
+            // A flag continua com esta conexão até o fechamento terminar
+            closer.execute(() -> finishClose(subscriber));
+            return;
+        }
+        subscriber.scheduled.set(false);
+        // Eventos podem ter chegado entre o último poll e a liberação da flag
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Desconecta o inscrito; quem chama nunca bloqueia: o fechamento roda na thread do closer,
+     * ou depois da escrita em andamento (que tem prazo)
+     */
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.closing = true;
+            subscriber.queue.clear();
+            if (subscriber.scheduled.compareAndSet(false, true)) {
+                try {
+                    closer.execute(() -> finishClose(subscriber));
+                } catch (RejectedExecutionException e) {
+                    // Encerrando: stop() aborta as conexões restantes
+                }
+            }
+        }
+    }
+
+    /**
+     * Fecha a resposta (envia o chunk final), com o mesmo prazo das escritas
+     */
+    private void finishClose(Subscriber subscriber) {
+        beginWrite(subscriber);
+        try {
+            subscriber.exchange.close();
+        } finally {
+            endWrite(subscriber);
+        }
+    }
+
+    private void beginWrite(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.writer = Thread.currentThread();
+            subscriber.writeStartedAt = System.nanoTime();
+        }
+        writing.add(subscriber);
+    }
+
+    private void endWrite(Subscriber subscriber) {
+        writing.remove(subscriber);
+        synchronized (subscriber) {
+            subscriber.writer = null;
+        }
+        // Uma interrupção do prazo que chegou no fim da escrita não pode vazar para a próxima tarefa
+        Thread.interrupted();
+    }
+
+    /**
+     * Aborta as conexões cuja escrita passou do prazo (cliente que parou de ler)
+     */
+    private void abortStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : writing) {
+            synchronized (subscriber) {
+                if (subscriber.writer != null && now - subscriber.writeStartedAt > writeTimeoutNanos) {
+                    subscribers.remove(subscriber);
+                    subscriber.closing = true;
+                    abort(subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Derruba a conexão sem esperar o cliente: no engine "nio" fechando o socket pelo event
+     * loop; no HttpServer do JDK interrompendo a thread presa na escrita, o que fecha o canal
+     */
+    private static void abort(Subscriber subscriber) {
+        if (subscriber.exchange instanceof NioHttpExchange) {
+            ((NioHttpExchange) subscriber.exchange).abort();
+        } else if (subscriber.writer != null) {
+            subscriber.writer.interrupt();
+        }
+    }
+
+    void stop() {
+        snapshots.removeListener(this);
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            close(subscriber);
+        }
+        closer.shutdown();
+        try {
+            if (!closer.awaitTermination(1, TimeUnit.SECONDS)) {
+                closer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writers.shutdownNow();
+    }
+
+    // ---- Codificação dos eventos ----
+
+    private static byte[] playersEvent(ServerSnapshot snapshot, List<PlayerSnapshot> joined, List<PlayerSnapshot> left) {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject();
+            json.name("joined").beginArray();
+            for (PlayerSnapshot player : joined) {
+                json.beginObject().field("name", player.name).field("id", player.id).endObject();
+            }
+            json.endArray();
+            json.name("left").beginArray();
+            for (PlayerSnapshot player : left) {
+                json.beginObject().field("name", player.name).field("id", player.id).endObject();
+            }
+            json.endArray();
+            json.field("total_players", snapshot.playersOnline)
+                .field("snapshot_time", snapshot.capturedAt)
+                .endObject();
+            return frame("players", snapshot.sequence, json);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    private static byte[] worldEvent(ServerSnapshot snapshot) {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject()
+                .field("world_time", snapshot.worldTime)
+                .field("world_day", snapshot.worldDay)
+                .field("weather", snapshot.weather)
+                .field("season", snapshot.season)
+                .field("snapshot_time", snapshot.capturedAt)
+                .endObject();
+            return frame("world", snapshot.sequence, json);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Monta um frame SSE: "event: tipo\nid: seq\ndata: json\n\n"
+     */
+    private static byte[] frame(String event, long id, JsonWriter data) {
+        byte[] header = ("event: " + event + "\nid: " + id + "\ndata: ").getBytes(StandardCharsets.UTF_8);
+        byte[] frame = new byte[header.length + data.size() + 2];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        byte[] body = data.toByteArray();
+        System.arraycopy(body, 0, frame, header.length, body.length);
+        frame[frame.length - 2] = '\n';
+        frame[frame.length - 1] = '\n';
+        return frame;
+    }
+
+    private static byte[] comment(String text) {
+        return (": " + text + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class Subscriber {
+        final HttpExchange exchange;
+        final OutputStream out;
+        final Queue<byte[]> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean closing;
+        // Thread escrevendo ou fechando agora e desde quando (guardados pelo monitor do inscrito)
+        Thread writer;
+        long writeStartedAt;
+
+        Subscriber(HttpExchange exchange, int backlog) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+            this.queue = new ArrayBlockingQueue<>(backlog);
+        }
+
+        boolean offer(byte[] event) {
+            return queue.offer(event);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Séries temporais em processo para /history.
+ *
+ * Cada métrica tem três anéis de tamanho fixo: por segundo (última hora), por minuto
+ * (últimas 24 h) e por hora (últimos 30 dias). Cada posição guarda o balde de tempo e
+ * min/max/soma/contagem como primitivos; as agregações por minuto e por hora são
+ * atualizadas na própria gravação, então não há job de rollup. Tudo vive num único
+ * ByteBuffer, mapeado em arquivo quando possível, para o histórico sobreviver a reinícios.
+ *
+ * Há um único gravador (a thread de amostragem, uma vez por segundo); leitores e gravador
+ * sincronizam no próprio store, o que custa pouco nessas taxas.
+ */
+final class HistoryStore {
+
+    enum Metric {
+        TPS("tps"),
+        PLAYERS("players"),
+        HEAP_USED("heap_used"),
+        CPU("cpu");
+
+        final String param;
+
+        Metric(String param) {
+            this.param = param;
+        }
+
+        static Metric fromParam(String param) {
+            for (Metric metric : values()) {
+                if (metric.param.equals(param)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+    }
+
+    enum Tier {
+        SECOND("second", 1, 3600),
+        MINUTE("minute", 60, 1440),
+        HOUR("hour", 3600, 720);
+
+        final String name;
+        final int seconds;
+        final int slots;
+
+        Tier(String name, int seconds, int slots) {
+            this.name = name;
+            this.seconds = seconds;
+            this.slots = slots;
+        }
+
+        long retentionSeconds() {
+            return (long) seconds * slots;
+        }
+    }
+
+    /**
+     * Recebe os pontos de uma consulta: início da janela (epoch ms) e min/média/max
+     */
+    interface PointSink {
+        void point(long timestamp, double min, double avg, double max);
+    }
+
+    private static final int MAGIC = 0x57494148; // "WIAH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    // Posição: balde (long), min, max, soma (double), contagem (long)
+    private static final int SLOT_BYTES = 40;
+    private static final int BUCKET = 0;
+    private static final int MIN = 8;
+    private static final int MAX = 16;
+    private static final int SUM = 24;
+    private static final int COUNT = 32;
+
+    private static final int SLOTS_PER_METRIC;
+    private static final int[] TIER_OFFSET = new int[Tier.values().length];
+
+    static {
+        int offset = 0;
+        for (Tier tier : Tier.values()) {
+            TIER_OFFSET[tier.ordinal()] = offset;
+            offset += tier.slots;
+        }
+        SLOTS_PER_METRIC = offset;
+    }
+
+    private final ByteBuffer buffer;
+    private final FileChannel channel;
+    private ScheduledExecutorService executor;
+
+    private HistoryStore(ByteBuffer buffer, FileChannel channel) {
+        this.buffer = buffer;
+        this.channel = channel;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+            || buffer.getInt(8) != Metric.values().length || buffer.getInt(12) != SLOTS_PER_METRIC) {
+            // Arquivo novo ou de layout diferente: começar do zero
+            for (int i = 0; i < buffer.capacity(); i += 8) {
+                buffer.putLong(i, 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, Metric.values().length);
+            buffer.putInt(12, SLOTS_PER_METRIC);
+        }
+    }
+
+    private static int capacity() {
+        return HEADER_BYTES + Metric.values().length * SLOTS_PER_METRIC * SLOT_BYTES;
+    }
+
+    /**
+     * Abre (ou cria) o arquivo mapeado; sem arquivo, ou se o mapeamento falhar, usa memória
+     */
+    static HistoryStore open(Path file) {
+        if (file != null) {
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity());
+                return new HistoryStore(mapped, channel);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("WebInfoAPI: Histórico não será persistido (" + file + "): " + e.getMessage());
+            }
+        }
+        return new HistoryStore(ByteBuffer.allocate(capacity()), null);
+    }
+
+    /**
+     * Abre o store e chama sampler uma vez por segundo numa thread própria
+     */
+    static HistoryStore start(Path file, Consumer<HistoryStore> sampler) {
+        HistoryStore store = open(file);
+        store.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-History");
+            t.setDaemon(true);
+            return t;
+        });
+        store.executor.scheduleAtFixedRate(() -> {
+            try {
+                sampler.accept(store);
+            } catch (RuntimeException e) {
+                System.err.println("WebInfoAPI: Erro ao registrar histórico: " + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        return store;
+    }
+
+    /**
+     * Registra uma amostra no segundo informado, atualizando os três níveis
+     */
+    synchronized void record(Metric metric, long epochSecond, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        for (Tier tier : Tier.values()) {
+            long bucket = Math.floorDiv(epochSecond, tier.seconds);
+            int position = position(metric, tier, bucket);
+            if (buffer.getLong(position + BUCKET) != bucket || buffer.getLong(position + COUNT) == 0) {
+                // Posição de uma volta anterior do anel: reaproveitar
+                buffer.putLong(position + BUCKET, bucket);
+                buffer.putDouble(position + MIN, value);
+                buffer.putDouble(position + MAX, value);
+                buffer.putDouble(position + SUM, value);
+                buffer.putLong(position + COUNT, 1);
+            } else {
+                buffer.putDouble(position + MIN, Math.min(buffer.getDouble(position + MIN), value));
+                buffer.putDouble(position + MAX, Math.max(buffer.getDouble(position + MAX), value));
+                buffer.putDouble(position + SUM, buffer.getDouble(position + SUM) + value);
+                buffer.putLong(position + COUNT, buffer.getLong(position + COUNT) + 1);
+            }
+        }
+    }
+
+    /**
+     * Nível mais fino que ainda cobre "from" e cuja resolução não é maior que o passo
+     */
+    static Tier tierFor(long fromSecond, long nowSecond, long stepSeconds) {
+        for (Tier tier : Tier.values()) {
+            if (nowSecond - fromSecond < tier.retentionSeconds() && tier.seconds <= stepSeconds) {
+                return tier;
+            }
+        }
+        // Passo menor que a resolução disponível para esse período: usar o nível que cobre o período
+        for (Tier tier : Tier.values()) {
+            if (nowSecond - fromSecond < tier.retentionSeconds()) {
+                return tier;
+            }
+        }
+        return Tier.HOUR;
+    }
+
+    /**
+     * Agrega os baldes de [fromSecond, toSecond] do nível em janelas de stepSeconds e
+     * entrega cada janela com dados ao sink, em ordem; janelas vazias são omitidas
+     */
+    synchronized int query(Metric metric, Tier tier, long fromSecond, long toSecond, long stepSeconds, PointSink sink) {
+        long nowBucket = Math.floorDiv(System.currentTimeMillis() / 1000, tier.seconds);
+        long firstBucket = Math.max(Math.floorDiv(fromSecond, tier.seconds), nowBucket - tier.slots + 1);
+        long lastBucket = Math.min(Math.floorDiv(toSecond, tier.seconds), nowBucket);
+        long bucketsPerStep = Math.max(1, stepSeconds / tier.seconds);
+
+        int points = 0;
+        long window = Long.MIN_VALUE;
+        double min = 0;
+        double max = 0;
+        double sum = 0;
+        long count = 0;
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+            int position = position(metric, tier, bucket);
+            long slotCount = buffer.getLong(position + COUNT);
+            if (buffer.getLong(position + BUCKET) != bucket || slotCount == 0) {
+                continue;
+            }
+            long bucketWindow = Math.floorDiv(bucket, bucketsPerStep);
+            if (bucketWindow != window) {
+                if (count > 0) {
+                    sink.point(window * bucketsPerStep * tier.seconds * 1000, min, sum / count, max);
+                    points++;
+                }
+                window = bucketWindow;
+                min = Double.POSITIVE_INFINITY;
+                max = Double.NEGATIVE_INFINITY;
+                sum = 0;
+                count = 0;
+            }
+            min = Math.min(min, buffer.getDouble(position + MIN));
+            max = Math.max(max, buffer.getDouble(position + MAX));
+            sum += buffer.getDouble(position + SUM);
+            count += slotCount;
+        }
+        if (count > 0) {
+            sink.point(window * bucketsPerStep * tier.seconds * 1000, min, sum / count, max);
+            points++;
+        }
+        return points;
+    }
+
+    private static int position(Metric metric, Tier tier, long bucket) {
+        int slot = (int) Math.floorMod(bucket, (long) tier.slots);
+        return HEADER_BYTES + (metric.ordinal() * SLOTS_PER_METRIC + TIER_OFFSET[tier.ordinal()] + slot) * SLOT_BYTES;
+    }
+
+    /**
+     * Para a amostragem, grava as páginas mapeadas no disco e fecha o arquivo
+     */
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        close();
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            ((MappedByteBuffer) buffer).force();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("WebInfoAPI: Erro ao fechar arquivo de histórico: " + e.getMessage());
+        }
+    }
+}
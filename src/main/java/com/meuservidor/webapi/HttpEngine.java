@@ -0,0 +1,49 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * Servidor HTTP onde os handlers são registrados. Os handlers continuam escritos contra
+ * a API com.sun.net.httpserver (HttpHandler/HttpExchange) e rodam em qualquer engine:
+ * - "jdk": o HttpServer do JDK ({@link JdkHttpEngine});
+ * - "nio": event loops próprios com keep-alive, pipelining e limites por conexão ({@link NioHttpEngine}).
+ *
+ * A escolha vem de api.server.engine e só muda ao reiniciar o servidor.
+ */
+interface HttpEngine {
+
+    void createContext(String path, HttpHandler handler);
+
+    /**
+     * Executor onde os handlers rodam (o RequestScheduler)
+     */
+    void setExecutor(Executor executor);
+
+    void start();
+
+    /**
+     * Endereço local em que o servidor escuta
+     */
+    InetSocketAddress getAddress();
+
+    void stop(int delaySeconds);
+
+    /**
+     * Corpo de resposta que aceita um buffer imutável sem copiá-lo (engine "nio"); o
+     * conteúdo do buffer não pode mudar depois de entregue
+     */
+    interface SharedBodyOutput {
+        void writeShared(ByteBuffer body) throws IOException;
+    }
+
+    static HttpEngine create(ApiConfig config, InetSocketAddress address) throws IOException {
+        if ("nio".equals(config.serverEngine)) {
+            return new NioHttpEngine(address, config);
+        }
+        return new JdkHttpEngine(address);
+    }
+}
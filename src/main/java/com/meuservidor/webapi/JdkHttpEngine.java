@@ -0,0 +1,44 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+
+/**
+ * Engine padrão: o HttpServer do JDK, sem alterações
+ */
+final class JdkHttpEngine implements HttpEngine {
+
+    private final HttpServer server;
+
+    JdkHttpEngine(InetSocketAddress address) throws IOException {
+        this.server = HttpServer.create(address, 0);
+    }
+
+    @Override
+    public void createContext(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+    }
+}
@@ -0,0 +1,274 @@
+package com.meuservidor.webapi;
+
+/**
+ * Codificador JSON em streaming que escreve UTF-8 já escapado direto em um
+ * buffer de bytes reutilizável.
+ *
+ * Substitui a montagem de respostas com String.format: não há parsing de formato,
+ * boxing de primitivos nem Strings intermediárias. Instâncias são reaproveitadas
+ * por thread via {@link #acquire()} / {@link #release(JsonWriter)}.
+ */
+final class JsonWriter extends DocumentWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = "true".getBytes();
+    private static final byte[] FALSE = "false".getBytes();
+    private static final byte[] NULL = "null".getBytes();
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes();
+
+    // Um bit por nível de aninhamento: 1 quando já há um elemento e o próximo precisa de vírgula
+    private long commaMask;
+    private int depth;
+    private boolean afterName;
+
+    JsonWriter(int initialCapacity) {
+        super(Format.JSON, initialCapacity);
+    }
+
+    /**
+     * Obtém o writer JSON da thread atual, já limpo
+     */
+    static JsonWriter acquire() {
+        return (JsonWriter) DocumentWriter.acquire(Format.JSON);
+    }
+
+    static void release(JsonWriter writer) {
+        DocumentWriter.release(writer);
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        commaMask = 0;
+        depth = 0;
+        afterName = false;
+    }
+
+    // ---- Estrutura ----
+
+    @Override
+    JsonWriter beginObject() {
+        return open((byte) '{');
+    }
+
+    @Override
+    JsonWriter endObject() {
+        return close((byte) '}');
+    }
+
+    @Override
+    JsonWriter beginArray() {
+        return open((byte) '[');
+    }
+
+    @Override
+    JsonWriter endArray() {
+        return close((byte) ']');
+    }
+
+    /**
+     * Escreve o nome de um campo; o próximo valor pertence a ele
+     */
+    @Override
+    JsonWriter name(String name) {
+        separator();
+        writeString(name);
+        ensure(1);
+        buffer[size++] = ':';
+        afterName = true;
+        return this;
+    }
+
+    // ---- Valores ----
+
+    @Override
+    JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        writeString(value);
+        return this;
+    }
+
+    @Override
+    JsonWriter value(boolean value) {
+        separator();
+        writeRaw(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    JsonWriter value(long value) {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    /**
+     * Número com duas casas decimais fixas (equivalente a "%.2f", sem depender do Locale).
+     * NaN e infinitos viram null, já que não são JSON válido.
+     */
+    @Override
+    JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        separator();
+        if (Math.abs(value) >= 1e15) {
+            writeAscii(Double.toString(value));
+            return this;
+        }
+        // Arredonda o valor absoluto para ficar simétrico como o "%.2f" (HALF_UP)
+        if (value < 0) {
+            ensure(1);
+            buffer[size++] = '-';
+            value = -value;
+        }
+        long scaled = Math.round(value * 100);
+        writeLong(scaled / 100);
+        int fraction = (int) (scaled % 100);
+        ensure(3);
+        buffer[size++] = '.';
+        buffer[size++] = (byte) ('0' + fraction / 10);
+        buffer[size++] = (byte) ('0' + fraction % 10);
+        return this;
+    }
+
+    @Override
+    JsonWriter nullValue() {
+        separator();
+        writeRaw(NULL);
+        return this;
+    }
+
+    /**
+     * Insere um valor JSON já codificado (por exemplo, um corpo em cache)
+     */
+    @Override
+    JsonWriter rawValue(byte[] json) {
+        separator();
+        writeRaw(json);
+        return this;
+    }
+
+    // ---- Internos ----
+
+    private JsonWriter open(byte token) {
+        separator();
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON aninhado demais");
+        }
+        ensure(1);
+        buffer[size++] = token;
+        depth++;
+        commaMask &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonWriter close(byte token) {
+        if (depth == 0) {
+            throw new IllegalStateException("Nenhum objeto ou array aberto");
+        }
+        ensure(1);
+        buffer[size++] = token;
+        depth--;
+        return this;
+    }
+
+    private void separator() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if ((commaMask & bit) != 0) {
+            ensure(1);
+            buffer[size++] = ',';
+        } else {
+            commaMask |= bit;
+        }
+    }
+
+    private void writeString(String value) {
+        int length = value.length();
+        // Pior caso: 6 bytes por caractere (\\u00XX) mais as aspas
+        ensure(length * 6 + 2);
+        byte[] b = buffer;
+        int pos = size;
+        b[pos++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    b[pos++] = (byte) c;
+                    continue;
+                }
+                b[pos++] = '\\';
+                switch (c) {
+                    case '"': b[pos++] = '"'; break;
+                    case '\\': b[pos++] = '\\'; break;
+                    case '\n': b[pos++] = 'n'; break;
+                    case '\r': b[pos++] = 'r'; break;
+                    case '\t': b[pos++] = 't'; break;
+                    case '\b': b[pos++] = 'b'; break;
+                    case '\f': b[pos++] = 'f'; break;
+                    default:
+                        b[pos++] = 'u';
+                        b[pos++] = '0';
+                        b[pos++] = '0';
+                        b[pos++] = HEX[c >> 4];
+                        b[pos++] = HEX[c & 0xF];
+                }
+            } else if (c < 0x800) {
+                b[pos++] = (byte) (0xC0 | (c >> 6));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                b[pos++] = (byte) (0xF0 | (cp >> 18));
+                b[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate isolado não é UTF-8 válido; substituir por '?'
+                b[pos++] = '?';
+            } else {
+                b[pos++] = (byte) (0xE0 | (c >> 12));
+                b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        b[pos++] = '"';
+        size = pos;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(MIN_LONG);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int pos = size + digits;
+        size = pos;
+        do {
+            buffer[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void writeAscii(String value) {
+        int length = value.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            buffer[size++] = (byte) value.charAt(i);
+        }
+    }
+}
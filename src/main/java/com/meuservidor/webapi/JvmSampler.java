@@ -0,0 +1,750 @@
+package com.meuservidor.webapi;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Telemetria da JVM em segundo plano para /jvm: pausas de GC, memória por pool, taxa de
+ * alocação, CPU por thread, safepoints, carregamento de classes e JIT.
+ *
+ * Cada coletor notifica o fim de cada coleta, e a duração vai para um histograma de buckets
+ * fixos daquele coletor (registro sem locks, na thread de notificações da JVM). O resto é
+ * lido dos MXBeans em intervalo fixo, e cada amostragem publica um Sample imutável: a
+ * requisição só escreve valores já calculados.
+ */
+final class JvmSampler {
+
+    // Limites superiores dos buckets de pausa, em milissegundos
+    static final long[] PAUSE_BOUNDS_MS = {
+        1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000
+    };
+
+    /**
+     * Última coleta de um coletor, como veio na notificação
+     */
+    static final class LastCollection {
+        final String cause;
+        final String action;
+        final long durationMs;
+        final long endedAt;
+
+        LastCollection(String cause, String action, long durationMs, long endedAt) {
+            this.cause = cause;
+            this.action = action;
+            this.durationMs = durationMs;
+            this.endedAt = endedAt;
+        }
+    }
+
+    /**
+     * Histograma de durações de um coletor, alimentado pelas notificações
+     */
+    private static final class PauseHistogram {
+        final String name;
+        // Um slot por bucket, mais o acima do último limite
+        final AtomicLongArray buckets = new AtomicLongArray(PAUSE_BOUNDS_MS.length + 1);
+        final AtomicLong totalMs = new AtomicLong();
+        final AtomicLong maxMs = new AtomicLong();
+        volatile LastCollection last;
+
+        PauseHistogram(String name) {
+            this.name = name;
+        }
+
+        void record(LastCollection collection) {
+            buckets.incrementAndGet(bucketIndex(collection.durationMs));
+            totalMs.addAndGet(collection.durationMs);
+            long max;
+            while ((max = maxMs.get()) < collection.durationMs && !maxMs.compareAndSet(max, collection.durationMs)) {
+                // Outro registro atualizou o máximo; tentar de novo
+            }
+            last = collection;
+        }
+    }
+
+    /**
+     * Estado de um coletor numa amostra
+     */
+    static final class CollectorStats {
+        final String name;
+        final long count;
+        final long timeMs;
+        final long[] buckets;
+        final long pauses;
+        final long pauseTotalMs;
+        final long pauseMaxMs;
+        final long p50Ms;
+        final long p95Ms;
+        final long p99Ms;
+        final LastCollection last;
+
+        CollectorStats(String name, long count, long timeMs, long[] buckets, long pauseTotalMs, long pauseMaxMs,
+                       LastCollection last) {
+            this.name = name;
+            this.count = count;
+            this.timeMs = timeMs;
+            this.buckets = buckets;
+            long pauses = 0;
+            for (long bucket : buckets) {
+                pauses += bucket;
+            }
+            this.pauses = pauses;
+            this.pauseTotalMs = pauseTotalMs;
+            this.pauseMaxMs = pauseMaxMs;
+            this.p50Ms = percentile(buckets, pauses, 0.50, pauseMaxMs);
+            this.p95Ms = percentile(buckets, pauses, 0.95, pauseMaxMs);
+            this.p99Ms = percentile(buckets, pauses, 0.99, pauseMaxMs);
+            this.last = last;
+        }
+    }
+
+    /**
+     * Ocupação de um pool de memória; usedAfterGc é -1 se o pool não é coletado
+     */
+    static final class PoolStats {
+        final String name;
+        final boolean heap;
+        final long used;
+        final long committed;
+        final long max;
+        final long usedAfterGc;
+
+        PoolStats(String name, boolean heap, MemoryUsage usage, MemoryUsage afterGc) {
+            this.name = name;
+            this.heap = heap;
+            this.used = usage.getUsed();
+            this.committed = usage.getCommitted();
+            this.max = usage.getMax();
+            this.usedAfterGc = afterGc != null ? afterGc.getUsed() : -1;
+        }
+    }
+
+    /**
+     * CPU e alocação de uma thread; valores -1 quando a JVM não mede
+     */
+    static final class ThreadStats {
+        final String name;
+        final String group;
+        final long cpuTimeMs;
+        final double cpuPercent;
+        final long allocatedBytes;
+
+        ThreadStats(String name, String group, long cpuTimeMs, double cpuPercent, long allocatedBytes) {
+            this.name = name;
+            this.group = group;
+            this.cpuTimeMs = cpuTimeMs;
+            this.cpuPercent = cpuPercent;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Soma de um grupo de threads (game, http, webapi, other)
+     */
+    static final class GroupStats {
+        final String name;
+        int threads;
+        double cpuPercent;
+
+        GroupStats(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Leitura imutável publicada a cada amostragem
+     */
+    static final class Sample {
+        final long timestamp;
+        final long uptimeMs;
+        final List<CollectorStats> collectors;
+        final double gcOverheadPercent;
+        final MemoryUsage heap;
+        final MemoryUsage nonHeap;
+        final List<PoolStats> pools;
+        final double allocationRate;
+        final long allocatedTotal;
+        final int threadCount;
+        final int daemonThreadCount;
+        final int peakThreadCount;
+        final List<GroupStats> groups;
+        final List<ThreadStats> threads;
+        final long safepointCount;
+        final long safepointTimeMs;
+        final long safepointSyncTimeMs;
+        final int classesLoaded;
+        final long classesTotalLoaded;
+        final long classesUnloaded;
+        final long jitTimeMs;
+
+        Sample(Builder b) {
+            this.timestamp = b.timestamp;
+            this.uptimeMs = b.uptimeMs;
+            this.collectors = Collections.unmodifiableList(b.collectors);
+            this.gcOverheadPercent = b.gcOverheadPercent;
+            this.heap = b.heap;
+            this.nonHeap = b.nonHeap;
+            this.pools = Collections.unmodifiableList(b.pools);
+            this.allocationRate = b.allocationRate;
+            this.allocatedTotal = b.allocatedTotal;
+            this.threadCount = b.threadCount;
+            this.daemonThreadCount = b.daemonThreadCount;
+            this.peakThreadCount = b.peakThreadCount;
+            this.groups = Collections.unmodifiableList(b.groups);
+            this.threads = Collections.unmodifiableList(b.threads);
+            this.safepointCount = b.safepointCount;
+            this.safepointTimeMs = b.safepointTimeMs;
+            this.safepointSyncTimeMs = b.safepointSyncTimeMs;
+            this.classesLoaded = b.classesLoaded;
+            this.classesTotalLoaded = b.classesTotalLoaded;
+            this.classesUnloaded = b.classesUnloaded;
+            this.jitTimeMs = b.jitTimeMs;
+        }
+
+        boolean safepointsAvailable() {
+            return safepointCount >= 0;
+        }
+
+        static final class Builder {
+            long timestamp;
+            long uptimeMs;
+            final List<CollectorStats> collectors = new ArrayList<>();
+            double gcOverheadPercent;
+            MemoryUsage heap;
+            MemoryUsage nonHeap;
+            final List<PoolStats> pools = new ArrayList<>();
+            double allocationRate = -1;
+            long allocatedTotal = -1;
+            int threadCount;
+            int daemonThreadCount;
+            int peakThreadCount;
+            final List<GroupStats> groups = new ArrayList<>();
+            final List<ThreadStats> threads = new ArrayList<>();
+            long safepointCount = -1;
+            long safepointTimeMs = -1;
+            long safepointSyncTimeMs = -1;
+            int classesLoaded;
+            long classesTotalLoaded;
+            long classesUnloaded;
+            long jitTimeMs = -1;
+        }
+    }
+
+    // Informações estáticas, lidas uma vez
+    final String vmName;
+    final String vmVendor;
+    final String vmVersion;
+    final String jitName;
+
+    private final long intervalMillis;
+    private final LongSupplier gameThreadId;
+    private final ScheduledExecutorService executor;
+    private final long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final List<MemoryPoolMXBean> poolBeans = ManagementFactory.getMemoryPoolMXBeans();
+    private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    // Extensões do HotSpot (CPU e alocação em lote); null em JVMs sem elas
+    private final com.sun.management.ThreadMXBean hotspotThreads;
+    private final ClassLoadingMXBean classBean = ManagementFactory.getClassLoadingMXBean();
+    private final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+    // Contadores de safepoint (sun.management); só acessíveis em Java 8
+    private final Object safepointBean;
+    private final Method safepointCount;
+    private final Method safepointTime;
+    private final Method safepointSyncTime;
+
+    private final Map<String, PauseHistogram> histograms = new HashMap<>();
+    private final NotificationListener gcListener = this::onGcNotification;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    // Estado entre amostras, acessado apenas pela thread de amostragem
+    private Map<Long, long[]> previousThreads = new HashMap<>();
+    private long previousNanos;
+    private long previousGcTimeMs;
+    private long allocatedTotal;
+
+    private volatile Sample latest;
+
+    private JvmSampler(long intervalMillis, LongSupplier gameThreadId) {
+        this.intervalMillis = intervalMillis;
+        this.gameThreadId = gameThreadId;
+        java.lang.management.RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        this.vmName = runtime.getVmName();
+        this.vmVendor = runtime.getVmVendor();
+        this.vmVersion = System.getProperty("java.version");
+        this.jitName = compilationBean != null ? compilationBean.getName() : null;
+
+        com.sun.management.ThreadMXBean hotspot = null;
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            hotspot = (com.sun.management.ThreadMXBean) threadBean;
+            if (hotspot.isThreadAllocatedMemorySupported() && !hotspot.isThreadAllocatedMemoryEnabled()) {
+                hotspot.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.hotspotThreads = hotspot;
+        if (threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+
+        Object bean = null;
+        Method count = null;
+        Method time = null;
+        Method sync = null;
+        try {
+            Class<?> helper = Class.forName("sun.management.ManagementFactoryHelper");
+            Class<?> runtimeBean = Class.forName("sun.management.HotspotRuntimeMBean");
+            bean = helper.getMethod("getHotspotRuntimeMBean").invoke(null);
+            count = runtimeBean.getMethod("getSafepointCount");
+            time = runtimeBean.getMethod("getTotalSafepointTime");
+            sync = runtimeBean.getMethod("getSafepointSyncTime");
+            count.invoke(bean);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // Java 9+ não exporta sun.management: safepoints ficam como indisponíveis
+            bean = null;
+        }
+        this.safepointBean = bean;
+        this.safepointCount = count;
+        this.safepointTime = time;
+        this.safepointSyncTime = sync;
+
+        for (GarbageCollectorMXBean gc : gcBeans) {
+            histograms.put(gc.getName(), new PauseHistogram(gc.getName()));
+            if (gc instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) gc;
+                emitter.addNotificationListener(gcListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-JvmSampler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Inicia a amostragem; gameThreadId informa a thread do tick (-1 enquanto desconhecida).
+     * Retorna null se a JVM não tiver as extensões de gerenciamento necessárias.
+     */
+    static JvmSampler start(int intervalMillis, LongSupplier gameThreadId) {
+        try {
+            JvmSampler sampler = new JvmSampler(Math.max(250, intervalMillis), gameThreadId);
+            sampler.sampleSafely();
+            sampler.executor.scheduleAtFixedRate(sampler::sampleSafely,
+                sampler.intervalMillis, sampler.intervalMillis, TimeUnit.MILLISECONDS);
+            return sampler;
+        } catch (LinkageError | RuntimeException e) {
+            System.err.println("WebInfoAPI: Telemetria da JVM indisponível, /jvm desativado: " + e);
+            return null;
+        }
+    }
+
+    void stop() {
+        executor.shutdownNow();
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException e) {
+                // Já removido
+            }
+        }
+        emitters.clear();
+    }
+
+    /**
+     * Última amostra, ou null se a primeira ainda não foi coletada
+     */
+    Sample latest() {
+        return latest;
+    }
+
+    private void onGcNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        PauseHistogram histogram = histograms.get(info.getGcName());
+        if (histogram != null) {
+            histogram.record(new LastCollection(info.getGcCause(), info.getGcAction(),
+                info.getGcInfo().getDuration(), jvmStartTime + info.getGcInfo().getEndTime()));
+        }
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Throwable t) {
+            // Uma falha isolada não deve cancelar o agendamento
+            System.err.println("WebInfoAPI: Falha na amostragem da JVM: " + t);
+        }
+    }
+
+    private void sample() {
+        long nanos = System.nanoTime();
+        long elapsedNanos = previousNanos != 0 ? nanos - previousNanos : 0;
+        previousNanos = nanos;
+
+        Sample.Builder b = new Sample.Builder();
+        b.timestamp = System.currentTimeMillis();
+        b.uptimeMs = b.timestamp - jvmStartTime;
+
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : gcBeans) {
+            PauseHistogram histogram = histograms.get(gc.getName());
+            long[] buckets = new long[PAUSE_BOUNDS_MS.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = histogram.buckets.get(i);
+            }
+            long time = Math.max(0, gc.getCollectionTime());
+            gcTimeMs += time;
+            b.collectors.add(new CollectorStats(gc.getName(), Math.max(0, gc.getCollectionCount()), time,
+                buckets, histogram.totalMs.get(), histogram.maxMs.get(), histogram.last));
+        }
+        if (elapsedNanos > 0) {
+            b.gcOverheadPercent = (gcTimeMs - previousGcTimeMs) * 1e8 / elapsedNanos;
+        }
+        previousGcTimeMs = gcTimeMs;
+
+        b.heap = memoryBean.getHeapMemoryUsage();
+        b.nonHeap = memoryBean.getNonHeapMemoryUsage();
+        for (MemoryPoolMXBean pool : poolBeans) {
+            if (pool.isValid()) {
+                b.pools.add(new PoolStats(pool.getName(), pool.getType() == MemoryType.HEAP,
+                    pool.getUsage(), pool.getCollectionUsage()));
+            }
+        }
+
+        b.threadCount = threadBean.getThreadCount();
+        b.daemonThreadCount = threadBean.getDaemonThreadCount();
+        b.peakThreadCount = threadBean.getPeakThreadCount();
+        sampleThreads(b, elapsedNanos);
+
+        if (safepointBean != null) {
+            try {
+                b.safepointCount = (Long) safepointCount.invoke(safepointBean);
+                b.safepointTimeMs = (Long) safepointTime.invoke(safepointBean);
+                b.safepointSyncTimeMs = (Long) safepointSyncTime.invoke(safepointBean);
+            } catch (ReflectiveOperationException e) {
+                b.safepointCount = -1;
+            }
+        }
+
+        b.classesLoaded = classBean.getLoadedClassCount();
+        b.classesTotalLoaded = classBean.getTotalLoadedClassCount();
+        b.classesUnloaded = classBean.getUnloadedClassCount();
+        if (compilationBean != null && compilationBean.isCompilationTimeMonitoringSupported()) {
+            b.jitTimeMs = compilationBean.getTotalCompilationTime();
+        }
+
+        latest = new Sample(b);
+    }
+
+    /**
+     * CPU e alocação por thread desde a amostra anterior. Threads que morreram entre duas
+     * amostras levam junto o que alocaram nesse meio-tempo, então a taxa é um piso.
+     */
+    private void sampleThreads(Sample.Builder b, long elapsedNanos) {
+        long[] ids = threadBean.getAllThreadIds();
+        ThreadInfo[] infos = threadBean.getThreadInfo(ids);
+        long[] cpu;
+        long[] allocated;
+        if (hotspotThreads != null) {
+            cpu = hotspotThreads.isThreadCpuTimeEnabled() ? hotspotThreads.getThreadCpuTime(ids) : null;
+            allocated = hotspotThreads.isThreadAllocatedMemoryEnabled() ? hotspotThreads.getThreadAllocatedBytes(ids) : null;
+        } else {
+            cpu = null;
+            allocated = null;
+            if (threadBean.isThreadCpuTimeEnabled()) {
+                cpu = new long[ids.length];
+                for (int i = 0; i < ids.length; i++) {
+                    cpu[i] = threadBean.getThreadCpuTime(ids[i]);
+                }
+            }
+        }
+
+        long gameId = gameThreadId.getAsLong();
+        GroupStats[] groups = {
+            new GroupStats("game"), new GroupStats("http"), new GroupStats("webapi"), new GroupStats("other")
+        };
+        long allocatedDelta = 0;
+        Map<Long, long[]> current = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                continue;
+            }
+            long cpuNanos = cpu != null ? cpu[i] : -1;
+            long allocatedBytes = allocated != null ? allocated[i] : -1;
+            long[] previous = previousThreads.get(ids[i]);
+            current.put(ids[i], new long[]{cpuNanos, allocatedBytes});
+
+            double cpuPercent = 0;
+            if (cpuNanos >= 0 && elapsedNanos > 0) {
+                long before = previous != null && previous[0] >= 0 ? previous[0] : 0;
+                cpuPercent = Math.max(0, cpuNanos - before) * 100.0 / elapsedNanos;
+            }
+            if (allocatedBytes >= 0 && elapsedNanos > 0) {
+                long before = previous != null && previous[1] >= 0 ? previous[1] : 0;
+                allocatedDelta += Math.max(0, allocatedBytes - before);
+            }
+
+            int group = groupOf(ids[i], info.getThreadName(), gameId);
+            groups[group].threads++;
+            groups[group].cpuPercent += cpuPercent;
+            if (group != 3) {
+                b.threads.add(new ThreadStats(info.getThreadName(), groups[group].name,
+                    cpuNanos >= 0 ? cpuNanos / 1_000_000 : -1, cpuPercent, allocatedBytes));
+            }
+        }
+        previousThreads = current;
+        Collections.addAll(b.groups, groups);
+
+        if (allocated != null) {
+            allocatedTotal += allocatedDelta;
+            b.allocatedTotal = allocatedTotal;
+            b.allocationRate = elapsedNanos > 0 ? allocatedDelta * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    /**
+     * 0 = thread do tick, 1 = pool HTTP e event loops, 2 = demais threads da API, 3 = resto
+     */
+    private static int groupOf(long id, String name, long gameId) {
+        if (id == gameId) {
+            return 0;
+        }
+        if (name.startsWith("WebInfoAPI-HTTP") || name.startsWith("WebInfoAPI-NIO")) {
+            return 1;
+        }
+        return name.startsWith("WebInfoAPI") ? 2 : 3;
+    }
+
+    static int bucketIndex(long millis) {
+        int low = 0;
+        int high = PAUSE_BOUNDS_MS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (PAUSE_BOUNDS_MS[mid] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Limite superior do bucket que contém o percentil, sem passar do máximo observado
+     */
+    private static long percentile(long[] buckets, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long cumulative = 0;
+        for (int i = 0; i < PAUSE_BOUNDS_MS.length; i++) {
+            cumulative += buckets[i];
+            if (cumulative >= rank) {
+                return Math.min(PAUSE_BOUNDS_MS[i], max);
+            }
+        }
+        return max;
+    }
+
+    // ---- Exportação ----
+
+    /**
+     * Documento de /jvm a partir da última amostra
+     */
+    void write(DocumentWriter json, Sample sample) {
+        json.beginObject().name("jvm").beginObject()
+            .field("name", vmName)
+            .field("vendor", vmVendor)
+            .field("version", vmVersion)
+            .field("uptime_ms", sample.uptimeMs)
+            .field("sampled_at", sample.timestamp);
+
+        json.name("gc").beginObject()
+            .field("overhead_percent", sample.gcOverheadPercent);
+        json.name("collectors").beginArray();
+        for (CollectorStats c : sample.collectors) {
+            json.beginObject()
+                .field("name", c.name)
+                .field("count", c.count)
+                .field("time_ms", c.timeMs);
+            json.name("pauses").beginObject()
+                .field("count", c.pauses)
+                .field("total_ms", c.pauseTotalMs)
+                .field("max_ms", c.pauseMaxMs)
+                .field("p50_ms", c.p50Ms)
+                .field("p95_ms", c.p95Ms)
+                .field("p99_ms", c.p99Ms);
+            json.name("histogram").beginArray();
+            for (int i = 0; i < c.buckets.length; i++) {
+                json.beginObject();
+                if (i < PAUSE_BOUNDS_MS.length) {
+                    json.field("le_ms", PAUSE_BOUNDS_MS[i]);
+                } else {
+                    json.name("le_ms").nullValue();
+                }
+                json.field("count", c.buckets[i]).endObject();
+            }
+            json.endArray().endObject();
+            if (c.last != null) {
+                json.name("last").beginObject()
+                    .field("cause", c.last.cause)
+                    .field("action", c.last.action)
+                    .field("duration_ms", c.last.durationMs)
+                    .field("ended_at", c.last.endedAt)
+                    .endObject();
+            }
+            json.endObject();
+        }
+        json.endArray().endObject();
+
+        json.name("memory").beginObject();
+        writeUsage(json, "heap", sample.heap);
+        writeUsage(json, "non_heap", sample.nonHeap);
+        json.name("pools").beginArray();
+        for (PoolStats pool : sample.pools) {
+            json.beginObject()
+                .field("name", pool.name)
+                .field("type", pool.heap ? "heap" : "non_heap")
+                .field("used", pool.used)
+                .field("committed", pool.committed)
+                .field("max", pool.max);
+            if (pool.usedAfterGc >= 0) {
+                json.field("used_after_gc", pool.usedAfterGc);
+            }
+            json.endObject();
+        }
+        json.endArray().endObject();
+
+        json.name("allocation").beginObject();
+        if (sample.allocationRate >= 0) {
+            json.field("bytes_per_second", sample.allocationRate)
+                .field("total_bytes", sample.allocatedTotal);
+        }
+        json.field("available", sample.allocationRate >= 0).endObject();
+
+        json.name("threads").beginObject()
+            .field("count", sample.threadCount)
+            .field("daemon", sample.daemonThreadCount)
+            .field("peak", sample.peakThreadCount);
+        json.name("groups").beginObject();
+        for (GroupStats group : sample.groups) {
+            json.name(group.name).beginObject()
+                .field("threads", group.threads)
+                .field("cpu_percent", group.cpuPercent)
+                .endObject();
+        }
+        json.endObject();
+        json.name("list").beginArray();
+        for (ThreadStats thread : sample.threads) {
+            json.beginObject()
+                .field("name", thread.name)
+                .field("group", thread.group)
+                .field("cpu_time_ms", thread.cpuTimeMs)
+                .field("cpu_percent", thread.cpuPercent)
+                .field("allocated_bytes", thread.allocatedBytes)
+                .endObject();
+        }
+        json.endArray().endObject();
+
+        json.name("safepoints").beginObject()
+            .field("available", sample.safepointsAvailable());
+        if (sample.safepointsAvailable()) {
+            json.field("count", sample.safepointCount)
+                .field("total_time_ms", sample.safepointTimeMs)
+                .field("sync_time_ms", sample.safepointSyncTimeMs);
+        }
+        json.endObject();
+
+        json.name("class_loading").beginObject()
+            .field("loaded", sample.classesLoaded)
+            .field("total_loaded", sample.classesTotalLoaded)
+            .field("unloaded", sample.classesUnloaded)
+            .endObject();
+
+        json.name("jit").beginObject();
+        if (jitName != null) {
+            json.field("name", jitName);
+        }
+        if (sample.jitTimeMs >= 0) {
+            json.field("total_compilation_time_ms", sample.jitTimeMs);
+        }
+        json.endObject();
+
+        json.endObject();
+    }
+
+    private static void writeUsage(DocumentWriter json, String name, MemoryUsage usage) {
+        json.name(name).beginObject()
+            .field("used", usage.getUsed())
+            .field("committed", usage.getCommitted())
+            .field("max", usage.getMax())
+            .endObject();
+    }
+
+    /**
+     * Séries de GC, alocação e safepoints para /metrics
+     */
+    void writeMetrics(ApiMetrics.PrometheusText out, Sample sample) {
+        out.help("jvm_gc_pause_seconds", "Duração das coletas por coletor (notificações de GC)", "histogram");
+        for (CollectorStats c : sample.collectors) {
+            long cumulative = 0;
+            for (int i = 0; i < PAUSE_BOUNDS_MS.length; i++) {
+                cumulative += c.buckets[i];
+                out.sample("jvm_gc_pause_seconds_bucket", "gc", c.name,
+                    "le", BigDecimal.valueOf(PAUSE_BOUNDS_MS[i], 3).stripTrailingZeros().toPlainString(), cumulative);
+            }
+            cumulative += c.buckets[PAUSE_BOUNDS_MS.length];
+            out.sample("jvm_gc_pause_seconds_bucket", "gc", c.name, "le", "+Inf", cumulative);
+            out.sample("jvm_gc_pause_seconds_sum", "gc", c.name, c.pauseTotalMs / 1000.0);
+            out.sample("jvm_gc_pause_seconds_count", "gc", c.name, cumulative);
+        }
+        out.gauge("jvm_gc_overhead_percent", "Tempo em GC no último intervalo de amostragem", sample.gcOverheadPercent);
+        if (sample.allocationRate >= 0) {
+            out.gauge("jvm_allocation_rate_bytes", "Bytes alocados por segundo no último intervalo", sample.allocationRate);
+        }
+        out.help("jvm_thread_cpu_percent", "CPU por grupo de threads no último intervalo (100 = um núcleo)", "gauge");
+        for (GroupStats group : sample.groups) {
+            out.sample("jvm_thread_cpu_percent", "group", group.name, group.cpuPercent);
+        }
+        if (sample.safepointsAvailable()) {
+            out.counter("jvm_safepoints_total", "Safepoints desde o início da JVM", sample.safepointCount);
+        }
+    }
+}
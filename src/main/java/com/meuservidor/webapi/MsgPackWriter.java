@@ -0,0 +1,270 @@
+package com.meuservidor.webapi;
+
+/**
+ * Codificador MessagePack em streaming para o mesmo modelo de documento do JSON.
+ *
+ * MessagePack exige o número de elementos no cabeçalho de mapas e arrays. Cada contêiner
+ * abre com um cabeçalho map32/array32 reservado e conta os elementos enquanto é escrito;
+ * ao fechar, o cabeçalho é preenchido na menor forma (fixmap/fixarray, 16 ou 32 bits) e o
+ * conteúdo é deslocado sobre os bytes que sobraram. O deslocamento é um arraycopy por
+ * contêiner, bem mais barato que formatar números como texto.
+ */
+final class MsgPackWriter extends DocumentWriter {
+
+    private static final int RESERVED_HEADER = 5;
+
+    private static final byte NIL = (byte) 0xC0;
+    private static final byte FALSE = (byte) 0xC2;
+    private static final byte TRUE = (byte) 0xC3;
+    private static final byte FLOAT32 = (byte) 0xCA;
+    private static final byte FLOAT64 = (byte) 0xCB;
+    private static final byte UINT8 = (byte) 0xCC;
+    private static final byte UINT16 = (byte) 0xCD;
+    private static final byte UINT32 = (byte) 0xCE;
+    private static final byte UINT64 = (byte) 0xCF;
+    private static final byte INT8 = (byte) 0xD0;
+    private static final byte INT16 = (byte) 0xD1;
+    private static final byte INT32 = (byte) 0xD2;
+    private static final byte INT64 = (byte) 0xD3;
+    private static final byte STR8 = (byte) 0xD9;
+    private static final byte STR16 = (byte) 0xDA;
+    private static final byte STR32 = (byte) 0xDB;
+
+    // Por nível: posição do cabeçalho reservado e número de elementos (pares, em mapas)
+    private final int[] headerAt = new int[MAX_DEPTH + 1];
+    private final int[] counts = new int[MAX_DEPTH + 1];
+    // Um bit por nível: 1 quando o contêiner é um mapa
+    private long mapMask;
+    private int depth;
+
+    MsgPackWriter(int initialCapacity) {
+        super(Format.MSGPACK, initialCapacity);
+    }
+
+    @Override
+    void reset() {
+        super.reset();
+        mapMask = 0;
+        depth = 0;
+    }
+
+    // ---- Estrutura ----
+
+    @Override
+    MsgPackWriter beginObject() {
+        return open(true);
+    }
+
+    @Override
+    MsgPackWriter endObject() {
+        return close(0x80, (byte) 0xDE, (byte) 0xDF);
+    }
+
+    @Override
+    MsgPackWriter beginArray() {
+        return open(false);
+    }
+
+    @Override
+    MsgPackWriter endArray() {
+        return close(0x90, (byte) 0xDC, (byte) 0xDD);
+    }
+
+    @Override
+    MsgPackWriter name(String name) {
+        // Em mapas, cada nome conta um par; o valor seguinte não conta de novo
+        counts[depth]++;
+        writeString(name);
+        return this;
+    }
+
+    // ---- Valores ----
+
+    @Override
+    MsgPackWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    @Override
+    MsgPackWriter value(boolean value) {
+        beforeValue();
+        ensure(1);
+        buffer[size++] = value ? TRUE : FALSE;
+        return this;
+    }
+
+    @Override
+    MsgPackWriter value(long value) {
+        beforeValue();
+        ensure(9);
+        if (value >= 0) {
+            if (value < 0x80) {
+                buffer[size++] = (byte) value;
+            } else if (value < 0x100) {
+                buffer[size++] = UINT8;
+                buffer[size++] = (byte) value;
+            } else if (value < 0x10000) {
+                buffer[size++] = UINT16;
+                writeShort((int) value);
+            } else if (value < 0x100000000L) {
+                buffer[size++] = UINT32;
+                writeInt((int) value);
+            } else {
+                buffer[size++] = UINT64;
+                writeLong(value);
+            }
+        } else if (value >= -32) {
+            buffer[size++] = (byte) value; // negative fixint (0xE0..0xFF)
+        } else if (value >= Byte.MIN_VALUE) {
+            buffer[size++] = INT8;
+            buffer[size++] = (byte) value;
+        } else if (value >= Short.MIN_VALUE) {
+            buffer[size++] = INT16;
+            writeShort((int) value);
+        } else if (value >= Integer.MIN_VALUE) {
+            buffer[size++] = INT32;
+            writeInt((int) value);
+        } else {
+            buffer[size++] = INT64;
+            writeLong(value);
+        }
+        return this;
+    }
+
+    /**
+     * float32 quando a conversão é exata, senão float64 (precisão total, não duas casas)
+     */
+    @Override
+    MsgPackWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return nullValue();
+        }
+        beforeValue();
+        float narrow = (float) value;
+        if (narrow == value) {
+            ensure(5);
+            buffer[size++] = FLOAT32;
+            writeInt(Float.floatToRawIntBits(narrow));
+        } else {
+            ensure(9);
+            buffer[size++] = FLOAT64;
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+        return this;
+    }
+
+    @Override
+    MsgPackWriter nullValue() {
+        beforeValue();
+        ensure(1);
+        buffer[size++] = NIL;
+        return this;
+    }
+
+    @Override
+    MsgPackWriter rawValue(byte[] encoded) {
+        beforeValue();
+        writeRaw(encoded);
+        return this;
+    }
+
+    // ---- Internos ----
+
+    /**
+     * Valores dentro de arrays contam um elemento; dentro de mapas já foram contados pelo nome
+     */
+    private void beforeValue() {
+        if (depth > 0 && (mapMask & (1L << depth)) == 0) {
+            counts[depth]++;
+        }
+    }
+
+    private MsgPackWriter open(boolean map) {
+        beforeValue();
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException("Documento aninhado demais");
+        }
+        ensure(RESERVED_HEADER);
+        depth++;
+        headerAt[depth] = size;
+        counts[depth] = 0;
+        if (map) {
+            mapMask |= 1L << depth;
+        } else {
+            mapMask &= ~(1L << depth);
+        }
+        size += RESERVED_HEADER;
+        return this;
+    }
+
+    private MsgPackWriter close(int fixBase, byte marker16, byte marker32) {
+        if (depth == 0) {
+            throw new IllegalStateException("Nenhum objeto ou array aberto");
+        }
+        int header = headerAt[depth];
+        int count = counts[depth];
+        depth--;
+
+        int headerLength = count <= 15 ? 1 : count <= 0xFFFF ? 3 : 5;
+        int unused = RESERVED_HEADER - headerLength;
+        if (unused > 0) {
+            int contentStart = header + RESERVED_HEADER;
+            System.arraycopy(buffer, contentStart, buffer, contentStart - unused, size - contentStart);
+            size -= unused;
+        }
+        if (headerLength == 1) {
+            buffer[header] = (byte) (fixBase | count);
+        } else if (headerLength == 3) {
+            buffer[header] = marker16;
+            buffer[header + 1] = (byte) (count >>> 8);
+            buffer[header + 2] = (byte) count;
+        } else {
+            buffer[header] = marker32;
+            buffer[header + 1] = (byte) (count >>> 24);
+            buffer[header + 2] = (byte) (count >>> 16);
+            buffer[header + 3] = (byte) (count >>> 8);
+            buffer[header + 4] = (byte) count;
+        }
+        return this;
+    }
+
+    private void writeString(String value) {
+        int length = utf8Length(value);
+        ensure(length + 5);
+        if (length <= 31) {
+            buffer[size++] = (byte) (0xA0 | length);
+        } else if (length <= 0xFF) {
+            buffer[size++] = STR8;
+            buffer[size++] = (byte) length;
+        } else if (length <= 0xFFFF) {
+            buffer[size++] = STR16;
+            writeShort(length);
+        } else {
+            buffer[size++] = STR32;
+            writeInt(length);
+        }
+        writeUtf8(value);
+    }
+
+    private void writeShort(int value) {
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+}
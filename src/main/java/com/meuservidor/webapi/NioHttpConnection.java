@@ -0,0 +1,492 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.Headers;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uma conexão do {@link NioHttpEngine}. Quase todo o estado pertence à thread do event loop:
+ * buffer de entrada, fila de requisições em pipeline e fila de saída. Os handlers rodam em
+ * outra thread e entregam os bytes da resposta por {@link #submit}, que repassa ao loop.
+ *
+ * As requisições são atendidas uma de cada vez, na ordem em que chegaram, então as respostas
+ * saem na ordem exigida pelo pipelining do HTTP/1.1. Enquanto a fila de pipeline está cheia,
+ * a leitura do socket fica suspensa.
+ */
+final class NioHttpConnection {
+
+    // Linha de requisição + cabeçalhos
+    private static final int MAX_HEAD_BYTES = 16 * 1024;
+    // Os endpoints são GET; corpos maiores que isso não fazem sentido aqui
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    // Saída enfileirada acima disso bloqueia o produtor (streams SSE para clientes lentos)
+    private static final long MAX_PENDING_OUTPUT = 1024 * 1024;
+    private static final int MAX_GATHER = 16;
+    private static final int INITIAL_INPUT = 4096;
+
+    final NioHttpEngine engine;
+    final NioHttpEngine.EventLoop loop;
+    final SocketChannel channel;
+    final InetSocketAddress remoteAddress;
+    final InetSocketAddress localAddress;
+    SelectionKey key;
+
+    // ---- Estado da thread do loop ----
+    private ByteBuffer input = ByteBuffer.allocate(INITIAL_INPUT);
+    private int scannedTo;
+    private final ArrayDeque<NioHttpExchange> pipeline = new ArrayDeque<>();
+    private NioHttpExchange active;
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private int requests;
+    private boolean stopReading;
+    private boolean closeAfterWrite;
+    private long lastActivity = System.currentTimeMillis();
+    private long requestStartedAt;
+    private long writeBlockedSince;
+
+    // ---- Compartilhado com as threads dos handlers ----
+    private volatile boolean closed;
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final Object drainLock = new Object();
+    private volatile int drainWaiters;
+
+    NioHttpConnection(NioHttpEngine engine, NioHttpEngine.EventLoop loop, SocketChannel channel) throws IOException {
+        this.engine = engine;
+        this.loop = loop;
+        this.channel = channel;
+        this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    // ---- Eventos do selector ----
+
+    void onReady(int readyOps) {
+        if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+            flushOutput();
+        }
+        if (!closed && (readyOps & SelectionKey.OP_READ) != 0) {
+            read();
+        }
+    }
+
+    private void read() {
+        int n;
+        try {
+            n = channel.read(input);
+        } catch (IOException e) {
+            close();
+            return;
+        }
+        if (n < 0) {
+            // Cliente encerrou o envio: responder o que já chegou e fechar
+            stopReading = true;
+            closeAfterWrite = true;
+            if (active == null && pipeline.isEmpty() && output.isEmpty()) {
+                close();
+            } else {
+                updateInterest();
+            }
+            return;
+        }
+        if (n > 0) {
+            lastActivity = System.currentTimeMillis();
+            if (requestStartedAt == 0) {
+                requestStartedAt = lastActivity;
+            }
+        }
+        parseRequests();
+        dispatchNext();
+        updateInterest();
+    }
+
+    // ---- Parsing ----
+
+    private void parseRequests() {
+        while (!stopReading && pipeline.size() + (active != null ? 1 : 0) < engine.maxPipelinedRequests) {
+            NioHttpExchange exchange = parseRequest();
+            if (exchange == null) {
+                break;
+            }
+            pipeline.add(exchange);
+        }
+        if (input.position() == 0) {
+            requestStartedAt = 0;
+        } else if (requestStartedAt == 0) {
+            requestStartedAt = lastActivity;
+        }
+    }
+
+    /**
+     * Extrai uma requisição completa do buffer de entrada, ou null se faltam bytes. Erros de
+     * protocolo viram uma troca de erro na fila e encerram a leitura da conexão.
+     */
+    private NioHttpExchange parseRequest() {
+        int limit = input.position();
+        byte[] data = input.array();
+        int headEnd = -1;
+        for (int i = Math.max(0, scannedTo - 3); i + 3 < limit; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                headEnd = i;
+                break;
+            }
+        }
+        if (headEnd < 0) {
+            scannedTo = limit;
+            if (limit >= MAX_HEAD_BYTES) {
+                return failed(431, "Cabeçalhos grandes demais");
+            }
+            growInput(MAX_HEAD_BYTES);
+            return null;
+        }
+        // Linhas em branco antes da requisição são toleradas (RFC 9112, 2.2)
+        int start = 0;
+        while (start + 1 < headEnd && data[start] == '\r' && data[start + 1] == '\n') {
+            start += 2;
+        }
+        String[] lines = new String(data, start, headEnd - start, StandardCharsets.ISO_8859_1).split("\r\n");
+
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || requestLine[0].isEmpty()) {
+            return failed(400, "Linha de requisição inválida");
+        }
+        String method = requestLine[0];
+        String version = requestLine[2];
+        if (!version.equals("HTTP/1.1") && !version.equals("HTTP/1.0")) {
+            return failed(505, "Versão HTTP não suportada");
+        }
+        URI uri;
+        try {
+            uri = new URI(requestLine[1]);
+        } catch (URISyntaxException e) {
+            return failed(400, "URI inválida");
+        }
+        if (uri.getRawPath() == null || !uri.getRawPath().startsWith("/")) {
+            return failed(400, "URI inválida");
+        }
+
+        Headers headers = new Headers();
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i];
+            int colon = line.indexOf(':');
+            if (colon <= 0 || line.charAt(0) == ' ' || line.charAt(0) == '\t') {
+                return failed(400, "Cabeçalho inválido");
+            }
+            headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+
+        if (headers.containsKey("Transfer-Encoding")) {
+            return failed(501, "Transfer-Encoding na requisição não suportado");
+        }
+        int contentLength = 0;
+        String declared = headers.getFirst("Content-Length");
+        if (declared != null) {
+            try {
+                contentLength = Integer.parseInt(declared);
+            } catch (NumberFormatException e) {
+                return failed(400, "Content-Length inválido");
+            }
+            if (contentLength < 0) {
+                return failed(400, "Content-Length inválido");
+            }
+            if (contentLength > MAX_BODY_BYTES) {
+                return failed(413, "Corpo da requisição grande demais");
+            }
+        }
+        int bodyStart = headEnd + 4;
+        int consumed = bodyStart + contentLength;
+        if (consumed > limit) {
+            growInput(consumed);
+            return null;
+        }
+        byte[] body = contentLength == 0 ? NioHttpExchange.NO_BODY : Arrays.copyOfRange(data, bodyStart, consumed);
+
+        requests++;
+        boolean keepAlive = keepAlive(version, headers.getFirst("Connection"))
+            && requests < engine.maxRequestsPerConnection;
+        if (!keepAlive) {
+            // Nada depois desta requisição é lido
+            stopReading = true;
+        }
+
+        // Descarta os bytes consumidos, mantendo o que já chegou da próxima requisição
+        input.flip();
+        input.position(consumed);
+        input.compact();
+        scannedTo = 0;
+        if (input.position() == 0 && input.capacity() > INITIAL_INPUT) {
+            input = ByteBuffer.allocate(INITIAL_INPUT);
+        }
+
+        String path = uri.getPath();
+        NioHttpExchange.Context match = engine.findContext(path != null ? path : "/");
+        NioHttpExchange exchange = new NioHttpExchange(this, match, method, uri, version, headers, body, keepAlive);
+        if (match == null) {
+            exchange.failWith(404, "Não encontrado");
+        }
+        return exchange;
+    }
+
+    private static boolean keepAlive(String version, String connection) {
+        if (connection != null) {
+            for (String token : connection.split(",")) {
+                String t = token.trim().toLowerCase(Locale.ROOT);
+                if (t.equals("close")) {
+                    return false;
+                }
+                if (t.equals("keep-alive")) {
+                    return true;
+                }
+            }
+        }
+        return version.equals("HTTP/1.1");
+    }
+
+    private NioHttpExchange failed(int code, String message) {
+        stopReading = true;
+        input.clear();
+        scannedTo = 0;
+        NioHttpExchange exchange = new NioHttpExchange(this, null, "GET", URI.create("/"), "HTTP/1.1",
+            new Headers(), NioHttpExchange.NO_BODY, false);
+        exchange.failWith(code, message);
+        return exchange;
+    }
+
+    private void growInput(int needed) {
+        if (input.position() < input.capacity()) {
+            return;
+        }
+        int capacity = Math.max(needed, Math.min(input.capacity() * 2, MAX_HEAD_BYTES + MAX_BODY_BYTES));
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(capacity, input.capacity() + 1));
+        input.flip();
+        grown.put(input);
+        input = grown;
+    }
+
+    // ---- Despacho ----
+
+    private void dispatchNext() {
+        while (active == null && !closed && !pipeline.isEmpty()) {
+            NioHttpExchange exchange = pipeline.poll();
+            active = exchange;
+            if (exchange.failureCode() != 0) {
+                // Resposta gerada aqui mesmo; completa na hora e pode liberar a próxima
+                exchange.sendFailure();
+                continue;
+            }
+            try {
+                engine.executor().execute(exchange);
+            } catch (RejectedExecutionException e) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.failWith(503, "Servidor sobrecarregado");
+                exchange.sendFailure();
+            }
+        }
+    }
+
+    // ---- Saída ----
+
+    /**
+     * Enfileira bytes de resposta (chamado pela thread do handler). Bloqueia enquanto a saída
+     * pendente da conexão passa de {@link #MAX_PENDING_OUTPUT}, até o timeout de ociosidade.
+     *
+     * @param last   a resposta termina com estes bytes
+     * @param close  fechar a conexão depois de enviá-los
+     */
+    void submit(ByteBuffer[] buffers, int count, boolean last, boolean close) throws IOException {
+        if (closed) {
+            throw new IOException("Conexão encerrada pelo cliente");
+        }
+        long bytes = 0;
+        for (int i = 0; i < count; i++) {
+            bytes += buffers[i].remaining();
+        }
+        if (!loop.inLoop()) {
+            awaitDrain();
+        }
+        queuedBytes.addAndGet(bytes);
+        ByteBuffer[] copy = count == buffers.length ? buffers : Arrays.copyOf(buffers, count);
+        if (loop.inLoop()) {
+            onResponseData(copy, last, close);
+        } else {
+            loop.execute(() -> onResponseData(copy, last, close));
+        }
+    }
+
+    /**
+     * Encerra a conexão a partir de qualquer thread (handler abortado, resposta incompleta)
+     */
+    void abort() {
+        if (loop.inLoop()) {
+            close();
+        } else {
+            loop.execute(this::close);
+        }
+    }
+
+    private void awaitDrain() throws IOException {
+        if (queuedBytes.get() <= MAX_PENDING_OUTPUT) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + engine.idleTimeoutMillis;
+        synchronized (drainLock) {
+            drainWaiters++;
+            try {
+                while (queuedBytes.get() > MAX_PENDING_OUTPUT && !closed) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        abort();
+                        throw new IOException("Cliente não está lendo a resposta");
+                    }
+                    drainLock.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido aguardando o envio");
+            } finally {
+                drainWaiters--;
+            }
+        }
+        if (closed) {
+            throw new IOException("Conexão encerrada pelo cliente");
+        }
+    }
+
+    private void onResponseData(ByteBuffer[] buffers, boolean last, boolean close) {
+        if (closed) {
+            return;
+        }
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                output.add(buffer);
+            }
+        }
+        if (last) {
+            active = null;
+            requestStartedAt = input.position() > 0 ? System.currentTimeMillis() : 0;
+            if (close) {
+                closeAfterWrite = true;
+                stopReading = true;
+                pipeline.clear();
+            }
+        }
+        flushOutput();
+        if (last && !closed) {
+            // Requisições que já estavam no buffer enquanto o pipeline estava cheio
+            parseRequests();
+            dispatchNext();
+            updateInterest();
+        }
+    }
+
+    private void flushOutput() {
+        while (!output.isEmpty()) {
+            int n = 0;
+            for (ByteBuffer buffer : output) {
+                gather[n++] = buffer;
+                if (n == MAX_GATHER) {
+                    break;
+                }
+            }
+            long written;
+            try {
+                written = channel.write(gather, 0, n);
+            } catch (IOException e) {
+                Arrays.fill(gather, 0, n, null);
+                close();
+                return;
+            }
+            Arrays.fill(gather, 0, n, null);
+            if (written > 0) {
+                queuedBytes.addAndGet(-written);
+                lastActivity = System.currentTimeMillis();
+                writeBlockedSince = 0;
+            }
+            while (!output.isEmpty() && !output.peek().hasRemaining()) {
+                output.poll();
+            }
+            if (written == 0) {
+                break;
+            }
+        }
+        if (output.isEmpty()) {
+            writeBlockedSince = 0;
+            if (closeAfterWrite && active == null && pipeline.isEmpty()) {
+                close();
+                return;
+            }
+        } else if (writeBlockedSince == 0) {
+            writeBlockedSince = System.currentTimeMillis();
+        }
+        if (drainWaiters > 0 && queuedBytes.get() <= MAX_PENDING_OUTPUT) {
+            synchronized (drainLock) {
+                drainLock.notifyAll();
+            }
+        }
+        updateInterest();
+    }
+
+    private void updateInterest() {
+        if (closed || !key.isValid()) {
+            return;
+        }
+        boolean reading = !stopReading
+            && pipeline.size() + (active != null ? 1 : 0) < engine.maxPipelinedRequests;
+        int ops = (reading ? SelectionKey.OP_READ : 0) | (output.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    // ---- Timeouts e encerramento ----
+
+    /**
+     * Varredura periódica do loop: conexão ociosa, requisição que não termina de chegar
+     * (slowloris) ou cliente que parou de ler a resposta
+     */
+    void checkTimeouts(long now) {
+        long timeout = engine.idleTimeoutMillis;
+        boolean idle = active == null && pipeline.isEmpty() && output.isEmpty();
+        if (idle && now - lastActivity > timeout) {
+            close();
+        } else if (requestStartedAt != 0 && active == null && pipeline.isEmpty() && now - requestStartedAt > timeout) {
+            close();
+        } else if (writeBlockedSince != 0 && now - writeBlockedSince > timeout) {
+            close();
+        }
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        NioHttpEngine.closeQuietly(channel);
+        output.clear();
+        pipeline.clear();
+        loop.unregister(this);
+        engine.connectionClosed();
+        synchronized (drainLock) {
+            drainLock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Engine HTTP/1.1 não bloqueante: poucos event loops (api.server.io_threads), cada um com
+ * seu Selector, fazem aceitação, leitura, parsing e escrita de todas as conexões.
+ *
+ * Só a execução do handler vai para o executor (o RequestScheduler), então uma thread fica
+ * ocupada apenas enquanto o handler calcula a resposta. Conexões ociosas em keep-alive,
+ * clientes lentos e escritas pendentes não prendem threads. As respostas saem de
+ * ByteBuffers já codificados, por escrita agrupada (gathering write). Os limites são de
+ * conexões, requisições em pipeline e requisições por conexão, mais um timeout de ociosidade.
+ */
+final class NioHttpEngine implements HttpEngine {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final ServerSocketChannel serverChannel;
+    private final EventLoop[] loops;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private volatile boolean running;
+    private volatile Executor executor = Runnable::run;
+    // Contextos em ordem decrescente de tamanho: o primeiro prefixo que casa é o mais longo
+    private volatile NioHttpExchange.Context[] contexts = new NioHttpExchange.Context[0];
+    private int nextLoop;
+
+    final int maxConnections;
+    final long idleTimeoutMillis;
+    final int maxPipelinedRequests;
+    final int maxRequestsPerConnection;
+    final int socketBufferBytes;
+
+    NioHttpEngine(InetSocketAddress address, ApiConfig config) throws IOException {
+        this.maxConnections = config.serverMaxConnections;
+        this.idleTimeoutMillis = config.serverIdleTimeoutSeconds * 1000L;
+        this.maxPipelinedRequests = config.serverMaxPipelinedRequests;
+        this.maxRequestsPerConnection = config.serverMaxRequestsPerConnection;
+        this.socketBufferBytes = config.serverSocketBufferBytes;
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+
+        loops = new EventLoop[config.serverIoThreads];
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(i);
+        }
+    }
+
+    @Override
+    public synchronized void createContext(String path, HttpHandler handler) {
+        List<NioHttpExchange.Context> updated = new ArrayList<>(Arrays.asList(contexts));
+        updated.add(new NioHttpExchange.Context(path, handler));
+        updated.sort(Comparator.comparingInt((NioHttpExchange.Context c) -> c.getPath().length()).reversed());
+        contexts = updated.toArray(new NioHttpExchange.Context[0]);
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor != null ? executor : Runnable::run;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        try {
+            serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT, this);
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao registrar o socket do servidor", e);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        try {
+            return (InetSocketAddress) serverChannel.getLocalAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void stop(int delaySeconds) {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // Já fechado
+        }
+        for (EventLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                loop.thread.join(Math.max(1000L, delaySeconds * 1000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Contexto com o prefixo mais longo do caminho, como no HttpServer do JDK; null se nenhum
+     */
+    NioHttpExchange.Context findContext(String path) {
+        for (NioHttpExchange.Context context : contexts) {
+            if (path.startsWith(context.getPath())) {
+                return context;
+            }
+        }
+        return null;
+    }
+
+    int openConnections() {
+        return openConnections.get();
+    }
+
+    long rejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    void connectionClosed() {
+        openConnections.decrementAndGet();
+    }
+
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                // Falta de descritores, por exemplo; tentar de novo no próximo evento
+                System.err.println("WebInfoAPI: Erro ao aceitar conexão: " + e.getMessage());
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+            if (openConnections.incrementAndGet() > maxConnections) {
+                openConnections.decrementAndGet();
+                rejectedConnections.increment();
+                closeQuietly(channel);
+                continue;
+            }
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                if (socketBufferBytes > 0) {
+                    channel.setOption(StandardSocketOptions.SO_SNDBUF, socketBufferBytes);
+                    channel.setOption(StandardSocketOptions.SO_RCVBUF, socketBufferBytes);
+                }
+            } catch (IOException e) {
+                openConnections.decrementAndGet();
+                closeQuietly(channel);
+                continue;
+            }
+            EventLoop loop = loops[nextLoop];
+            nextLoop = (nextLoop + 1) % loops.length;
+            loop.execute(() -> loop.register(channel));
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nada a fazer
+        }
+    }
+
+    /**
+     * Thread com um Selector. Tarefas de outras threads (respostas prontas dos handlers,
+     * novas conexões) entram pela fila e acordam o select.
+     */
+    final class EventLoop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean wakeupPending = new AtomicBoolean();
+        // Acessado só pela thread do loop
+        private final Set<NioHttpConnection> connections = new HashSet<>();
+
+        EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "WebInfoAPI-NIO-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            if (Thread.currentThread() != thread && wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        boolean inLoop() {
+            return Thread.currentThread() == thread;
+        }
+
+        void register(SocketChannel channel) {
+            if (!running) {
+                connectionClosed();
+                closeQuietly(channel);
+                return;
+            }
+            try {
+                NioHttpConnection connection = new NioHttpConnection(NioHttpEngine.this, this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.add(connection);
+            } catch (IOException e) {
+                connectionClosed();
+                closeQuietly(channel);
+            }
+        }
+
+        void unregister(NioHttpConnection connection) {
+            connections.remove(connection);
+        }
+
+        @Override
+        public void run() {
+            long nextSweep = System.currentTimeMillis() + SWEEP_INTERVAL_MILLIS;
+            try {
+                while (running) {
+                    // Tarefas que o próprio loop enfileirou (ex.: registrar uma conexão que ele
+                    // aceitou) não acordam o select: com alguma pendente, não bloquear
+                    if (tasks.isEmpty()) {
+                        selector.select(SWEEP_INTERVAL_MILLIS);
+                    } else {
+                        selector.selectNow();
+                    }
+                    // Zerar antes de drenar: tarefas que chegarem depois acordam o próximo select
+                    wakeupPending.set(false);
+                    runTasks();
+
+                    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                    while (selected.hasNext()) {
+                        SelectionKey key = selected.next();
+                        selected.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.attachment() == NioHttpEngine.this) {
+                            accept();
+                        } else {
+                            ((NioHttpConnection) key.attachment()).onReady(key.readyOps());
+                        }
+                    }
+
+                    long now = System.currentTimeMillis();
+                    if (now >= nextSweep) {
+                        nextSweep = now + SWEEP_INTERVAL_MILLIS;
+                        for (NioHttpConnection connection : new ArrayList<>(connections)) {
+                            connection.checkTimeouts(now);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("WebInfoAPI: Event loop " + thread.getName() + " encerrado por erro: " + e);
+            } finally {
+                for (NioHttpConnection connection : new ArrayList<>(connections)) {
+                    connection.close();
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                    // Encerrando
+                }
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("WebInfoAPI: Erro em tarefa do event loop: " + e);
+                }
+            }
+        }
+    }
+}
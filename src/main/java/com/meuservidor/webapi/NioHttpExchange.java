@@ -0,0 +1,547 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.Authenticator;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Uma requisição do {@link NioHttpEngine} exposta como HttpExchange, para que os handlers
+ * existentes rodem sem mudanças.
+ *
+ * A semântica de sendResponseHeaders segue a do JDK: tamanho > 0 envia Content-Length, 0
+ * envia o corpo em chunks (como o SSE) e -1 indica resposta sem corpo. Em respostas de
+ * tamanho fixo, cabeçalho e corpo saem juntos no close(), em uma única escrita agrupada.
+ */
+final class NioHttpExchange extends HttpExchange implements Runnable {
+
+    static final byte[] NO_BODY = new byte[0];
+
+    // Segmentos maiores que isso são entregues à conexão antes do close()
+    private static final int SEGMENT_BYTES = 64 * 1024;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+    private static final DateTimeFormatter HTTP_DATE =
+        DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC).withLocale(Locale.US);
+
+    // Cabeçalho Date formatado uma vez por segundo
+    private static volatile long dateSecond;
+    private static volatile String dateValue = "";
+
+    private enum BodyMode { NONE, FIXED, CHUNKED, UNTIL_CLOSE }
+
+    private final NioHttpConnection connection;
+    private final Context context;
+    private final String method;
+    private final URI uri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private InputStream requestBody;
+    private final ResponseStream responseBody = new ResponseStream();
+    private OutputStream responseStream = responseBody;
+    private boolean keepAlive;
+    private final boolean head;
+
+    private int responseCode = -1;
+    private boolean headersSent;
+    private BodyMode mode;
+    private long contentLength;
+    private ByteBuffer pendingHead;
+    private boolean complete;
+
+    // Resposta gerada pelo próprio engine (erro de protocolo, 404, sobrecarga)
+    private int failureCode;
+    private String failureMessage;
+
+    NioHttpExchange(NioHttpConnection connection, Context context, String method, URI uri, String protocol,
+                    Headers requestHeaders, byte[] body, boolean keepAlive) {
+        this.connection = connection;
+        this.context = context;
+        this.method = method;
+        this.uri = uri;
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.requestBody = new ByteArrayInputStream(body);
+        this.keepAlive = keepAlive;
+        this.head = "HEAD".equals(method);
+    }
+
+    void failWith(int code, String message) {
+        this.failureCode = code;
+        this.failureMessage = message;
+    }
+
+    int failureCode() {
+        return failureCode;
+    }
+
+    /**
+     * Derruba a conexão sem esperar a resposta terminar; pode ser chamado de qualquer thread
+     */
+    void abort() {
+        connection.abort();
+    }
+
+    /**
+     * Envia o erro registrado em {@link #failWith}; roda na thread do event loop
+     */
+    void sendFailure() {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().field("error", failureMessage).endObject();
+            if (failureCode >= 500 || failureCode == 400 || failureCode == 413 || failureCode == 431) {
+                keepAlive = false;
+            }
+            responseHeaders.set("Content-Type", "application/json; charset=UTF-8");
+            sendResponseHeaders(failureCode, json.size());
+            json.writeTo(responseBody);
+            responseBody.close();
+        } catch (IOException e) {
+            connection.abort();
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            context.getHandler().handle(this);
+            if (!headersSent) {
+                // Handler terminou sem responder: não há como manter a ordem do pipeline
+                connection.abort();
+            }
+        } catch (Throwable t) {
+            if (!(t instanceof IOException)) {
+                System.err.println("WebInfoAPI: Erro não tratado em " + context.getPath() + ": " + t);
+            }
+            if (!headersSent && !connection.isClosed()) {
+                failWith(500, "Erro interno do servidor");
+                sendFailure();
+            } else if (!complete) {
+                connection.abort();
+            }
+        }
+    }
+
+    // ---- HttpExchange ----
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return context;
+    }
+
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+        } catch (IOException ignored) {
+            // ByteArrayInputStream
+        }
+        if (!headersSent) {
+            connection.abort();
+            return;
+        }
+        try {
+            responseBody.close();
+        } catch (IOException e) {
+            connection.abort();
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseStream;
+    }
+
+    @Override
+    public void sendResponseHeaders(int code, long length) throws IOException {
+        if (headersSent) {
+            throw new IOException("Cabeçalhos da resposta já enviados");
+        }
+        if (connection.isClosed()) {
+            throw new IOException("Conexão encerrada pelo cliente");
+        }
+        headersSent = true;
+        responseCode = code;
+
+        boolean bodyForbidden = code < 200 || code == 204 || code == 304;
+        if (bodyForbidden || length < 0) {
+            mode = BodyMode.NONE;
+        } else if (length > 0) {
+            mode = BodyMode.FIXED;
+            contentLength = length;
+        } else if (protocol.equals("HTTP/1.1")) {
+            mode = BodyMode.CHUNKED;
+        } else {
+            // HTTP/1.0 não tem chunks: o fim do corpo é o fim da conexão
+            mode = BodyMode.UNTIL_CLOSE;
+            keepAlive = false;
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(protocol).append(' ').append(code).append(' ').append(reason(code)).append("\r\n");
+        sb.append("Date: ").append(currentDate()).append("\r\n");
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            String name = header.getKey();
+            if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")
+                || name.equalsIgnoreCase("Connection") || name.equalsIgnoreCase("Date")) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                sb.append(name).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (mode == BodyMode.FIXED) {
+            sb.append("Content-Length: ").append(length).append("\r\n");
+        } else if (mode == BodyMode.CHUNKED && !head) {
+            sb.append("Transfer-Encoding: chunked\r\n");
+        } else if (mode == BodyMode.NONE && !bodyForbidden) {
+            sb.append("Content-Length: 0\r\n");
+        }
+        if (!keepAlive) {
+            sb.append("Connection: close\r\n");
+        } else if (protocol.equals("HTTP/1.0")) {
+            sb.append("Connection: keep-alive\r\n");
+        }
+        sb.append("\r\n");
+        ByteBuffer headBytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        if (mode == BodyMode.NONE || head) {
+            // Sem corpo: a resposta termina aqui, como no JDK
+            complete = true;
+            connection.submit(new ByteBuffer[]{headBytes}, 1, true, !keepAlive);
+        } else if (mode == BodyMode.FIXED) {
+            pendingHead = headBytes;
+        } else {
+            // Streams: cabeçalhos saem já, o corpo vem em flush()
+            connection.submit(new ByteBuffer[]{headBytes}, 1, false, false);
+        }
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.remoteAddress;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.localAddress;
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        if (in != null) {
+            requestBody = in;
+        }
+        if (out != null) {
+            responseStream = out;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    // ---- Internos ----
+
+    private static String currentDate() {
+        long second = System.currentTimeMillis() / 1000;
+        if (second != dateSecond) {
+            dateValue = HTTP_DATE.format(Instant.ofEpochSecond(second));
+            dateSecond = second;
+        }
+        return dateValue;
+    }
+
+    private static String reason(int code) {
+        switch (code) {
+            case 200: return "OK";
+            case 204: return "No Content";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 413: return "Payload Too Large";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 503: return "Service Unavailable";
+            case 505: return "HTTP Version Not Supported";
+            default: return "";
+        }
+    }
+
+    /**
+     * Corpo da resposta. Escritas pequenas são acumuladas em um array; corpos imutáveis
+     * (respostas em cache) entram por {@link #writeShared} sem cópia.
+     */
+    private final class ResponseStream extends OutputStream implements HttpEngine.SharedBodyOutput {
+        private final List<ByteBuffer> segments = new ArrayList<>(4);
+        private byte[] buffer;
+        private int count;
+        private long segmentBytes;
+        private long written;
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (!accept(len)) {
+                return;
+            }
+            while (len > 0) {
+                if (buffer == null) {
+                    buffer = new byte[(int) Math.min(SEGMENT_BYTES, Math.max(len,
+                        mode == BodyMode.FIXED ? contentLength - written + len : 1024))];
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+                if (count == buffer.length) {
+                    seal();
+                }
+            }
+            if (segmentBytes >= SEGMENT_BYTES) {
+                push(false);
+            }
+        }
+
+        @Override
+        public void writeShared(ByteBuffer body) throws IOException {
+            int len = body.remaining();
+            if (!accept(len)) {
+                return;
+            }
+            seal();
+            segments.add(body);
+            segmentBytes += len;
+        }
+
+        /**
+         * Valida a escrita; false quando os bytes devem ser descartados (HEAD)
+         */
+        private boolean accept(int len) throws IOException {
+            if (closed) {
+                throw new IOException("Corpo da resposta já fechado");
+            }
+            if (!headersSent) {
+                throw new IOException("sendResponseHeaders não foi chamado");
+            }
+            if (head) {
+                return false;
+            }
+            if (mode == BodyMode.NONE && len > 0) {
+                throw new IOException("Resposta sem corpo");
+            }
+            if (mode == BodyMode.FIXED && written + len > contentLength) {
+                throw new IOException("Mais bytes que o Content-Length declarado");
+            }
+            if (connection.isClosed()) {
+                throw new IOException("Conexão encerrada pelo cliente");
+            }
+            written += len;
+            return true;
+        }
+
+        private void seal() {
+            if (count > 0) {
+                segments.add(ByteBuffer.wrap(buffer, 0, count));
+                segmentBytes += count;
+                buffer = null;
+                count = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!closed && (mode == BodyMode.CHUNKED || mode == BodyMode.UNTIL_CLOSE) && !head) {
+                push(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed || complete) {
+                closed = true;
+                return;
+            }
+            closed = true;
+            if (mode == BodyMode.FIXED && written < contentLength) {
+                connection.abort();
+                throw new IOException("Menos bytes que o Content-Length declarado");
+            }
+            complete = true;
+            push(true);
+        }
+
+        private void push(boolean last) throws IOException {
+            seal();
+            if (segments.isEmpty() && !last) {
+                return;
+            }
+            ByteBuffer[] out = new ByteBuffer[segments.size() + 4];
+            int n = 0;
+            if (pendingHead != null) {
+                out[n++] = pendingHead;
+                pendingHead = null;
+            }
+            boolean chunked = mode == BodyMode.CHUNKED;
+            if (chunked && segmentBytes > 0) {
+                out[n++] = ByteBuffer.wrap((Long.toHexString(segmentBytes) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            }
+            for (ByteBuffer segment : segments) {
+                out[n++] = segment;
+            }
+            if (chunked && segmentBytes > 0) {
+                out[n++] = ByteBuffer.wrap(CRLF);
+            }
+            if (chunked && last) {
+                out[n++] = ByteBuffer.wrap(LAST_CHUNK);
+            }
+            segments.clear();
+            segmentBytes = 0;
+            connection.submit(out, n, last, last && !keepAlive);
+        }
+    }
+
+    /**
+     * Contexto registrado em {@link NioHttpEngine#createContext}
+     */
+    static final class Context extends HttpContext {
+        private final String path;
+        private volatile HttpHandler handler;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final List<Filter> filters = new ArrayList<>();
+        private Authenticator authenticator;
+
+        Context(String path, HttpHandler handler) {
+            this.path = path;
+            this.handler = handler;
+        }
+
+        @Override
+        public HttpHandler getHandler() {
+            return handler;
+        }
+
+        @Override
+        public void setHandler(HttpHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public HttpServer getServer() {
+            // Não há HttpServer do JDK por trás deste engine
+            return null;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public List<Filter> getFilters() {
+            return filters;
+        }
+
+        @Override
+        public Authenticator setAuthenticator(Authenticator authenticator) {
+            Authenticator previous = this.authenticator;
+            this.authenticator = authenticator;
+            return previous;
+        }
+
+        @Override
+        public Authenticator getAuthenticator() {
+            return authenticator;
+        }
+    }
+}
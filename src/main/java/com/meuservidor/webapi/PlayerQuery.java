@@ -0,0 +1,361 @@
+package com.meuservidor.webapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Consulta de /players: projeção de campos, filtros, ordenação e paginação.
+ *
+ * Parâmetros: fields=name,latency,...; level_id=; biome=; sort=latency|player_level|online_time|name
+ * (prefixo "-" para decrescente); limit=; cursor=; since=.
+ *
+ * A paginação é por chave (keyset): o cursor guarda a chave de ordenação e o id do último
+ * jogador devolvido, e a próxima página começa logo depois dessa posição no snapshot atual.
+ * Assim, entradas e saídas de jogadores entre as páginas não duplicam nem pulam ninguém
+ * que continue online. Para online_time a chave é o instante de entrada, que não muda.
+ *
+ * since= é a version de uma resposta anterior (a sequência do snapshot em que a lista
+ * mudou pela última vez): a resposta traz só quem entrou, saiu ou mudou desde então (ver
+ * SnapshotDiff.players). Aceita fields e
+ * os filtros, mas não ordenação nem paginação.
+ */
+final class PlayerQuery {
+
+    // Campos projetáveis (um bit cada, na ordem de FIELD_NAMES)
+    static final int NAME = 1;
+    static final int ID = 1 << 1;
+    static final int LATENCY = 1 << 2;
+    static final int LEVEL_ID = 1 << 3;
+    static final int POSITION = 1 << 4;
+    static final int BIOME = 1 << 5;
+    static final int HEALTH = 1 << 6;
+    static final int MANA = 1 << 7;
+    static final int ONLINE_TIME = 1 << 8;
+    static final int IS_ADMIN = 1 << 9;
+    static final int PLAYER_CLASS = 1 << 10;
+    static final int PLAYER_LEVEL = 1 << 11;
+    static final int EXPERIENCE = 1 << 12;
+
+    private static final String[] FIELD_NAMES = {
+        "name", "id", "latency", "level_id", "position", "biome", "health", "mana",
+        "online_time", "is_admin", "player_class", "player_level", "experience"
+    };
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    enum Sort {
+        NONE("id"),
+        NAME("name"),
+        LATENCY("latency"),
+        PLAYER_LEVEL("player_level"),
+        ONLINE_TIME("online_time");
+
+        final String param;
+
+        Sort(String param) {
+            this.param = param;
+        }
+
+        static Sort fromParam(String param) {
+            for (Sort sort : values()) {
+                if (sort.param.equals(param)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Ordenação desconhecida: " + param);
+        }
+
+        /**
+         * Chave numérica da ordenação (não usada por NAME nem NONE)
+         */
+        long key(PlayerSnapshot player) {
+            switch (this) {
+                case LATENCY:
+                    return player.latency;
+                case PLAYER_LEVEL:
+                    return player.playerLevel;
+                case ONLINE_TIME:
+                    // Mais tempo online = entrou antes
+                    return -player.joinTime;
+                default:
+                    return 0;
+            }
+        }
+
+        int compare(PlayerSnapshot a, PlayerSnapshot b) {
+            int result = this == NAME
+                ? String.CASE_INSENSITIVE_ORDER.compare(a.name, b.name)
+                : Long.compare(key(a), key(b));
+            return result != 0 ? result : a.id.compareTo(b.id);
+        }
+
+        int compare(PlayerSnapshot player, Cursor cursor) {
+            int result = this == NAME
+                ? String.CASE_INSENSITIVE_ORDER.compare(player.name, cursor.textKey)
+                : Long.compare(key(player), cursor.numericKey);
+            return result != 0 ? result : player.id.compareTo(cursor.id);
+        }
+    }
+
+    /**
+     * Posição do último jogador entregue, codificada em base64 url-safe
+     */
+    static final class Cursor {
+        final Sort sort;
+        final boolean descending;
+        final String id;
+        final String textKey;
+        final long numericKey;
+
+        private Cursor(Sort sort, boolean descending, String id, String textKey, long numericKey) {
+            this.sort = sort;
+            this.descending = descending;
+            this.id = id;
+            this.textKey = textKey;
+            this.numericKey = numericKey;
+        }
+
+        static Cursor after(Sort sort, boolean descending, PlayerSnapshot player) {
+            return new Cursor(sort, descending, player.id, player.name, sort.key(player));
+        }
+
+        String encode() {
+            String key = sort == Sort.NAME ? textKey : Long.toString(numericKey);
+            String raw = sort.param + '\n' + (descending ? 'd' : 'a') + '\n' + id + '\n' + key;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\n", 4);
+                if (parts.length != 4) {
+                    throw new IllegalArgumentException();
+                }
+                Sort sort = Sort.fromParam(parts[0]);
+                boolean descending = "d".equals(parts[1]);
+                long numericKey = sort == Sort.NAME ? 0 : Long.parseLong(parts[3]);
+                return new Cursor(sort, descending, parts[2], parts[3], numericKey);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+    }
+
+    /**
+     * Resultado de uma consulta: os jogadores da página e o cursor da próxima, se houver
+     */
+    static final class Page {
+        final List<PlayerSnapshot> players;
+        final String nextCursor;
+
+        Page(List<PlayerSnapshot> players, String nextCursor) {
+            this.players = players;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    final int fields;
+    final boolean filterLevel;
+    final int levelId;
+    final String biome;
+    final Sort sort;
+    final boolean descending;
+    final int limit;
+    final Cursor cursor;
+    // Versão base de uma resposta incremental; -1 = lista completa
+    final long since;
+
+    private PlayerQuery(int fields, boolean filterLevel, int levelId, String biome,
+                        Sort sort, boolean descending, int limit, Cursor cursor, long since) {
+        this.fields = fields;
+        this.filterLevel = filterLevel;
+        this.levelId = levelId;
+        this.biome = biome;
+        this.sort = sort;
+        this.descending = descending;
+        this.limit = limit;
+        this.cursor = cursor;
+        this.since = since;
+    }
+
+    /**
+     * Todos os campos que a configuração permite, sem filtros nem paginação
+     */
+    static PlayerQuery all(ApiConfig config) {
+        return new PlayerQuery(allowedFields(config), false, 0, null, Sort.NONE, false, 0, null, -1);
+    }
+
+    /**
+     * Apenas a projeção (fields=), para endpoints que têm filtros próprios
+     */
+    static PlayerQuery projection(QueryParams params, ApiConfig config) {
+        return new PlayerQuery(parseFields(params, config), false, 0, null, Sort.NONE, false, 0, null, -1);
+    }
+
+    /**
+     * Interpreta a query string; campos bloqueados pela configuração (data.include_*)
+     * são omitidos mesmo se pedidos
+     */
+    static PlayerQuery parse(QueryParams params, ApiConfig config) {
+        int fields = parseFields(params, config);
+
+        String levelParam = params.get("level_id");
+        boolean filterLevel = levelParam != null && !levelParam.isEmpty();
+        int levelId = params.getInt("level_id", 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        String biome = params.get("biome");
+        if (biome != null && biome.isEmpty()) {
+            biome = null;
+        }
+
+        Sort sort = Sort.NONE;
+        boolean descending = false;
+        String sortParam = params.get("sort");
+        if (sortParam != null && !sortParam.isEmpty()) {
+            descending = sortParam.startsWith("-");
+            sort = Sort.fromParam(descending ? sortParam.substring(1) : sortParam);
+        }
+
+        Cursor cursor = null;
+        String cursorParam = params.get("cursor");
+        if (cursorParam != null && !cursorParam.isEmpty()) {
+            cursor = Cursor.decode(cursorParam);
+            if (sortParam == null) {
+                // A ordenação segue a da página anterior
+                sort = cursor.sort;
+                descending = cursor.descending;
+            } else if (cursor.sort != sort || cursor.descending != descending) {
+                throw new IllegalArgumentException("Cursor não corresponde à ordenação pedida");
+            }
+        }
+
+        int limit = params.getInt("limit", cursor != null ? DEFAULT_PAGE_SIZE : 0, 1, MAX_PAGE_SIZE);
+
+        long since = params.getLong("since", -1);
+        if (params.get("since") != null && !params.get("since").isEmpty()) {
+            if (since < 0) {
+                throw new IllegalArgumentException("Parâmetro since inválido: " + since);
+            }
+            if (sort != Sort.NONE || limit > 0) {
+                throw new IllegalArgumentException("since não pode ser combinado com sort, limit ou cursor");
+            }
+        }
+        return new PlayerQuery(fields, filterLevel, levelId, biome, sort, descending, limit, cursor, since);
+    }
+
+    boolean isPaginated() {
+        return limit > 0;
+    }
+
+    /**
+     * Resposta incremental (since=) em vez da lista completa
+     */
+    boolean isDelta() {
+        return since >= 0;
+    }
+
+    boolean includes(int field) {
+        return (fields & field) != 0;
+    }
+
+    Page execute(ServerSnapshot snapshot) {
+        PlayerView view = snapshot.playerView();
+        if (!isPaginated() && sort == Sort.NONE) {
+            List<PlayerSnapshot> result = new ArrayList<>(snapshot.players.size());
+            for (PlayerSnapshot player : view.inCaptureOrder()) {
+                if (matches(player)) {
+                    result.add(player);
+                }
+            }
+            return new Page(result, null);
+        }
+
+        PlayerSnapshot[] ordered = view.sortedBy(sort);
+        int step = descending ? -1 : 1;
+        int index = cursor == null ? (descending ? ordered.length - 1 : 0) : seek(ordered);
+        int max = isPaginated() ? limit : Integer.MAX_VALUE;
+
+        List<PlayerSnapshot> result = new ArrayList<>(Math.min(max, ordered.length));
+        String nextCursor = null;
+        for (; index >= 0 && index < ordered.length; index += step) {
+            PlayerSnapshot player = ordered[index];
+            if (!matches(player)) {
+                continue;
+            }
+            if (result.size() == max) {
+                // Há pelo menos mais um jogador depois desta página
+                nextCursor = Cursor.after(sort, descending, result.get(result.size() - 1)).encode();
+                break;
+            }
+            result.add(player);
+        }
+        return new Page(result, nextCursor);
+    }
+
+    /**
+     * Primeiro índice depois do cursor no sentido da ordenação (busca binária)
+     */
+    private int seek(PlayerSnapshot[] ordered) {
+        int low = 0;
+        int high = ordered.length;
+        // Primeiro índice com chave > cursor
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sort.compare(ordered[mid], cursor) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (!descending) {
+            return low;
+        }
+        // Decrescente: último índice com chave < cursor
+        int index = low - 1;
+        while (index >= 0 && sort.compare(ordered[index], cursor) == 0) {
+            index--;
+        }
+        return index;
+    }
+
+    boolean matches(PlayerSnapshot player) {
+        return (!filterLevel || player.levelId == levelId)
+            && (biome == null || biome.equals(player.biome));
+    }
+
+    private static int parseFields(QueryParams params, ApiConfig config) {
+        int allowed = allowedFields(config);
+        String fieldList = params.get("fields");
+        if (fieldList == null || fieldList.trim().isEmpty()) {
+            return allowed;
+        }
+        int requested = 0;
+        for (String name : fieldList.split(",")) {
+            requested |= fieldBit(name.trim());
+        }
+        return requested & allowed;
+    }
+
+    private static int allowedFields(ApiConfig config) {
+        int fields = NAME | ID | LATENCY | LEVEL_ID | ONLINE_TIME | IS_ADMIN | PLAYER_CLASS | PLAYER_LEVEL;
+        if (config.includeCoordinates) {
+            fields |= POSITION | BIOME;
+            if (config.includePlayerStats) {
+                fields |= HEALTH | MANA | EXPERIENCE;
+            }
+        }
+        return fields;
+    }
+
+    private static int fieldBit(String name) {
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            if (FIELD_NAMES[i].equals(name)) {
+                return 1 << i;
+            }
+        }
+        throw new IllegalArgumentException("Campo desconhecido: " + name);
+    }
+}
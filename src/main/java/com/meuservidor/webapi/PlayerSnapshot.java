@@ -0,0 +1,77 @@
+package com.meuservidor.webapi;
+
+import java.util.UUID;
+
+/**
+ * Cópia imutável dos dados de um jogador no momento da captura.
+ * Os handlers HTTP leem apenas esta estrutura, nunca o ServerPlayer vivo.
+ */
+final class PlayerSnapshot {
+
+    final String name;
+    final UUID uuid;
+    final String id;
+    final int latency;
+    final int levelId;
+    final float x;
+    final float y;
+    final String biome;
+    final int health;
+    final int maxHealth;
+    final int mana;
+    final int maxMana;
+    final long joinTime;
+    final long onlineTime;
+    final boolean admin;
+    final String playerClass;
+    final int playerLevel;
+    final long experience;
+
+    PlayerSnapshot(Builder b) {
+        this.name = b.name;
+        this.uuid = b.uuid;
+        this.id = b.uuid != null ? b.uuid.toString() : "";
+        this.latency = b.latency;
+        this.levelId = b.levelId;
+        this.x = b.x;
+        this.y = b.y;
+        this.biome = b.biome;
+        this.health = b.health;
+        this.maxHealth = b.maxHealth;
+        this.mana = b.mana;
+        this.maxMana = b.maxMana;
+        this.joinTime = b.joinTime;
+        this.onlineTime = b.onlineTime;
+        this.admin = b.admin;
+        this.playerClass = b.playerClass;
+        this.playerLevel = b.playerLevel;
+        this.experience = b.experience;
+    }
+
+    /**
+     * Acumulador mutável usado pela thread do jogo durante a captura
+     */
+    static final class Builder {
+        String name = "";
+        UUID uuid;
+        int latency;
+        int levelId;
+        float x;
+        float y;
+        String biome = "unknown";
+        int health;
+        int maxHealth;
+        int mana;
+        int maxMana;
+        long joinTime;
+        long onlineTime;
+        boolean admin;
+        String playerClass = "";
+        int playerLevel;
+        long experience;
+
+        PlayerSnapshot build() {
+            return new PlayerSnapshot(this);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.meuservidor.webapi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Visão dos jogadores de um snapshot, com as ordenações usadas por /players e os
+ * índices por UUID e por nome usados por /players/{uuid} e /players/by-name/{nome}
+ * (e, sob demanda, o índice espacial de /players/near e /players/region).
+ *
+ * Os índices são montados junto com a visão (uma vez por snapshot, na primeira consulta).
+ * Ordenações e o documento de cada jogador são calculados na primeira consulta que os usa e
+ * reaproveitados enquanto o snapshot for o atual. Como o snapshot é imutável, corridas
+ * apenas repetem o mesmo trabalho.
+ */
+final class PlayerView {
+
+    private final PlayerSnapshot[] players;
+    private final AtomicReferenceArray<PlayerSnapshot[]> sorted =
+        new AtomicReferenceArray<>(PlayerQuery.Sort.values().length);
+    private final Map<UUID, Integer> byUuid;
+    private final Map<String, Integer> byName;
+    private final AtomicReferenceArray<Encoded> encoded;
+    private volatile SpatialIndex spatialIndex;
+
+    PlayerView(ServerSnapshot snapshot) {
+        this.players = snapshot.players.toArray(new PlayerSnapshot[0]);
+        this.byUuid = new HashMap<>(players.length * 2);
+        this.byName = new HashMap<>(players.length * 2);
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].uuid != null) {
+                byUuid.putIfAbsent(players[i].uuid, i);
+            }
+            byName.putIfAbsent(normalizeName(players[i].name), i);
+        }
+        this.encoded = new AtomicReferenceArray<>(players.length);
+    }
+
+    /**
+     * Nome normalizado para busca: sem espaços nas pontas e sem diferença de maiúsculas
+     */
+    static String normalizeName(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Índice do jogador com o UUID, ou -1
+     */
+    int indexOf(UUID uuid) {
+        Integer index = byUuid.get(uuid);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Índice do jogador com o nome (comparação normalizada), ou -1
+     */
+    int indexOfName(String name) {
+        Integer index = byName.get(normalizeName(name));
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Documento do jogador no índice, codificado uma vez por formato e conjunto de campos
+     */
+    byte[] encodedPlayer(int index, DocumentWriter.Format format, int fields, Function<PlayerSnapshot, byte[]> encoder) {
+        Encoded current = encoded.get(index);
+        if (current == null || current.format != format || current.fields != fields) {
+            current = new Encoded(format, fields, encoder.apply(players[index]));
+            encoded.set(index, current);
+        }
+        return current.bytes;
+    }
+
+    /**
+     * Grade espacial por nível para /players/near e /players/region
+     */
+    SpatialIndex spatialIndex() {
+        SpatialIndex index = spatialIndex;
+        if (index == null) {
+            spatialIndex = index = new SpatialIndex(players);
+        }
+        return index;
+    }
+
+    /**
+     * Jogadores na ordem da captura (ordem do servidor)
+     */
+    PlayerSnapshot[] inCaptureOrder() {
+        return players;
+    }
+
+    /**
+     * Jogadores em ordem crescente de (chave da ordenação, id)
+     */
+    PlayerSnapshot[] sortedBy(PlayerQuery.Sort sort) {
+        PlayerSnapshot[] result = sorted.get(sort.ordinal());
+        if (result == null) {
+            result = players.clone();
+            Arrays.sort(result, sort::compare);
+            sorted.set(sort.ordinal(), result);
+        }
+        return result;
+    }
+
+    private static final class Encoded {
+        final DocumentWriter.Format format;
+        final int fields;
+        final byte[] bytes;
+
+        Encoded(DocumentWriter.Format format, int fields, byte[] bytes) {
+            this.format = format;
+            this.fields = fields;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.meuservidor.webapi;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parâmetros da query string já decodificados. Repetições mantêm o último valor.
+ * Erros de formato viram IllegalArgumentException, respondida como 400 pelos handlers.
+ */
+final class QueryParams {
+
+    private static final QueryParams EMPTY = new QueryParams(Collections.<String, String>emptyMap());
+
+    private final Map<String, String> values;
+
+    private QueryParams(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static QueryParams parse(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, String> values = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = decode(eq >= 0 ? pair.substring(0, eq) : pair);
+            String value = eq >= 0 ? decode(pair.substring(eq + 1)) : "";
+            values.put(name, value);
+        }
+        return new QueryParams(values);
+    }
+
+    String get(String name) {
+        return values.get(name);
+    }
+
+    int getInt(String name, int defaultValue, int min, int max) {
+        String value = values.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("Parâmetro " + name + " fora do intervalo " + min + ".." + max);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro " + name + " inválido: " + value);
+        }
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro " + name + " inválido: " + value);
+        }
+    }
+
+    /**
+     * Número obrigatório (finito)
+     */
+    float getFloat(String name) {
+        String value = values.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + name);
+        }
+        try {
+            float parsed = Float.parseFloat(value.trim());
+            if (Float.isNaN(parsed) || Float.isInfinite(parsed)) {
+                throw new NumberFormatException();
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro " + name + " inválido: " + value);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Query string mal formada");
+        }
+    }
+}
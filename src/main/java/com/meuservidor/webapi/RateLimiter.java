@@ -0,0 +1,171 @@
+package com.meuservidor.webapi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiting por cliente com token bucket (variante GCRA).
+ *
+ * Cada bucket guarda um único long, o "theoretical arrival time", atualizado com CAS:
+ * o custo de uma requisição é O(1) e requisições concorrentes do mesmo cliente nunca
+ * passam juntas do limite. Buckets ociosos (já totalmente recarregados) são removidos
+ * por uma thread de limpeza, fora do caminho das requisições.
+ *
+ * A política é consultada a cada requisição, não guardada no bucket: uma nova configuração
+ * vale na hora sem devolver a rajada inteira a quem já estava limitado. O atraso acumulado
+ * (em tempo) passa a ser medido contra a capacidade da nova política.
+ */
+final class RateLimiter {
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Resultado de uma tentativa de consumo
+     */
+    static final class Decision {
+        final boolean allowed;
+        final int limit;
+        final int remaining;
+        final long resetNanos;
+
+        Decision(boolean allowed, int limit, int remaining, long resetNanos) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetNanos = resetNanos;
+        }
+
+        long resetSeconds() {
+            return Math.max(1, (resetNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Política de um bucket: taxa sustentada e capacidade de rajada
+     */
+    static final class Policy {
+        final int requestsPerMinute;
+        final int burst;
+        final long emissionNanos;
+        final long capacityNanos;
+
+        Policy(int requestsPerMinute, int burst) {
+            this.requestsPerMinute = Math.max(1, requestsPerMinute);
+            this.burst = Math.max(1, burst);
+            this.emissionNanos = MINUTE_NANOS / this.requestsPerMinute;
+            this.capacityNanos = emissionNanos * this.burst;
+        }
+    }
+
+    // Por cliente, só o "theoretical arrival time"
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    private volatile boolean enabled;
+    private volatile Policy defaultPolicy = new Policy(60, 10);
+    private volatile Map<String, Policy> apiKeyPolicies = Collections.emptyMap();
+    private volatile Map<String, Integer> endpointCosts = Collections.emptyMap();
+
+    RateLimiter() {
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-RateLimitSweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Aplica nova configuração; os buckets existentes são mantidos e passam a usar as novas políticas
+     */
+    void configure(boolean enabled, int requestsPerMinute, int burst,
+                   Map<String, Integer> apiKeyQuotas, Map<String, Integer> endpointCosts) {
+        Map<String, Policy> keyPolicies = new HashMap<>();
+        for (Map.Entry<String, Integer> quota : apiKeyQuotas.entrySet()) {
+            int keyBurst = Math.max(burst, quota.getValue() * burst / Math.max(1, requestsPerMinute));
+            keyPolicies.put(quota.getKey(), new Policy(quota.getValue(), keyBurst));
+        }
+
+        this.defaultPolicy = new Policy(requestsPerMinute, burst);
+        this.apiKeyPolicies = keyPolicies;
+        this.endpointCosts = new HashMap<>(endpointCosts);
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Custo da requisição para o contexto informado (1 se não configurado)
+     */
+    int costOf(String contextPath) {
+        Integer cost = endpointCosts.get(contextPath);
+        return cost != null ? cost : 1;
+    }
+
+    /**
+     * Tenta consumir tokens do bucket do cliente. Clientes com chave de API que possui
+     * cota própria usam o bucket da chave; os demais são identificados pelo IP.
+     * O custo é limitado à rajada da política: uma requisição composta (/batch) mais cara
+     * que o bucket inteiro consome o bucket cheio em vez de ser recusada para sempre.
+     */
+    Decision acquire(String clientIP, String apiKey, int cost) {
+        Policy keyPolicy = apiKey != null ? apiKeyPolicies.get(apiKey) : null;
+        Policy p = keyPolicy != null ? keyPolicy : defaultPolicy;
+        String bucketKey = keyPolicy != null ? "key:" + apiKey : clientIP;
+        long now = System.nanoTime();
+
+        AtomicLong bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now);
+            AtomicLong existing = buckets.putIfAbsent(bucketKey, created);
+            bucket = existing != null ? existing : created;
+        }
+
+        long increment = p.emissionNanos * Math.max(0, Math.min(cost, p.burst));
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + increment;
+            long backlog = newTat - now;
+
+            if (backlog > p.capacityNanos) {
+                long current = Math.max(0, tat - now);
+                int remaining = (int) ((p.capacityNanos - current) / p.emissionNanos);
+                return new Decision(false, p.requestsPerMinute, Math.max(0, remaining), backlog - p.capacityNanos);
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                int remaining = (int) ((p.capacityNanos - backlog) / p.emissionNanos);
+                return new Decision(true, p.requestsPerMinute, remaining, backlog);
+            }
+        }
+    }
+
+    /**
+     * Remove buckets totalmente recarregados; recriá-los depois é equivalente
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        for (Iterator<AtomicLong> it = buckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().get() - now <= 0) {
+                it.remove();
+            }
+        }
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    void stop() {
+        sweeper.shutdownNow();
+        buckets.clear();
+    }
+}
@@ -0,0 +1,480 @@
+package com.meuservidor.webapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor do servidor HTTP com faixas de prioridade, filas limitadas, prazo de fila e
+ * descarte de carga.
+ *
+ * No modo "platform" os handlers rodam em duas faixas separadas, cada uma com threads fixas
+ * (core == max, que expiram quando ociosas) e fila própria:
+ * - a faixa prioritária (priority_reserved threads) atende os priority_endpoints, como
+ *   /health, que nunca esperam na fila atrás de /system;
+ * - a faixa normal (max_size - priority_reserved threads) atende o resto; requisições que
+ *   esperaram além do prazo de fila recebem 503 ao sair dela.
+ * A faixa é escolhida antes de enfileirar: no engine "nio" a requisição já chega lida, e no
+ * engine "jdk" o HttpServer entrega a conexão antes de ler a requisição, então ela passa por
+ * um pool de leitura (core_size threads) que só lê o cabeçalho e a encaminha à faixa.
+ * Faixa cheia responde 503 na hora, sem ocupar nenhuma thread de handler.
+ *
+ * No modo "virtual" (Java 21+) cada requisição ganha uma virtual thread, então clientes lentos
+ * e respostas longas não prendem threads de plataforma. O pool dá lugar a um limitador: até
+ * virtual_max_concurrent handlers rodam ao mesmo tempo (menos a reserva de prioridade para os
+ * não prioritários), até queue_size esperam por uma permissão dentro do prazo de fila, e o
+ * excedente é descartado.
+ *
+ * O que não cabe em nenhuma fila vai para a faixa de descarte, que lê a requisição só para
+ * responder 503 (ou encaminha à faixa prioritária, se for o caso). Com ela cheia também, a
+ * tarefa é recusada com RejectedExecutionException e quem a entregou fecha a conexão (o
+ * HttpServer do JDK) ou responde 503 pelo event loop (engine "nio"); nada roda na thread do
+ * dispatcher.
+ */
+final class RequestScheduler implements Executor {
+
+    // Situação da thread corrente ao chegar no handler
+    private static final int UNROUTED = 0;   // ainda sem faixa (leitura do engine "jdk" ou modo virtual)
+    private static final int ADMITTED = 1;   // em uma faixa, dentro do prazo
+    private static final int EXPIRED = 2;    // em uma faixa, depois do prazo
+    private static final int SHED = 3;       // na faixa de descarte
+
+    private static final ThreadLocal<long[]> STATE = new ThreadLocal<>();
+    private static final int SHED_QUEUE = 64;
+
+    // Modo "platform": faixas de handlers e pool de leitura; modo "virtual": null
+    private final ThreadPoolExecutor standardLane;
+    private final ThreadPoolExecutor priorityLane;
+    private final ThreadPoolExecutor intake;
+    // Modo "virtual": uma virtual thread por tarefa, com no máximo admissionLimit tarefas vivas
+    private final ExecutorService virtualWorkers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int admissionLimit;
+    private final Semaphore standardPermits;
+
+    private final int concurrencyLimit;
+    private final ThreadPoolExecutor shedLane;
+    private final long deadlineNanos;
+    private final Set<String> priorityPaths;
+
+    // Métricas
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder permitTimeouts = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    RequestScheduler(int intakeSize, int maxSize, int keepAliveSeconds, int queueSize,
+                     int deadlineMillis, Set<String> priorityPaths, int reservedForPriority) {
+        int max = Math.max(1, maxSize);
+        int reserved = Math.max(0, Math.min(reservedForPriority, max - 1));
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, deadlineMillis));
+        this.priorityPaths = Collections.unmodifiableSet(new HashSet<>(priorityPaths));
+        this.concurrencyLimit = max;
+        this.shedLane = lane(1, 30, SHED_QUEUE, "WebInfoAPI-HTTP-Shed");
+
+        this.standardLane = lane(max - reserved, keepAliveSeconds, queueSize, "WebInfoAPI-HTTP");
+        // Sem reserva, os prioritários dividem a faixa normal (mas continuam sem prazo de fila)
+        this.priorityLane = reserved > 0
+            ? lane(reserved, keepAliveSeconds, queueSize, "WebInfoAPI-HTTP-Priority") : standardLane;
+        this.intake = lane(Math.max(1, intakeSize), keepAliveSeconds, queueSize, "WebInfoAPI-HTTP-Intake");
+
+        this.virtualWorkers = null;
+        this.admissionLimit = 0;
+        this.standardPermits = null;
+    }
+
+    /**
+     * Modo "virtual": virtual threads atrás do limitador de concorrência
+     */
+    private RequestScheduler(ExecutorService virtualWorkers, int maxConcurrent, int queueSize,
+                             int deadlineMillis, Set<String> priorityPaths, int reservedForPriority) {
+        int max = Math.max(1, maxConcurrent);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, deadlineMillis));
+        this.priorityPaths = Collections.unmodifiableSet(new HashSet<>(priorityPaths));
+        this.standardPermits = new Semaphore(Math.max(1, max - Math.max(0, reservedForPriority)));
+        this.virtualWorkers = virtualWorkers;
+        this.admissionLimit = max + Math.max(1, queueSize);
+        this.concurrencyLimit = max;
+        this.shedLane = lane(1, 30, SHED_QUEUE, "WebInfoAPI-HTTP-Shed");
+
+        this.standardLane = null;
+        this.priorityLane = null;
+        this.intake = null;
+    }
+
+    /**
+     * Scheduler do modo configurado em api.thread_pool.mode. Sem suporte a virtual threads
+     * (Java anterior ao 21), o modo "virtual" cai para o pool de threads.
+     */
+    static RequestScheduler create(ApiConfig config) {
+        if ("virtual".equals(config.threadPoolMode)) {
+            if (VirtualThreads.isSupported()) {
+                return new RequestScheduler(VirtualThreads.newPerTaskExecutor("WebInfoAPI-HTTP-V"),
+                    config.threadPoolVirtualMaxConcurrent,
+                    config.threadPoolQueueSize,
+                    config.threadPoolQueueDeadlineMs,
+                    config.priorityEndpoints,
+                    config.priorityReserved);
+            }
+            System.err.println("WebInfoAPI: api.thread_pool.mode=virtual exige Java 21+ (JVM atual: "
+                + System.getProperty("java.version") + "); usando o pool de threads");
+        }
+        return new RequestScheduler(
+            config.threadPoolCoreSize,
+            config.threadPoolMaxSize,
+            config.threadPoolKeepAliveSeconds,
+            config.threadPoolQueueSize,
+            config.threadPoolQueueDeadlineMs,
+            config.priorityEndpoints,
+            config.priorityReserved);
+    }
+
+    /**
+     * Tarefa entregue pelo engine: uma requisição já lida (engine "nio") ou uma conexão
+     * cuja requisição ainda será lida (HttpServer do JDK)
+     */
+    @Override
+    public void execute(Runnable command) {
+        boolean parsed = command instanceof NioHttpExchange;
+        if (virtualWorkers == null) {
+            if (parsed) {
+                // Requisição já lida: vai direto para a faixa do endpoint
+                boolean priority = isPriority(((NioHttpExchange) command).getHttpContext().getPath());
+                try {
+                    (priority ? priorityLane : standardLane).execute(new Task(command, priority));
+                } catch (RejectedExecutionException e) {
+                    queueFull.increment();
+                    throw e;
+                }
+                return;
+            }
+            try {
+                intake.execute(new Task(command, UNROUTED));
+            } catch (RejectedExecutionException e) {
+                shed(command);
+            }
+            return;
+        }
+        if (inFlight.incrementAndGet() > admissionLimit) {
+            inFlight.decrementAndGet();
+            if (parsed && isPriority(((NioHttpExchange) command).getHttpContext().getPath())) {
+                // Prioritário já lido: entra mesmo acima do limite, numa virtual thread fora da contagem
+                virtualWorkers.execute(new Task(command, true));
+                return;
+            }
+            if (parsed) {
+                queueFull.increment();
+                throw new RejectedExecutionException("Limite de concorrência atingido");
+            }
+            shed(command);
+            return;
+        }
+        try {
+            virtualWorkers.execute(new Task(command, UNROUTED));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * "platform" ou "virtual"
+     */
+    String mode() {
+        return virtualWorkers == null ? "platform" : "virtual";
+    }
+
+    /**
+     * Conexão sem vaga: segue para a faixa de descarte, que responde 503 rapidamente. Com ela
+     * cheia, a recusa sobe para o HttpServer, que fecha a conexão.
+     */
+    private void shed(Runnable command) {
+        queueFull.increment();
+        shedLane.execute(new Task(command, SHED));
+    }
+
+    boolean isPriority(String path) {
+        return priorityPaths.contains(path);
+    }
+
+    /**
+     * Executa o handler da requisição corrente na faixa certa, ou responde com overloaded
+     * (503) se ela não puder ser atendida. Chamado pelo handler registrado no engine.
+     */
+    void dispatch(HttpExchange exchange, boolean priority, HttpHandler handler, HttpHandler overloaded) throws IOException {
+        long[] state = STATE.get();
+        int current = state != null ? (int) state[0] : UNROUTED;
+        if (current == ADMITTED) {
+            handler.handle(exchange);
+            return;
+        }
+        if (current == EXPIRED || (current == SHED && !priority)) {
+            overloaded.handle(exchange);
+            return;
+        }
+        if (virtualWorkers != null) {
+            if (current == SHED) {
+                // Prioritário que caiu no descarte: ganha uma virtual thread própria
+                virtualWorkers.execute(() -> runDetached(exchange, handler));
+                return;
+            }
+            admitVirtual(exchange, priority, state != null ? state[1] : 0, handler, overloaded);
+            return;
+        }
+        // Engine "jdk": sai da thread de leitura para a faixa do endpoint, onde o prazo de fila
+        // é conferido; a resposta é completada lá, e o HttpServer só libera a conexão quando o
+        // corpo é fechado
+        Task task = new Task(() -> runDetached(exchange, e -> dispatch(e, priority, handler, overloaded)), priority);
+        try {
+            (priority ? priorityLane : standardLane).execute(task);
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            overloaded.handle(exchange);
+        }
+    }
+
+    /**
+     * Modo virtual: prioritários entram direto; os demais esperam uma permissão até o prazo de fila
+     */
+    private void admitVirtual(HttpExchange exchange, boolean priority, long waited, HttpHandler handler,
+                              HttpHandler overloaded) throws IOException {
+        if (priority) {
+            handler.handle(exchange);
+            return;
+        }
+        long remaining = deadlineNanos - waited;
+        if (remaining <= 0) {
+            expired.increment();
+            overloaded.handle(exchange);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = standardPermits.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            permitTimeouts.increment();
+            overloaded.handle(exchange);
+            return;
+        }
+        try {
+            handler.handle(exchange);
+        } finally {
+            standardPermits.release();
+        }
+    }
+
+    /**
+     * Handler fora da thread em que o engine o chamou: sem ninguém acima para tratar uma falha,
+     * a conexão é fechada aqui
+     */
+    private static void runDetached(HttpExchange exchange, HttpHandler handler) {
+        try {
+            handler.handle(exchange);
+        } catch (IOException e) {
+            exchange.close();
+        } catch (RuntimeException e) {
+            System.err.println("WebInfoAPI: Erro não tratado em " + exchange.getRequestURI().getPath() + ": " + e);
+            exchange.close();
+        }
+    }
+
+    void shutdown() {
+        if (virtualWorkers == null) {
+            intake.shutdownNow();
+            standardLane.shutdownNow();
+            priorityLane.shutdownNow();
+        } else {
+            virtualWorkers.shutdownNow();
+        }
+        shedLane.shutdownNow();
+    }
+
+    // ---- Métricas ----
+
+    /**
+     * Tarefas esperando: nas filas das faixas e do pool de leitura, ou por uma permissão do
+     * limitador no modo virtual
+     */
+    int queueDepth() {
+        if (virtualWorkers == null) {
+            int depth = intake.getQueue().size() + standardLane.getQueue().size();
+            return priorityLane != standardLane ? depth + priorityLane.getQueue().size() : depth;
+        }
+        return standardPermits.getQueueLength();
+    }
+
+    int queueCapacity() {
+        if (virtualWorkers == null) {
+            int capacity = capacity(intake) + capacity(standardLane);
+            return priorityLane != standardLane ? capacity + capacity(priorityLane) : capacity;
+        }
+        return admissionLimit - concurrencyLimit;
+    }
+
+    /**
+     * Handlers em execução (threads das faixas ocupadas, ou virtual threads com permissão)
+     */
+    int activeThreads() {
+        if (virtualWorkers == null) {
+            int active = standardLane.getActiveCount();
+            return priorityLane != standardLane ? active + priorityLane.getActiveCount() : active;
+        }
+        return Math.max(0, inFlight.get() - standardPermits.getQueueLength());
+    }
+
+    int poolSize() {
+        if (virtualWorkers == null) {
+            int size = standardLane.getPoolSize();
+            return priorityLane != standardLane ? size + priorityLane.getPoolSize() : size;
+        }
+        return inFlight.get();
+    }
+
+    /**
+     * Máximo de handlers simultâneos: max_size ou virtual_max_concurrent
+     */
+    int concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    long rejectedQueueFull() {
+        return queueFull.sum();
+    }
+
+    long rejectedExpired() {
+        return expired.sum();
+    }
+
+    long rejectedPermitTimeout() {
+        return permitTimeouts.sum();
+    }
+
+    long dequeuedCount() {
+        return dequeued.sum();
+    }
+
+    long totalQueueWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    long maxQueueWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    private void recordWait(long waitNanos) {
+        dequeued.increment();
+        totalWaitNanos.add(waitNanos);
+        long max;
+        while (waitNanos > (max = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(max, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    private static int capacity(ThreadPoolExecutor pool) {
+        return pool.getQueue().size() + pool.getQueue().remainingCapacity();
+    }
+
+    /**
+     * Pool de tamanho fixo (as threads expiram quando ociosas) com fila limitada; fila cheia
+     * recusa com RejectedExecutionException
+     */
+    private static ThreadPoolExecutor lane(int threads, int keepAliveSeconds, int queueSize, String name) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, Math.max(1, keepAliveSeconds), TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueSize)), threads(name), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory threads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Envolve a tarefa registrando o instante de enfileiramento; ao rodar, marca na thread
+     * a situação da requisição para {@link #dispatch}
+     */
+    private final class Task implements Runnable {
+        final Runnable task;
+        final int kind;
+        final boolean priority;
+        final long enqueuedAt = System.nanoTime();
+        // Espera acumulada antes desta fila (no pool de leitura), para o prazo valer de ponta a ponta
+        final long waitedBefore;
+
+        Task(Runnable task, int kind) {
+            this.task = task;
+            this.kind = kind;
+            this.priority = false;
+            this.waitedBefore = 0;
+        }
+
+        /**
+         * Tarefa de faixa
+         */
+        Task(Runnable task, boolean priority) {
+            this.task = task;
+            this.kind = ADMITTED;
+            this.priority = priority;
+            long[] state = STATE.get();
+            this.waitedBefore = state != null ? state[1] : 0;
+        }
+
+        @Override
+        public void run() {
+            long waited = System.nanoTime() - enqueuedAt + waitedBefore;
+            if (kind != UNROUTED || virtualWorkers != null) {
+                // No engine "jdk" a espera conta uma vez, ao sair da fila da faixa
+                recordWait(waited);
+            }
+
+            int current = kind;
+            if (current == ADMITTED && !priority && waited > deadlineNanos) {
+                expired.increment();
+                current = EXPIRED;
+            }
+            long[] state = STATE.get();
+            if (state == null) {
+                state = new long[2];
+                STATE.set(state);
+            }
+            state[0] = current;
+            state[1] = waited;
+            try {
+                task.run();
+            } finally {
+                state[0] = UNROUTED;
+                state[1] = 0;
+                if (virtualWorkers != null && kind == UNROUTED) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de respostas já codificadas em UTF-8, por endpoint, com seus validadores
+ * (ETag/Last-Modified) calculados uma vez por entrada.
+ *
+ * Cada entrada vive por um TTL configurável e o número de entradas é limitado.
+ * Misses concorrentes para a mesma chave são colapsados em uma única construção
+ * (single-flight): quem chega depois aguarda o resultado de quem chegou primeiro.
+ */
+final class ResponseCache {
+
+    /**
+     * Constrói o corpo da resposta quando não há entrada válida no cache
+     */
+    interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = true;
+    private volatile long ttlMillis = 30_000L;
+    private volatile int maxEntries = 256;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    void configure(boolean enabled, int ttlSeconds, int maxEntries) {
+        this.enabled = enabled && ttlSeconds > 0;
+        this.ttlMillis = Math.max(0, ttlSeconds) * 1000L;
+        this.maxEntries = Math.max(1, maxEntries);
+        if (!this.enabled) {
+            entries.clear();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retorna o corpo em cache para a chave ou o constrói uma única vez
+     */
+    CachedResponse get(String key, Loader loader) throws IOException {
+        return get(key, null, loader, null);
+    }
+
+    /**
+     * Como {@link #get(String, Loader)}, para corpos gerados a partir de source; validator,
+     * se não for null, gera o conteúdo do ETag fraco (ver {@link CachedResponse})
+     */
+    CachedResponse get(String key, ServerSnapshot source, Loader loader, Loader validator) throws IOException {
+        if (!enabled) {
+            long now = System.currentTimeMillis();
+            return new CachedResponse(loader.load(), validator != null ? validator.load() : null, source, null, now, now);
+        }
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry current = entries.get(key);
+
+            if (current != null && !current.isExpired(now)) {
+                hits.increment();
+                return current.await();
+            }
+
+            Entry fresh = new Entry();
+            boolean owner = current == null
+                ? entries.putIfAbsent(key, fresh) == null
+                : entries.replace(key, current, fresh);
+            if (!owner) {
+                // Outra thread publicou uma entrada entre a leitura e a escrita; tentar de novo
+                continue;
+            }
+
+            misses.increment();
+            CachedResponse body;
+            try {
+                long loadedAt = System.currentTimeMillis();
+                body = new CachedResponse(loader.load(), validator != null ? validator.load() : null, source,
+                    current != null ? current.future.getNow(null) : null, loadedAt, loadedAt + ttlMillis);
+            } catch (IOException | RuntimeException e) {
+                entries.remove(key, fresh);
+                fresh.future.completeExceptionally(e);
+                throw e;
+            }
+            fresh.expiresAt = body.expiresAt;
+            fresh.future.complete(body);
+
+            if (entries.size() > maxEntries) {
+                evict(System.currentTimeMillis());
+            }
+            return body;
+        }
+    }
+
+    /**
+     * Remove entradas expiradas e, se ainda acima do limite, as mais antigas
+     */
+    private void evict(long now) {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+
+        while (entries.size() > maxEntries) {
+            String oldestKey = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                if (entry.future.isDone() && entry.createdAt < oldest) {
+                    oldest = entry.createdAt;
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey == null || entries.remove(oldestKey) == null) {
+                return;
+            }
+            evictions.increment();
+        }
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        final CompletableFuture<CachedResponse> future = new CompletableFuture<>();
+        final long createdAt = System.currentTimeMillis();
+        // Definido quando o corpo fica pronto; até lá a entrada nunca expira
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        CachedResponse await() throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrompido aguardando resposta em cache", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+}
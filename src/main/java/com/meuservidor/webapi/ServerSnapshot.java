@@ -0,0 +1,168 @@
+package com.meuservidor.webapi;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Retrato imutável do estado do servidor (status, mundo e jogadores)
+ * capturado pela thread do jogo e publicado para os handlers HTTP.
+ */
+final class ServerSnapshot {
+
+    // Metadados da captura
+    final long sequence;
+    final long capturedAt;
+
+    // Status do servidor
+    final String serverName;
+    final String serverVersion;
+    final String motd;
+    final boolean hasPassword;
+    final int playersOnline;
+    final int maxPlayers;
+    final int serverPort;
+    final long startTime;
+    final long uptime;
+    final float tps;
+
+    // Mundo
+    final String worldName;
+    final String worldTime;
+    final int worldDay;
+    final long worldSeed;
+    final int biomeCount;
+    final int worldWidth;
+    final int worldHeight;
+    final int spawnX;
+    final int spawnY;
+    final String weather;
+    final String season;
+    final boolean pvpEnabled;
+    final String difficulty;
+    final long gameTime;
+
+    // Jogadores
+    final List<PlayerSnapshot> players;
+
+    // Versão da lista de jogadores: sequência do snapshot em que ela mudou pela última vez.
+    // Definida por SnapshotEngine.publish antes da publicação (até lá, a própria sequência).
+    long playersVersion;
+
+    // Ordenações para /players, calculadas sob demanda
+    private volatile PlayerView playerView;
+
+    /**
+     * Seções JSON completas do snapshot, compartilhadas entre o endpoint próprio e /batch
+     */
+    enum Section {
+        STATUS,
+        PLAYERS,
+        SERVER_INFO,
+        WORLD_INFO
+    }
+
+    // Cada seção codificada uma vez por snapshot e formato (e por variante de configuração)
+    private final AtomicReferenceArray<Encoded> sections =
+        new AtomicReferenceArray<>(Section.values().length * DocumentWriter.Format.values().length);
+
+    ServerSnapshot(Builder b) {
+        this.sequence = b.sequence;
+        this.capturedAt = b.capturedAt;
+        this.serverName = b.serverName;
+        this.serverVersion = b.serverVersion;
+        this.motd = b.motd;
+        this.hasPassword = b.hasPassword;
+        this.playersOnline = b.playersOnline;
+        this.maxPlayers = b.maxPlayers;
+        this.serverPort = b.serverPort;
+        this.startTime = b.startTime;
+        this.uptime = b.capturedAt - b.startTime;
+        this.tps = b.tps;
+        this.worldName = b.worldName;
+        this.worldTime = b.worldTime;
+        this.worldDay = b.worldDay;
+        this.worldSeed = b.worldSeed;
+        this.biomeCount = b.biomeCount;
+        this.worldWidth = b.worldWidth;
+        this.worldHeight = b.worldHeight;
+        this.spawnX = b.spawnX;
+        this.spawnY = b.spawnY;
+        this.weather = b.weather;
+        this.season = b.season;
+        this.pvpEnabled = b.pvpEnabled;
+        this.difficulty = b.difficulty;
+        this.gameTime = b.gameTime;
+        this.players = Collections.unmodifiableList(b.players);
+        this.playersVersion = b.sequence;
+    }
+
+    PlayerView playerView() {
+        PlayerView view = playerView;
+        if (view == null) {
+            playerView = view = new PlayerView(this);
+        }
+        return view;
+    }
+
+    /**
+     * Seção codificada no formato; variant distingue renderizações que dependem da configuração
+     * (campos de jogador permitidos), e uma variante diferente substitui a anterior
+     */
+    byte[] section(Section section, DocumentWriter.Format format, int variant, Function<ServerSnapshot, byte[]> renderer) {
+        int slot = section.ordinal() * DocumentWriter.Format.values().length + format.ordinal();
+        Encoded current = sections.get(slot);
+        if (current == null || current.variant != variant) {
+            current = new Encoded(variant, renderer.apply(this));
+            sections.set(slot, current);
+        }
+        return current.bytes;
+    }
+
+    private static final class Encoded {
+        final int variant;
+        final byte[] bytes;
+
+        Encoded(int variant, byte[] bytes) {
+            this.variant = variant;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Acumulador mutável usado pela thread do jogo durante a captura
+     */
+    static final class Builder {
+        long sequence;
+        long capturedAt;
+        String serverName = "";
+        String serverVersion = "";
+        String motd = "";
+        boolean hasPassword;
+        int playersOnline;
+        int maxPlayers;
+        int serverPort;
+        long startTime;
+        float tps;
+        String worldName = "";
+        String worldTime = "";
+        int worldDay;
+        long worldSeed;
+        int biomeCount;
+        int worldWidth;
+        int worldHeight;
+        int spawnX;
+        int spawnY;
+        String weather = "";
+        String season = "";
+        boolean pvpEnabled;
+        String difficulty = "";
+        long gameTime;
+        List<PlayerSnapshot> players = Collections.emptyList();
+
+        ServerSnapshot build() {
+            return new ServerSnapshot(this);
+        }
+    }
+}
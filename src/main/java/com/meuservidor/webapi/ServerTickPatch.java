@@ -0,0 +1,24 @@
+package com.meuservidor.webapi;
+
+import necesse.engine.modLoader.annotations.ModMethodPatch;
+import necesse.engine.server.Server;
+import net.bytebuddy.asm.Advice;
+
+/**
+ * Patch no tick do servidor: executa na thread do jogo ao final de cada tick
+ * e alimenta o {@link SnapshotEngine} e o {@link TickProfiler} (com o início do
+ * tick marcado na entrada do método).
+ */
+@ModMethodPatch(target = Server.class, name = "tick", arguments = {})
+public class ServerTickPatch {
+
+    @Advice.OnMethodEnter
+    static long onEnter() {
+        return System.nanoTime();
+    }
+
+    @Advice.OnMethodExit
+    static void onExit(@Advice.This Server server, @Advice.Enter long tickStartNanos) {
+        WebInfoAPI.onServerTick(server, tickStartNanos);
+    }
+}
@@ -0,0 +1,171 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Comparações entre dois snapshots consecutivos (entradas/saídas de jogadores,
+ * mudanças de mundo), usadas por quem reage a mudanças em vez de fazer polling.
+ */
+final class SnapshotDiff {
+
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Jogadores presentes em current e ausentes em previous
+     */
+    static List<PlayerSnapshot> joined(ServerSnapshot previous, ServerSnapshot current) {
+        return missingFrom(previous, current);
+    }
+
+    /**
+     * Jogadores presentes em previous e ausentes em current
+     */
+    static List<PlayerSnapshot> left(ServerSnapshot previous, ServerSnapshot current) {
+        return missingFrom(current, previous);
+    }
+
+    static boolean worldChanged(ServerSnapshot previous, ServerSnapshot current) {
+        return previous == null
+            || !previous.worldTime.equals(current.worldTime)
+            || !previous.weather.equals(current.weather)
+            || !previous.season.equals(current.season);
+    }
+
+    /**
+     * Mudanças na lista de jogadores entre uma versão anterior e o snapshot atual,
+     * restritas aos jogadores que passam nos filtros e aos campos da projeção da consulta
+     */
+    static final class PlayerDelta {
+        final List<PlayerSnapshot> added = new ArrayList<>();
+        final List<PlayerSnapshot> changed = new ArrayList<>();
+        // Campos alterados de cada jogador em changed (bits de PlayerQuery), no mesmo índice
+        final List<Integer> changedFields = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+    }
+
+    /**
+     * Quem entrou, saiu ou teve algum campo projetado alterado desde base. Um jogador que
+     * passou a atender (ou deixou de atender) os filtros conta como entrada (ou saída).
+     */
+    static PlayerDelta players(List<PlayerSnapshot> base, List<PlayerSnapshot> current, PlayerQuery query) {
+        PlayerDelta delta = new PlayerDelta();
+        Map<UUID, PlayerSnapshot> before = new HashMap<>(base.size() * 2);
+        for (PlayerSnapshot player : base) {
+            if (query.matches(player)) {
+                before.put(player.uuid, player);
+            }
+        }
+        for (PlayerSnapshot player : current) {
+            if (!query.matches(player)) {
+                continue;
+            }
+            PlayerSnapshot previous = before.remove(player.uuid);
+            if (previous == null) {
+                delta.added.add(player);
+                continue;
+            }
+            int fields = changedFields(previous, player) & query.fields;
+            if (fields != 0) {
+                delta.changed.add(player);
+                delta.changedFields.add(fields);
+            }
+        }
+        for (PlayerSnapshot player : before.values()) {
+            delta.removed.add(player.id);
+        }
+        return delta;
+    }
+
+    /**
+     * Mesma lista, na mesma ordem, sem nenhum campo alterado (online_time à parte, como em
+     * {@link #changedFields}); decide se a versão da lista de jogadores avança
+     */
+    static boolean samePlayers(List<PlayerSnapshot> before, List<PlayerSnapshot> after) {
+        if (before.size() != after.size()) {
+            return false;
+        }
+        for (int i = 0; i < before.size(); i++) {
+            PlayerSnapshot a = before.get(i);
+            PlayerSnapshot b = after.get(i);
+            if (!Objects.equals(a.uuid, b.uuid) || changedFields(a, b) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Campos (bits de PlayerQuery) com valores diferentes entre duas capturas do mesmo
+     * jogador. online_time não entra: cresce a cada captura e o cliente pode derivá-lo.
+     */
+    static int changedFields(PlayerSnapshot before, PlayerSnapshot after) {
+        int fields = 0;
+        if (!before.name.equals(after.name)) {
+            fields |= PlayerQuery.NAME;
+        }
+        if (before.latency != after.latency) {
+            fields |= PlayerQuery.LATENCY;
+        }
+        if (before.levelId != after.levelId) {
+            fields |= PlayerQuery.LEVEL_ID;
+        }
+        if (Float.floatToIntBits(before.x) != Float.floatToIntBits(after.x)
+            || Float.floatToIntBits(before.y) != Float.floatToIntBits(after.y)) {
+            fields |= PlayerQuery.POSITION;
+        }
+        if (!before.biome.equals(after.biome)) {
+            fields |= PlayerQuery.BIOME;
+        }
+        if (before.health != after.health || before.maxHealth != after.maxHealth) {
+            fields |= PlayerQuery.HEALTH;
+        }
+        if (before.mana != after.mana || before.maxMana != after.maxMana) {
+            fields |= PlayerQuery.MANA;
+        }
+        if (before.admin != after.admin) {
+            fields |= PlayerQuery.IS_ADMIN;
+        }
+        if (!before.playerClass.equals(after.playerClass)) {
+            fields |= PlayerQuery.PLAYER_CLASS;
+        }
+        if (before.playerLevel != after.playerLevel) {
+            fields |= PlayerQuery.PLAYER_LEVEL;
+        }
+        if (before.experience != after.experience) {
+            fields |= PlayerQuery.EXPERIENCE;
+        }
+        return fields;
+    }
+
+    /**
+     * Elementos de source cujo UUID não aparece em reference
+     */
+    private static List<PlayerSnapshot> missingFrom(ServerSnapshot reference, ServerSnapshot source) {
+        if (source == null || source.players.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (reference == null || reference.players.isEmpty()) {
+            return new ArrayList<>(source.players);
+        }
+
+        Set<UUID> known = new HashSet<>(reference.players.size() * 2);
+        for (PlayerSnapshot player : reference.players) {
+            known.add(player.uuid);
+        }
+        List<PlayerSnapshot> result = new ArrayList<>();
+        for (PlayerSnapshot player : source.players) {
+            if (!known.contains(player.uuid)) {
+                result.add(player);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,190 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import necesse.engine.server.Server;
+import necesse.engine.server.player.ServerPlayer;
+
+/**
+ * Captura periódica do estado do jogo.
+ *
+ * A captura acontece na thread do jogo (ver {@link ServerTickPatch}) a cada N ticks
+ * e o resultado é publicado com uma única escrita volátil. As threads HTTP apenas
+ * leem {@link #latest()}, sem nunca tocar em objetos vivos do servidor.
+ */
+final class SnapshotEngine {
+
+    /**
+     * Notificado na thread do jogo logo após cada publicação; deve ser barato
+     * (tipicamente apenas repassa o snapshot para outra thread).
+     */
+    interface Listener {
+        void onSnapshot(ServerSnapshot previous, ServerSnapshot current);
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ServerSnapshot latest;
+    private volatile int intervalTicks;
+    // Thread que executa o tick (para a CPU por thread de /jvm); -1 até o primeiro tick
+    private volatile long gameThreadId = -1;
+
+    // Acessados apenas pela thread do jogo
+    private long sequence;
+    private int ticksSinceCapture;
+
+    SnapshotEngine(int intervalTicks) {
+        setIntervalTicks(intervalTicks);
+    }
+
+    void setIntervalTicks(int intervalTicks) {
+        this.intervalTicks = Math.max(1, intervalTicks);
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Id da thread do jogo, visto na última captura; -1 se o servidor ainda não rodou
+     */
+    long gameThreadId() {
+        return gameThreadId;
+    }
+
+    /**
+     * Último snapshot publicado, ou null se nenhum tick foi capturado ainda
+     */
+    ServerSnapshot latest() {
+        return latest;
+    }
+
+    /**
+     * Chamado pela thread do jogo ao final de cada tick do servidor
+     */
+    void onServerTick(Server server) {
+        if (server == null) {
+            return;
+        }
+        if (ticksSinceCapture == 0) {
+            gameThreadId = Thread.currentThread().getId();
+        }
+        if (++ticksSinceCapture < intervalTicks && latest != null) {
+            return;
+        }
+        ticksSinceCapture = 0;
+
+        ServerSnapshot current;
+        try {
+            current = capture(server, ++sequence);
+        } catch (RuntimeException e) {
+            // Um tick com estado inconsistente não deve derrubar o servidor; o próximo tenta de novo
+            System.err.println("WebInfoAPI: Falha ao capturar snapshot do servidor: " + e);
+            return;
+        }
+        publish(current);
+    }
+
+    /**
+     * Publica um snapshot e notifica os listeners. Chamado pela thread do jogo após a
+     * captura, ou por quem a substitui fora do jogo (benchmarks); sempre por uma única thread.
+     */
+    void publish(ServerSnapshot current) {
+        ServerSnapshot previous = latest;
+        if (previous != null && SnapshotDiff.samePlayers(previous.players, current.players)) {
+            current.playersVersion = previous.playersVersion;
+        }
+        latest = current;
+
+        for (Listener listener : listeners) {
+            try {
+                listener.onSnapshot(previous, current);
+            } catch (RuntimeException e) {
+                System.err.println("WebInfoAPI: Erro em listener de snapshot: " + e);
+            }
+        }
+    }
+
+    /**
+     * Descarta o snapshot atual (usado quando o servidor para)
+     */
+    void reset() {
+        latest = null;
+        ticksSinceCapture = 0;
+    }
+
+    private static ServerSnapshot capture(Server server, long sequence) {
+        long now = System.currentTimeMillis();
+        ServerSnapshot.Builder b = new ServerSnapshot.Builder();
+        b.sequence = sequence;
+        b.capturedAt = now;
+
+        // Status
+        String password = server.getPassword();
+        b.serverName = nonNull(server.getServerName());
+        b.serverVersion = nonNull(server.getVersion());
+        b.motd = nonNull(server.getMotd());
+        b.hasPassword = password != null && !password.isEmpty();
+        b.playersOnline = server.getPlayersOnline();
+        b.maxPlayers = server.getSlots();
+        b.serverPort = server.getPort();
+        b.startTime = server.getStartTime();
+        b.tps = server.getTPS();
+
+        // Mundo
+        if (server.world != null && server.world.worldEntity != null) {
+            b.worldName = nonNull(server.world.worldEntity.getWorldName());
+            b.worldTime = nonNull(server.world.worldEntity.getTime().getTimeOfDayString());
+            b.worldDay = server.world.worldEntity.getTime().getDay();
+            b.worldSeed = server.world.worldEntity.getSeed();
+            b.biomeCount = server.world.biomeManager.getBiomes().size();
+            b.worldWidth = server.world.width;
+            b.worldHeight = server.world.height;
+            b.spawnX = server.world.worldEntity.getSpawnX();
+            b.spawnY = server.world.worldEntity.getSpawnY();
+            b.weather = server.world.weatherManager.getCurrentWeather().name();
+            b.season = server.world.worldEntity.getTime().getSeason().name();
+            b.pvpEnabled = server.world.worldEntity.isPvPEnabled();
+            b.difficulty = server.world.worldEntity.getDifficulty().name();
+            b.gameTime = server.world.worldEntity.getTime().getTotalTicks();
+        }
+
+        // Jogadores
+        List<PlayerSnapshot> players = new ArrayList<>(Math.max(b.playersOnline, 4));
+        for (ServerPlayer player : server.getPlayers()) {
+            if (player == null) {
+                continue;
+            }
+            PlayerSnapshot.Builder p = new PlayerSnapshot.Builder();
+            p.name = nonNull(player.playerName);
+            p.uuid = player.getUUID();
+            p.latency = player.latency;
+            p.levelId = player.getLevel() != null ? player.getLevel().getIdentifier() : 0;
+            p.x = player.x;
+            p.y = player.y;
+            p.biome = player.getLevel() != null ? player.getLevel().biome.getStringID() : "unknown";
+            p.health = player.getHealth();
+            p.maxHealth = player.getMaxHealth();
+            p.mana = player.getMana();
+            p.maxMana = player.getMaxMana();
+            p.joinTime = player.getJoinTime();
+            p.onlineTime = now - p.joinTime;
+            p.admin = player.isServerClient();
+            p.playerClass = nonNull(player.playerMob.getStringID());
+            p.playerLevel = player.getStats().getLevel();
+            p.experience = player.getStats().getExp();
+            players.add(p.build());
+        }
+        b.players = players;
+
+        return b.build();
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+}
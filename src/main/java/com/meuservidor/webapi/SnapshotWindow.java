@@ -0,0 +1,74 @@
+package com.meuservidor.webapi;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Últimas N versões da lista de jogadores, para /players?since=.
+ *
+ * Uma versão é a sequência do snapshot em que a lista mudou ({@link ServerSnapshot#playersVersion});
+ * snapshots que não mudam nada não ocupam o anel. Guarda apenas a lista de jogadores de cada
+ * versão (não o snapshot inteiro com as seções já codificadas), em ordem de chegada. Escrito só
+ * pela thread do jogo (listener do SnapshotEngine) e lido pelas threads HTTP sem bloqueio.
+ */
+final class SnapshotWindow implements SnapshotEngine.Listener {
+
+    private static final class Entry {
+        final long version;
+        final List<PlayerSnapshot> players;
+
+        Entry(long version, List<PlayerSnapshot> players) {
+            this.version = version;
+            this.players = players;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry> ring = new AtomicReferenceArray<>(0);
+    // Posição da próxima escrita; só a thread do jogo escreve
+    private long written;
+
+    /**
+     * Redimensiona o anel; as versões guardadas até aqui são descartadas
+     * (clientes com uma delas recebem a lista completa uma vez)
+     */
+    void configure(int capacity) {
+        if (capacity != ring.length()) {
+            ring = new AtomicReferenceArray<>(Math.max(0, capacity));
+        }
+    }
+
+    @Override
+    public void onSnapshot(ServerSnapshot previous, ServerSnapshot current) {
+        AtomicReferenceArray<Entry> entries = ring;
+        if (entries.length() > 0 && (previous == null || previous.playersVersion != current.playersVersion)) {
+            entries.set((int) (written++ % entries.length()), new Entry(current.playersVersion, current.players));
+        }
+    }
+
+    /**
+     * Jogadores como estavam no snapshot com essa sequência: os da maior versão retida que
+     * não passa dela. O anel guarda as últimas mudanças sem lacunas, então essa versão vale
+     * até a sequência pedida; null se ela for anterior a todas as versões retidas.
+     */
+    List<PlayerSnapshot> players(long sequence) {
+        AtomicReferenceArray<Entry> entries = ring;
+        if (entries.length() == 0 || sequence < 0) {
+            return null;
+        }
+        Entry floor = null;
+        for (int i = 0; i < entries.length(); i++) {
+            Entry entry = entries.get(i);
+            if (entry != null && entry.version <= sequence && (floor == null || entry.version > floor.version)) {
+                floor = entry;
+            }
+        }
+        return floor != null ? floor.players : null;
+    }
+
+    /**
+     * Esquece todas as versões (servidor parado)
+     */
+    void clear() {
+        ring = new AtomicReferenceArray<>(ring.length());
+    }
+}
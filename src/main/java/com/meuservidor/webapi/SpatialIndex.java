@@ -0,0 +1,208 @@
+package com.meuservidor.webapi;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial dos jogadores de um snapshot: uma grade uniforme por nível.
+ *
+ * Só as células ocupadas existem. Elas ficam numa tabela hash de endereçamento aberto
+ * (chave = coordenadas da célula) e os jogadores de cada célula ficam contíguos num único
+ * array (layout CSR), então a montagem é O(n) e sem objetos por célula. Uma consulta visita
+ * apenas as células que intersectam a área (ou as ocupadas, se forem menos), e o custo
+ * acompanha o tamanho da resposta, não o total de jogadores.
+ */
+final class SpatialIndex {
+
+    // Lado da célula, em unidades de mundo (pixels; 16 tiles de 32)
+    static final float CELL_SIZE = 512f;
+
+    private final PlayerSnapshot[] players;
+    private final Map<Integer, Grid> grids = new HashMap<>();
+
+    SpatialIndex(PlayerSnapshot[] players) {
+        this.players = players;
+
+        // Separar os índices dos jogadores por nível (contagem e depois preenchimento)
+        Map<Integer, int[]> remaining = new HashMap<>();
+        for (PlayerSnapshot player : players) {
+            remaining.computeIfAbsent(player.levelId, l -> new int[1])[0]++;
+        }
+        Map<Integer, int[]> byLevel = new HashMap<>();
+        for (int i = 0; i < players.length; i++) {
+            int[] left = remaining.get(players[i].levelId);
+            int[] members = byLevel.computeIfAbsent(players[i].levelId, l -> new int[left[0]]);
+            members[members.length - left[0]--] = i;
+        }
+        for (Map.Entry<Integer, int[]> entry : byLevel.entrySet()) {
+            grids.put(entry.getKey(), new Grid(players, entry.getValue()));
+        }
+    }
+
+    /**
+     * Jogadores do nível a no máximo radius de (x, y), adicionados em out
+     */
+    void near(int levelId, float x, float y, float radius, List<PlayerSnapshot> out) {
+        Grid grid = grids.get(levelId);
+        if (grid == null || radius < 0) {
+            return;
+        }
+        double radiusSquared = (double) radius * radius;
+        grid.visit(x - radius, y - radius, x + radius, y + radius, index -> {
+            PlayerSnapshot player = players[index];
+            double dx = player.x - x;
+            double dy = player.y - y;
+            if (dx * dx + dy * dy <= radiusSquared) {
+                out.add(player);
+            }
+        });
+    }
+
+    /**
+     * Jogadores do nível dentro do retângulo [minX, maxX] x [minY, maxY], adicionados em out
+     */
+    void region(int levelId, float minX, float minY, float maxX, float maxY, List<PlayerSnapshot> out) {
+        Grid grid = grids.get(levelId);
+        if (grid == null) {
+            return;
+        }
+        grid.visit(minX, minY, maxX, maxY, index -> {
+            PlayerSnapshot player = players[index];
+            if (player.x >= minX && player.x <= maxX && player.y >= minY && player.y <= maxY) {
+                out.add(player);
+            }
+        });
+    }
+
+    private interface IndexVisitor {
+        void visit(int playerIndex);
+    }
+
+    static int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    /**
+     * Grade de um nível: tabela hash célula -> id da célula e jogadores agrupados por célula
+     */
+    private static final class Grid {
+        private final long[] tableKeys;
+        private final int[] tableCells;
+        private final int mask;
+
+        // Por célula ocupada: coordenadas e faixa [cellStart[c], cellStart[c + 1]) em entries
+        private final long[] cellKeys;
+        private final int[] cellStart;
+        private final int[] entries;
+        private final int cellCount;
+
+        Grid(PlayerSnapshot[] players, int[] members) {
+            int capacity = Integer.highestOneBit(Math.max(4, members.length * 2) - 1) << 1;
+            tableKeys = new long[capacity];
+            tableCells = new int[capacity];
+            Arrays.fill(tableCells, -1);
+            mask = capacity - 1;
+
+            // 1ª passada: descobrir células e contar jogadores em cada uma
+            int[] cellOfMember = new int[members.length];
+            long[] discovered = new long[members.length];
+            int[] counts = new int[members.length + 1];
+            int cells = 0;
+            for (int m = 0; m < members.length; m++) {
+                PlayerSnapshot player = players[members[m]];
+                long key = cellKey(cellOf(player.x), cellOf(player.y));
+                int slot = slotOf(key);
+                if (tableCells[slot] < 0) {
+                    tableKeys[slot] = key;
+                    tableCells[slot] = cells;
+                    discovered[cells] = key;
+                    cells++;
+                }
+                int cell = tableCells[slot];
+                cellOfMember[m] = cell;
+                counts[cell + 1]++;
+            }
+
+            // Somas de prefixo e 2ª passada: distribuir os jogadores
+            for (int c = 0; c < cells; c++) {
+                counts[c + 1] += counts[c];
+            }
+            cellStart = counts;
+            entries = new int[members.length];
+            int[] cursor = new int[cells];
+            for (int m = 0; m < members.length; m++) {
+                int cell = cellOfMember[m];
+                entries[cellStart[cell] + cursor[cell]++] = members[m];
+            }
+            cellKeys = discovered;
+            cellCount = cells;
+        }
+
+        private int slotOf(long key) {
+            int slot = (int) mix(key) & mask;
+            while (tableCells[slot] >= 0 && tableKeys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int find(long key) {
+            int slot = slotOf(key);
+            return tableCells[slot];
+        }
+
+        void visit(float minX, float minY, float maxX, float maxY, IndexVisitor visitor) {
+            int minCx = cellOf(minX);
+            int maxCx = cellOf(maxX);
+            int minCy = cellOf(minY);
+            int maxCy = cellOf(maxY);
+            long width = (long) maxCx - minCx + 1;
+            long height = (long) maxCy - minCy + 1;
+
+            // Comparação em etapas: width * height pode estourar um long
+            if (width <= cellCount && height <= cellCount && width * height <= cellCount) {
+                // Contadores long: evitam estouro quando a área encosta em Integer.MAX_VALUE
+                for (long cx = minCx; cx <= maxCx; cx++) {
+                    for (long cy = minCy; cy <= maxCy; cy++) {
+                        int cell = find(cellKey((int) cx, (int) cy));
+                        if (cell >= 0) {
+                            visitCell(cell, visitor);
+                        }
+                    }
+                }
+                return;
+            }
+
+            // Área maior que o número de células ocupadas: percorrer as ocupadas
+            for (int cell = 0; cell < cellCount; cell++) {
+                int cx = (int) (cellKeys[cell] >> 32);
+                int cy = (int) cellKeys[cell];
+                if (cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy) {
+                    visitCell(cell, visitor);
+                }
+            }
+        }
+
+        private void visitCell(int cell, IndexVisitor visitor) {
+            for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                visitor.visit(entries[i]);
+            }
+        }
+
+        private static long mix(long key) {
+            // Finalizador do MurmurHash3: espalha chaves de células vizinhas pela tabela
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            key *= 0xc4ceb9fe1a85ec53L;
+            key ^= key >>> 33;
+            return key;
+        }
+    }
+}
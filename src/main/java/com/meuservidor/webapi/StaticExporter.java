@@ -0,0 +1,262 @@
+package com.meuservidor.webapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exportação estática: grava /status, /players, /world-info e /server-info como arquivos
+ * (status.json, players.json, ...) num diretório, para um nginx/CDN servir direto do disco
+ * sem passar pela JVM. Com gzip ligado, cada arquivo ganha um .json.gz ao lado (para
+ * gzip_static).
+ *
+ * Cada arquivo é escrito num temporário no mesmo diretório, sincronizado com fsync e
+ * renomeado atomicamente por cima do anterior: quem lê vê a versão antiga ou a nova
+ * inteira, nunca metade, mesmo depois de uma queda de energia. Um arquivo só é regravado
+ * quando o validador do recurso muda (o mesmo critério do ETag do endpoint: em world-info
+ * e server-info, os campos de relógio sozinhos não contam).
+ *
+ * A gravação acontece numa thread própria, a cada snapshot (intervalo 0: se ela estiver
+ * ocupada, os snapshots intermediários são pulados e só o mais recente é gravado) ou em
+ * intervalo fixo.
+ */
+final class StaticExporter implements SnapshotEngine.Listener {
+
+    /**
+     * Recursos exportáveis: nome em api.export.endpoints e arquivo gerado
+     */
+    enum Resource {
+        STATUS("status", "status.json"),
+        PLAYERS("players", "players.json"),
+        WORLD_INFO("world_info", "world-info.json"),
+        SERVER_INFO("server_info", "server-info.json");
+
+        final String param;
+        final String fileName;
+
+        Resource(String param, String fileName) {
+            this.param = param;
+            this.fileName = fileName;
+        }
+
+        static Resource fromParam(String param) {
+            for (Resource resource : values()) {
+                if (resource.param.equals(param)) {
+                    return resource;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Bytes de um recurso para um snapshot: o corpo JSON (o mesmo servido pelo endpoint)
+     * ou a base do seu validador
+     */
+    interface Renderer {
+        byte[] render(Resource resource, ServerSnapshot snapshot);
+    }
+
+    private final SnapshotEngine snapshots;
+    private final Path directory;
+    private final Resource[] resources;
+    private final boolean gzip;
+    private final Renderer renderer;
+    private final Renderer validator;
+    private final Compression compression;
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Acessados apenas pela thread de exportação; validador do último conteúdo gravado
+    private final byte[][] written;
+    private long exportedSequence = -1;
+
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder filesUnchanged = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private StaticExporter(SnapshotEngine snapshots, Path directory, Set<Resource> resources, boolean gzip,
+                           Renderer renderer, Renderer validator, Compression compression) {
+        this.snapshots = snapshots;
+        this.directory = directory;
+        this.resources = resources.toArray(new Resource[0]);
+        this.gzip = gzip;
+        this.renderer = renderer;
+        this.validator = validator;
+        this.compression = compression;
+        this.written = new byte[Resource.values().length][];
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-Export");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Inicia a exportação; intervalMillis 0 grava a cada snapshot publicado.
+     * Retorna null se o diretório não puder ser criado.
+     */
+    static StaticExporter start(SnapshotEngine snapshots, Path directory, Set<Resource> resources, boolean gzip,
+                                int intervalMillis, Renderer renderer, Renderer validator, Compression compression) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            System.err.println("WebInfoAPI: Exportação estática desativada, diretório inválido (" + directory + "): " + e.getMessage());
+            return null;
+        }
+        StaticExporter exporter = new StaticExporter(snapshots, directory,
+            resources.isEmpty() ? EnumSet.allOf(Resource.class) : resources, gzip, renderer, validator, compression);
+        if (intervalMillis > 0) {
+            exporter.writer.scheduleAtFixedRate(exporter::exportSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            snapshots.addListener(exporter);
+        }
+        return exporter;
+    }
+
+    @Override
+    public void onSnapshot(ServerSnapshot previous, ServerSnapshot current) {
+        // Na thread do jogo: só agenda, e só se ainda não houver uma exportação na fila
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::exportSafely);
+            } catch (RejectedExecutionException e) {
+                // Exportador parado
+            }
+        }
+    }
+
+    private void exportSafely() {
+        scheduled.set(false);
+        try {
+            export();
+        } catch (RuntimeException e) {
+            failures.increment();
+            System.err.println("WebInfoAPI: Falha na exportação estática: " + e);
+        }
+    }
+
+    private void export() {
+        ServerSnapshot snapshot = snapshots.latest();
+        if (snapshot == null || snapshot.sequence == exportedSequence) {
+            return;
+        }
+        boolean changed = false;
+        for (Resource resource : resources) {
+            byte[] version = validator.render(resource, snapshot);
+            byte[] previous = written[resource.ordinal()];
+            if (Arrays.equals(version, previous)) {
+                filesUnchanged.increment();
+                continue;
+            }
+            byte[] body = renderer.render(resource, snapshot);
+            try {
+                // Só na primeira exportação o disco é consultado; depois vale o último conteúdo gravado
+                boolean first = previous == null;
+                if (first && isCurrent(resource.fileName, body)) {
+                    filesUnchanged.increment();
+                } else {
+                    write(resource.fileName, body);
+                    changed = true;
+                }
+                if (gzip) {
+                    byte[] compressed = compression.encode(body, Compression.Encoding.GZIP);
+                    if (!first || !isCurrent(resource.fileName + ".gz", compressed)) {
+                        write(resource.fileName + ".gz", compressed);
+                        changed = true;
+                    }
+                }
+                written[resource.ordinal()] = version;
+            } catch (IOException e) {
+                failures.increment();
+                System.err.println("WebInfoAPI: Falha ao exportar " + resource.fileName + ": " + e.getMessage());
+            }
+        }
+        if (changed) {
+            syncDirectory();
+        }
+        exportedSequence = snapshot.sequence;
+    }
+
+    /**
+     * Se o arquivo já tem exatamente esse conteúdo (ex.: gravado antes de um reinício)
+     */
+    private boolean isCurrent(String fileName, byte[] body) throws IOException {
+        Path file = directory.resolve(fileName);
+        try {
+            return Files.size(file) == body.length && Arrays.equals(Files.readAllBytes(file), body);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Temporário no mesmo diretório, fsync e rename atômico por cima do anterior
+     */
+    private void write(String fileName, byte[] body) throws IOException {
+        Path target = directory.resolve(fileName);
+        Path temp = directory.resolve("." + fileName + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        filesWritten.increment();
+    }
+
+    /**
+     * fsync do diretório para o rename sobreviver a uma queda (não suportado no Windows)
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Sistema de arquivos sem fsync de diretório
+        }
+    }
+
+    long filesWritten() {
+        return filesWritten.sum();
+    }
+
+    long filesUnchanged() {
+        return filesUnchanged.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    void stop() {
+        snapshots.removeListener(this);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.meuservidor.webapi;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+import oshi.hardware.GlobalMemory;
+import oshi.hardware.HardwareAbstractionLayer;
+import oshi.software.os.OperatingSystem;
+
+/**
+ * Amostragem de telemetria do sistema em segundo plano via OSHI.
+ *
+ * Mantém uma única instância de SystemInfo durante a vida do processo e coleta
+ * CPU, memória, processos e threads em intervalo fixo. O uso de CPU é calculado
+ * entre duas amostras consecutivas, e as médias de 1/5/15 minutos vêm de um buffer
+ * circular preenchido apenas pela thread de amostragem.
+ */
+final class SystemSampler {
+
+    private static final long MINUTE = 60_000L;
+
+    /**
+     * Leitura imutável publicada a cada amostragem
+     */
+    static final class Sample {
+        final long timestamp;
+        final double cpuUsage;
+        final double cpuAvg1m;
+        final double cpuAvg5m;
+        final double cpuAvg15m;
+        final long memoryTotal;
+        final long memoryUsed;
+        final long memoryAvailable;
+        final int processCount;
+        final int threadCount;
+
+        Sample(long timestamp, double cpuUsage, double cpuAvg1m, double cpuAvg5m, double cpuAvg15m,
+               long memoryTotal, long memoryAvailable, int processCount, int threadCount) {
+            this.timestamp = timestamp;
+            this.cpuUsage = cpuUsage;
+            this.cpuAvg1m = cpuAvg1m;
+            this.cpuAvg5m = cpuAvg5m;
+            this.cpuAvg15m = cpuAvg15m;
+            this.memoryTotal = memoryTotal;
+            this.memoryUsed = memoryTotal - memoryAvailable;
+            this.memoryAvailable = memoryAvailable;
+            this.processCount = processCount;
+            this.threadCount = threadCount;
+        }
+    }
+
+    // Informações estáticas, lidas uma vez
+    final String osName;
+    final String osVersion;
+    final int physicalCores;
+    final int logicalProcessors;
+    final String cpuModel;
+
+    private final CentralProcessor processor;
+    private final GlobalMemory memory;
+    private final OperatingSystem os;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+
+    // Buffer circular de CPU, acessado apenas pela thread de amostragem
+    private final long[] timestamps;
+    private final double[] cpuHistory;
+    private int head;
+    private int count;
+    private long[] previousTicks;
+
+    private volatile Sample latest;
+
+    private SystemSampler(long intervalMillis) {
+        SystemInfo systemInfo = new SystemInfo();
+        HardwareAbstractionLayer hal = systemInfo.getHardware();
+        this.os = systemInfo.getOperatingSystem();
+        this.processor = hal.getProcessor();
+        this.memory = hal.getMemory();
+        this.intervalMillis = intervalMillis;
+
+        this.osName = os.getFamily();
+        this.osVersion = os.getVersionInfo().getVersion();
+        this.physicalCores = processor.getPhysicalProcessorCount();
+        this.logicalProcessors = processor.getLogicalProcessorCount();
+        this.cpuModel = processor.getProcessorIdentifier().getName();
+
+        int capacity = (int) (15 * MINUTE / intervalMillis) + 1;
+        this.timestamps = new long[capacity];
+        this.cpuHistory = new double[capacity];
+        this.previousTicks = processor.getSystemCpuLoadTicks();
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "WebInfoAPI-SystemSampler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Inicia a amostragem; retorna null se o OSHI não estiver disponível
+     */
+    static SystemSampler start(int intervalMillis) {
+        try {
+            SystemSampler sampler = new SystemSampler(Math.max(250, intervalMillis));
+            sampler.executor.scheduleAtFixedRate(sampler::sampleSafely,
+                sampler.intervalMillis, sampler.intervalMillis, TimeUnit.MILLISECONDS);
+            return sampler;
+        } catch (LinkageError | RuntimeException e) {
+            System.err.println("WebInfoAPI: OSHI indisponível, /system usará informações básicas: " + e);
+            return null;
+        }
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Última amostra, ou null se a primeira ainda não foi coletada
+     */
+    Sample latest() {
+        return latest;
+    }
+
+    private void sampleSafely() {
+        try {
+            sample();
+        } catch (Throwable t) {
+            // Uma falha isolada não deve cancelar o agendamento
+            System.err.println("WebInfoAPI: Falha na amostragem do sistema: " + t);
+        }
+    }
+
+    private void sample() {
+        long now = System.currentTimeMillis();
+
+        long[] ticks = processor.getSystemCpuLoadTicks();
+        double cpuUsage = processor.getSystemCpuLoadBetweenTicks(previousTicks) * 100;
+        previousTicks = ticks;
+
+        long memoryTotal = memory.getTotal();
+        long memoryAvailable = memory.getAvailable();
+        int processCount = os.getProcessCount();
+        int threadCount = os.getThreadCount();
+
+        timestamps[head] = now;
+        cpuHistory[head] = cpuUsage;
+        head = (head + 1) % timestamps.length;
+        if (count < timestamps.length) {
+            count++;
+        }
+
+        latest = new Sample(now, cpuUsage,
+            cpuAverage(now - MINUTE), cpuAverage(now - 5 * MINUTE), cpuAverage(now - 15 * MINUTE),
+            memoryTotal, memoryAvailable, processCount, threadCount);
+    }
+
+    /**
+     * Média de CPU das amostras com timestamp a partir de since
+     */
+    private double cpuAverage(long since) {
+        double sum = 0;
+        int samples = 0;
+        for (int i = 1; i <= count; i++) {
+            int index = (head - i + timestamps.length) % timestamps.length;
+            if (timestamps[index] < since) {
+                break;
+            }
+            sum += cpuHistory[index];
+            samples++;
+        }
+        return samples > 0 ? sum / samples : 0;
+    }
+}
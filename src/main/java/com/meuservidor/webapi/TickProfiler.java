@@ -0,0 +1,274 @@
+package com.meuservidor.webapi;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Duração de cada tick do servidor para /performance: p50/p95/p99/máximo em janelas
+ * deslizantes de 10s, 1m e 5m e os piores ticks recentes.
+ *
+ * A thread do jogo é a única que escreve: cada segundo tem um histograma log-linear
+ * (8 sub-buckets por potência de dois, ~12% de erro) num anel de 300 segundos, e o
+ * registro é só o cálculo do bucket e alguns lazySet, sem CAS, locks nem alocação.
+ * As threads HTTP somam os segundos da janela na hora da leitura.
+ */
+final class TickProfiler implements SnapshotEngine.Listener {
+
+    // Janelas de /performance, em segundos
+    static final int[] WINDOWS = {10, 60, 300};
+    private static final int SLOTS = 300;
+
+    // Microssegundos exatos até 8; depois 8 sub-buckets por potência de dois, até 2^22 µs (~4s)
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 22;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB;
+
+    // Campos por segundo em meta: segundo (nanoTime / 1e9), ticks, soma e pior tick com contexto
+    private static final int META = 8;
+    private static final int SECOND = 0;
+    private static final int TICKS = 1;
+    private static final int SUM_MICROS = 2;
+    private static final int WORST_MICROS = 3;
+    private static final int WORST_AT = 4;
+    private static final int WORST_TICK = 5;
+    private static final int WORST_PLAYERS = 6;
+    private static final int WORST_LEVELS = 7;
+
+    /**
+     * Agregado de uma janela
+     */
+    static final class Window {
+        final int seconds;
+        final long ticks;
+        final double meanMs;
+        final double p50Ms;
+        final double p95Ms;
+        final double p99Ms;
+        final double maxMs;
+        final long slowTicks;
+
+        Window(int seconds, long ticks, double meanMs, double p50Ms, double p95Ms, double p99Ms, double maxMs,
+               long slowTicks) {
+            this.seconds = seconds;
+            this.ticks = ticks;
+            this.meanMs = meanMs;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+            this.slowTicks = slowTicks;
+        }
+    }
+
+    /**
+     * Pior tick de um segundo, com o estado do servidor naquele momento
+     */
+    static final class SlowTick {
+        final long timestamp;
+        final double durationMs;
+        final long tick;
+        final int players;
+        final int levels;
+
+        SlowTick(long timestamp, double durationMs, long tick, int players, int levels) {
+            this.timestamp = timestamp;
+            this.durationMs = durationMs;
+            this.tick = tick;
+            this.players = players;
+            this.levels = levels;
+        }
+    }
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SLOTS * BUCKETS);
+    private final AtomicLongArray meta = new AtomicLongArray(SLOTS * META);
+    private final AtomicLongArray totals = new AtomicLongArray(1);
+
+    // Acessados apenas pela thread do jogo
+    private long currentSecond = Long.MIN_VALUE;
+    private int currentSlot;
+    private long tickCount;
+    private int players;
+    private int levels;
+
+    TickProfiler() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            meta.set(slot * META + SECOND, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Registra um tick; chamado pela thread do jogo ao final dele
+     */
+    void record(long startNanos, long endNanos) {
+        long second = endNanos / 1_000_000_000L;
+        if (second != currentSecond) {
+            rotate(second);
+        }
+        long micros = Math.max(0, (endNanos - startNanos) / 1_000);
+        int slot = currentSlot;
+        int bucket = slot * BUCKETS + bucketIndex(micros);
+        buckets.lazySet(bucket, buckets.get(bucket) + 1);
+
+        int m = slot * META;
+        meta.lazySet(m + TICKS, meta.get(m + TICKS) + 1);
+        meta.lazySet(m + SUM_MICROS, meta.get(m + SUM_MICROS) + micros);
+        tickCount++;
+        if (micros > meta.get(m + WORST_MICROS)) {
+            meta.lazySet(m + WORST_AT, System.currentTimeMillis());
+            meta.lazySet(m + WORST_TICK, tickCount);
+            meta.lazySet(m + WORST_PLAYERS, players);
+            meta.lazySet(m + WORST_LEVELS, levels);
+            meta.set(m + WORST_MICROS, micros);
+        }
+        totals.lazySet(0, tickCount);
+    }
+
+    /**
+     * Começa um segundo novo no anel, apagando o que havia nele
+     */
+    private void rotate(long second) {
+        int slot = (int) Math.floorMod(second, (long) SLOTS);
+        int m = slot * META;
+        // Marca o segundo como inválido enquanto é limpo, para a leitura ignorá-lo
+        meta.set(m + SECOND, Long.MIN_VALUE);
+        for (int i = 1; i < META; i++) {
+            meta.lazySet(m + i, 0);
+        }
+        int base = slot * BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.lazySet(base + i, 0);
+        }
+        meta.set(m + SECOND, second);
+        currentSecond = second;
+        currentSlot = slot;
+    }
+
+    @Override
+    public void onSnapshot(ServerSnapshot previous, ServerSnapshot current) {
+        // Contexto gravado junto dos piores ticks; na thread do jogo, como record()
+        Set<Integer> levelIds = new HashSet<>();
+        for (PlayerSnapshot player : current.players) {
+            levelIds.add(player.levelId);
+        }
+        players = current.playersOnline;
+        levels = levelIds.size();
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < SUB) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + sub;
+    }
+
+    /**
+     * Maior valor (µs) que cai no bucket
+     */
+    static long bucketUpperMicros(int index) {
+        if (index < SUB) {
+            return index;
+        }
+        int exponent = index / SUB + SUB_BITS - 1;
+        int sub = index % SUB;
+        return ((long) (SUB + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    // ---- Leitura ----
+
+    /**
+     * Ticks registrados desde o início
+     */
+    long totalTicks() {
+        return totals.get(0);
+    }
+
+    /**
+     * Agregado dos últimos seconds segundos (incluindo o atual)
+     */
+    Window window(int seconds, long slowMicros) {
+        long now = System.nanoTime() / 1_000_000_000L;
+        long[] histogram = new long[BUCKETS];
+        long ticks = 0;
+        long sum = 0;
+        long max = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int m = slot * META;
+            long second = meta.get(m + SECOND);
+            if (second == Long.MIN_VALUE || second > now || second <= now - seconds) {
+                continue;
+            }
+            ticks += meta.get(m + TICKS);
+            sum += meta.get(m + SUM_MICROS);
+            max = Math.max(max, meta.get(m + WORST_MICROS));
+            int base = slot * BUCKETS;
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] += buckets.get(base + i);
+            }
+        }
+        long slow = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (bucketUpperMicros(i) >= slowMicros) {
+                slow += histogram[i];
+            }
+        }
+        return new Window(seconds, ticks, ticks > 0 ? sum / 1000.0 / ticks : 0,
+            percentile(histogram, ticks, 0.50, max), percentile(histogram, ticks, 0.95, max),
+            percentile(histogram, ticks, 0.99, max), max / 1000.0, slow);
+    }
+
+    /**
+     * Os count piores ticks entre os piores de cada segundo dos últimos 5 minutos, do mais lento
+     */
+    List<SlowTick> worstTicks(int count) {
+        long now = System.nanoTime() / 1_000_000_000L;
+        List<SlowTick> worst = new ArrayList<>(count + 1);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int m = slot * META;
+            long second = meta.get(m + SECOND);
+            long micros = meta.get(m + WORST_MICROS);
+            if (second == Long.MIN_VALUE || second > now || second <= now - SLOTS || micros == 0) {
+                continue;
+            }
+            SlowTick tick = new SlowTick(meta.get(m + WORST_AT), micros / 1000.0, meta.get(m + WORST_TICK),
+                (int) meta.get(m + WORST_PLAYERS), (int) meta.get(m + WORST_LEVELS));
+            int position = worst.size();
+            while (position > 0 && worst.get(position - 1).durationMs < tick.durationMs) {
+                position--;
+            }
+            if (position < count) {
+                worst.add(position, tick);
+                if (worst.size() > count) {
+                    worst.remove(count);
+                }
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Limite superior do bucket do percentil (em ms), sem passar do máximo observado
+     */
+    private static double percentile(long[] histogram, long total, double quantile, long maxMicros) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= rank) {
+                return Math.min(bucketUpperMicros(i), maxMicros) / 1000.0;
+            }
+        }
+        return maxMicros / 1000.0;
+    }
+}
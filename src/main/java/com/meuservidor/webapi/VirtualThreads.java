@@ -0,0 +1,88 @@
+package com.meuservidor.webapi;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Acesso às virtual threads. O JAR é multi-release e, em Java 21+, a JVM normalmente carrega
+ * a versão de src/main/java21 no lugar desta. Esta versão cobre o resto: em Java 8 a 20 informa
+ * que não há suporte, e em Java 21+ chega às virtual threads por MethodHandles, para o caso de
+ * o class loader do jogo ignorar META-INF/versions ou de o JAR ter sido gerado sem um JDK 21.
+ */
+final class VirtualThreads {
+
+    // Thread.isVirtual(), Thread.ofVirtual(), Thread.Builder.OfVirtual.name(String, long),
+    // Thread.Builder.factory() e Executors.newThreadPerTaskExecutor(ThreadFactory); null sem suporte
+    private static final MethodHandle IS_VIRTUAL;
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle isVirtual = null;
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle perTaskExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            isVirtual = lookup.findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(ofVirtualBuilder, "name",
+                MethodType.methodType(ofVirtualBuilder, String.class, long.class));
+            factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            perTaskExecutor = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            // Em Java 19 e 20 a API existe como preview e falha aqui sem --enable-preview
+            ofVirtual.invoke();
+        } catch (Throwable t) {
+            isVirtual = null;
+            ofVirtual = null;
+        }
+        IS_VIRTUAL = isVirtual;
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        PER_TASK_EXECUTOR = perTaskExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invoke(thread);
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * Executor com uma virtual thread nova por tarefa
+     */
+    static ExecutorService newPerTaskExecutor(String namePrefix) {
+        if (OF_VIRTUAL == null) {
+            throw new UnsupportedOperationException("Virtual threads exigem Java 21 ou superior");
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(), namePrefix + "-", 1L);
+            return (ExecutorService) PER_TASK_EXECUTOR.invoke((ThreadFactory) FACTORY.invoke(builder));
+        } catch (Throwable t) {
+            throw new UnsupportedOperationException("Falha ao criar o executor de virtual threads", t);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.meuservidor.webapi;
 
-import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
@@ -10,27 +9,22 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.File;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.RuntimeMXBean;
-import java.lang.management.GarbageCollectorMXBean;
-
-// Importações OSHI para telemetria do sistema
-import oshi.SystemInfo;
-import oshi.hardware.CentralProcessor;
-import oshi.hardware.GlobalMemory;
-import oshi.hardware.HardwareAbstractionLayer;
-import oshi.software.os.OperatingSystem;
+
 import necesse.engine.GameEvents;
 import necesse.engine.events.ServerStartEvent;
 import necesse.engine.events.ServerStopEvent;
@@ -40,21 +34,36 @@ import necesse.engine.modLoader.setting.IntModSetting;
 import necesse.engine.modLoader.setting.BooleanModSetting;
 import necesse.engine.modLoader.setting.StringModSetting;
 import necesse.engine.server.Server;
-import necesse.engine.server.player.ServerPlayer;
 import necesse.level.maps.biomes.Biome;
 
 @ModEntry
 public class WebInfoAPI {
 
-    private static Server server;
-    private HttpServer httpServer;
-    private Properties config;
+    private static final SnapshotEngine snapshots = new SnapshotEngine(20);
+    private static final ResponseCache responseCache = new ResponseCache();
+    // Versões recentes da lista de jogadores, para /players?since=
+    private static final SnapshotWindow snapshotWindow = new SnapshotWindow();
+    private static final Compression compression = new Compression();
+    private static volatile SystemSampler systemSampler;
+    private static volatile JvmSampler jvmSampler;
+    // Duração dos ticks para /performance; null com o endpoint desativado
+    private static volatile TickProfiler tickProfiler;
+    private static volatile StaticExporter exporter;
+    private static volatile EventStream eventStream;
+    private static volatile HistoryStore history;
+    private static volatile EventJournal events;
+    private static volatile RequestScheduler scheduler;
+    private static final ApiMetrics metrics = new ApiMetrics();
+    // Configuração compilada; trocada inteira a cada recarga do arquivo
+    private static volatile ApiConfig config = ApiConfig.defaults();
+    private HttpEngine httpServer;
+    private Path configPath;
+    private ConfigWatcher configWatcher;
     private boolean apiEnabled = true;
     private boolean loggingEnabled = true;
     
     // Rate limiting e autenticação
-    private final Map<String, Long> rateLimitMap = new ConcurrentHashMap<>();
-    private final Map<String, Integer> requestCountMap = new ConcurrentHashMap<>();
+    private RateLimiter rateLimiter;
 
     public ModSettings initSettings() {
         // Criar arquivos de configuração automaticamente
@@ -64,16 +73,16 @@ public class WebInfoAPI {
         
         return new ModSettings() {
             {
-                addSetting(new IntModSetting("api_port", getConfigInt("api.port", 8080), (value) -> {
+                addSetting(new IntModSetting("api_port", config.port, (value) -> {
                     return "A porta deve ser uma das alocadas pelo seu provedor de hospedagem.";
                 }));
-                addSetting(new BooleanModSetting("api_enabled", getConfigBoolean("api.enabled", true), (value) -> {
+                addSetting(new BooleanModSetting("api_enabled", config.enabled, (value) -> {
                     return "Habilita ou desabilita a API completamente.";
                 }));
-                addSetting(new StringModSetting("api_host", getConfigString("api.host", "0.0.0.0"), (value) -> {
+                addSetting(new StringModSetting("api_host", config.host, (value) -> {
                     return "Endereço IP para bind da API (0.0.0.0 para todas as interfaces).";
                 }));
-                addSetting(new BooleanModSetting("logging_enabled", getConfigBoolean("api.logging.enabled", true), (value) -> {
+                addSetting(new BooleanModSetting("logging_enabled", config.loggingEnabled, (value) -> {
                     return "Habilita logs detalhados da API.";
                 }));
             }
@@ -134,11 +143,66 @@ public class WebInfoAPI {
         defaultProps.setProperty("api.rate_limit.enabled", "true");
         defaultProps.setProperty("api.rate_limit.requests_per_minute", "60");
         defaultProps.setProperty("api.rate_limit.burst_size", "10");
+        defaultProps.setProperty("api.rate_limit.api_keys", "");
+        defaultProps.setProperty("api.rate_limit.cost.status", "1");
+        defaultProps.setProperty("api.rate_limit.cost.players", "3");
+        defaultProps.setProperty("api.rate_limit.cost.world_info", "1");
+        defaultProps.setProperty("api.rate_limit.cost.system", "2");
+        defaultProps.setProperty("api.rate_limit.cost.jvm", "2");
+        defaultProps.setProperty("api.rate_limit.cost.performance", "1");
+        defaultProps.setProperty("api.rate_limit.cost.history", "2");
+        defaultProps.setProperty("api.rate_limit.cost.events", "1");
         
         // Configurações de thread pool
+        defaultProps.setProperty("api.thread_pool.mode", "platform");
+        defaultProps.setProperty("api.thread_pool.virtual_max_concurrent", "256");
         defaultProps.setProperty("api.thread_pool.core_size", "4");
         defaultProps.setProperty("api.thread_pool.max_size", "8");
         defaultProps.setProperty("api.thread_pool.keep_alive_seconds", "60");
+        defaultProps.setProperty("api.thread_pool.queue_size", "100");
+        defaultProps.setProperty("api.thread_pool.queue_deadline_ms", "2000");
+        defaultProps.setProperty("api.thread_pool.priority_endpoints", "/health,/status,/stream");
+        defaultProps.setProperty("api.thread_pool.priority_reserved", "1");
+        
+        // Engine HTTP: "jdk" (HttpServer do JDK) ou "nio" (event loops com keep-alive e pipelining)
+        defaultProps.setProperty("api.server.engine", "jdk");
+        defaultProps.setProperty("api.server.io_threads", "2");
+        defaultProps.setProperty("api.server.max_connections", "1024");
+        defaultProps.setProperty("api.server.idle_timeout_seconds", "30");
+        defaultProps.setProperty("api.server.max_pipelined_requests", "16");
+        defaultProps.setProperty("api.server.max_requests_per_connection", "1000");
+        defaultProps.setProperty("api.server.socket_buffer_bytes", "0");
+        
+        // Captura de estado do jogo (snapshot a cada N ticks)
+        defaultProps.setProperty("api.snapshot.interval_ticks", "20");
+        // Versões da lista de jogadores guardadas para /players?since= (uma por snapshot)
+        defaultProps.setProperty("api.players.delta_window", "60");
+        
+        // Telemetria do sistema (amostragem em segundo plano para /system)
+        defaultProps.setProperty("api.system.sample_interval_ms", "2000");
+        
+        // Telemetria da JVM para /jvm (GC, memória, alocação, CPU por thread)
+        defaultProps.setProperty("api.jvm.sample_interval_ms", "1000");
+        
+        // Ticks mais lentos que isso contam como lentos em /performance
+        defaultProps.setProperty("api.performance.slow_tick_ms", "50");
+        
+        // Histórico para /history (persistido em webapi-history.dat, ao lado deste arquivo)
+        defaultProps.setProperty("api.history.persist", "true");
+        
+        // Journal de /events (persistido em webapi-events/, ao lado deste arquivo)
+        defaultProps.setProperty("api.events.persist", "true");
+        defaultProps.setProperty("api.events.segment_bytes", "1048576");
+        defaultProps.setProperty("api.events.retention_mb", "64");
+        defaultProps.setProperty("api.events.retention_hours", "168");
+        
+        // Exportação estática: status.json, players.json, world-info.json e server-info.json
+        // (e .gz) num diretório para nginx/CDN; directory vazio = webapi-export/ ao lado deste arquivo
+        defaultProps.setProperty("api.export.enabled", "false");
+        defaultProps.setProperty("api.export.directory", "");
+        defaultProps.setProperty("api.export.interval_ms", "0");
+        defaultProps.setProperty("api.export.gzip", "true");
+        defaultProps.setProperty("api.export.endpoints", "status,players,world_info,server_info");
         
         // Configurações de logging
         defaultProps.setProperty("api.logging.enabled", "true");
@@ -152,7 +216,21 @@ public class WebInfoAPI {
         defaultProps.setProperty("endpoints.server_info.enabled", "true");
         defaultProps.setProperty("endpoints.world_info.enabled", "true");
         defaultProps.setProperty("endpoints.system.enabled", "true");
+        defaultProps.setProperty("endpoints.jvm.enabled", "true");
+        defaultProps.setProperty("endpoints.performance.enabled", "true");
         defaultProps.setProperty("endpoints.health.enabled", "true");
+        defaultProps.setProperty("endpoints.stream.enabled", "true");
+        defaultProps.setProperty("endpoints.metrics.enabled", "true");
+        defaultProps.setProperty("endpoints.history.enabled", "true");
+        defaultProps.setProperty("endpoints.events.enabled", "true");
+        defaultProps.setProperty("endpoints.batch.enabled", "true");
+        
+        // Configurações do /stream (Server-Sent Events)
+        defaultProps.setProperty("api.stream.max_clients", "1000");
+        defaultProps.setProperty("api.stream.max_backlog", "64");
+        defaultProps.setProperty("api.stream.heartbeat_seconds", "15");
+        defaultProps.setProperty("api.stream.writer_threads", "2");
+        defaultProps.setProperty("api.stream.write_timeout_seconds", "10");
         
         // Configurações de segurança
         defaultProps.setProperty("api.security.api_key", "your-secure-api-key-here");
@@ -161,6 +239,12 @@ public class WebInfoAPI {
         // Configurações de cache
         defaultProps.setProperty("api.cache.enabled", "true");
         defaultProps.setProperty("api.cache.ttl_seconds", "30");
+        defaultProps.setProperty("api.cache.max_entries", "256");
+        
+        // Compressão gzip/deflate negociada por Accept-Encoding
+        defaultProps.setProperty("api.compression.enabled", "true");
+        defaultProps.setProperty("api.compression.min_size_bytes", "1024");
+        defaultProps.setProperty("api.compression.level", "6");
         
         // Configurações de dados
         defaultProps.setProperty("data.include_sensitive", "false");
@@ -172,7 +256,8 @@ public class WebInfoAPI {
             defaultProps.store(output, "WebInfoAPI - Configurações do Mod\n" +
                 "# Este arquivo foi criado automaticamente pelo mod WebInfoAPI\n" +
                 "# Você pode editar estas configurações conforme necessário\n" +
-                "# Reinicie o servidor após fazer alterações\n" +
+                "# Alterações são aplicadas automaticamente ao salvar; host, porta, thread pool, engine HTTP,\n" +
+                "# endpoints habilitados e /stream exigem reiniciar o servidor\n" +
                 "#\n" +
                 "# Configurações básicas:\n" +
                 "# api.enabled - Habilita/desabilita a API\n" +
@@ -187,6 +272,11 @@ public class WebInfoAPI {
                 "# api.security.api_key - Chave de API para autenticação\n" +
                 "# api.security.require_auth - Exige autenticação para todos os endpoints\n" +
                 "#\n" +
+                "# Rate limiting:\n" +
+                "# api.rate_limit.requests_per_minute / burst_size - Taxa sustentada e rajada por IP\n" +
+                "# api.rate_limit.api_keys - Cotas por chave de API (chave:req_por_minuto, separadas por vírgula)\n" +
+                "# api.rate_limit.cost.<endpoint> - Custo de cada requisição no bucket do cliente (no máximo burst_size)\n" +
+                "#\n" +
                 "# Controle de endpoints:\n" +
                 "# endpoints.*.enabled - Habilita/desabilita endpoints específicos\n" +
                 "#\n" +
@@ -195,7 +285,7 @@ public class WebInfoAPI {
     }
 
     private void loadExternalConfig() {
-        config = new Properties();
+        Properties properties = new Properties();
         
         // Primeiro, tentar carregar do diretório de configuração do Necesse
         String userHome = System.getProperty("user.home");
@@ -203,8 +293,10 @@ public class WebInfoAPI {
         
         if (Files.exists(necesseConfigPath)) {
             try (FileInputStream input = new FileInputStream(necesseConfigPath.toFile())) {
-                config.load(input);
+                properties.load(input);
+                configPath = necesseConfigPath;
                 System.out.println("WebInfoAPI: Configuração externa carregada de: " + necesseConfigPath);
+                config = compileConfig(properties);
                 return;
             } catch (IOException e) {
                 System.err.println("WebInfoAPI: Erro ao carregar configuração de " + necesseConfigPath + ": " + e.getMessage());
@@ -214,7 +306,7 @@ public class WebInfoAPI {
         // Fallback: tentar carregar do classpath (recursos do mod)
         try (InputStream input = getClass().getClassLoader().getResourceAsStream("webapi.properties")) {
             if (input != null) {
-                config.load(input);
+                properties.load(input);
                 System.out.println("WebInfoAPI: Configuração externa carregada do classpath!");
             } else {
                 System.out.println("WebInfoAPI: Nenhum arquivo webapi.properties encontrado, usando configurações padrão.");
@@ -222,40 +314,94 @@ public class WebInfoAPI {
         } catch (IOException e) {
             System.err.println("WebInfoAPI: Erro ao carregar configuração do classpath: " + e.getMessage());
         }
+        config = compileConfig(properties);
     }
 
-    private int getConfigInt(String key, int defaultValue) {
-        if (config == null) return defaultValue;
-        String value = config.getProperty(key);
-        if (value != null) {
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                System.err.println("WebInfoAPI: Valor inválido para " + key + ": " + value);
-            }
+    /**
+     * Compila as propriedades; na carga inicial, valores inválidos caem no padrão
+     */
+    private static ApiConfig compileConfig(Properties properties) {
+        List<String> errors = new ArrayList<>();
+        ApiConfig compiled = ApiConfig.parse(properties, errors);
+        for (String error : errors) {
+            System.err.println("WebInfoAPI: " + error);
         }
-        return defaultValue;
+        return compiled;
     }
 
-    private boolean getConfigBoolean(String key, boolean defaultValue) {
-        if (config == null) return defaultValue;
-        String value = config.getProperty(key);
-        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    /**
+     * Recarrega o arquivo externo após uma alteração. Se o arquivo não puder ser lido ou
+     * tiver valores inválidos, a configuração em uso é mantida (rollback).
+     */
+    private void reloadConfig() {
+        Properties properties = new Properties();
+        try (FileInputStream input = new FileInputStream(configPath.toFile())) {
+            properties.load(input);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("WebInfoAPI: Configuração não recarregada, erro ao ler " + configPath + ": " + e.getMessage());
+            return;
+        }
+
+        List<String> errors = new ArrayList<>();
+        ApiConfig updated = ApiConfig.parse(properties, errors);
+        if (!errors.isEmpty()) {
+            System.err.println("WebInfoAPI: Configuração inválida em " + configPath + ", mantendo a anterior:");
+            for (String error : errors) {
+                System.err.println("WebInfoAPI:   " + error);
+            }
+            return;
+        }
+
+        ApiConfig previous = config;
+        try {
+            applyConfig(updated);
+        } catch (RuntimeException e) {
+            System.err.println("WebInfoAPI: Falha ao aplicar nova configuração, restaurando a anterior: " + e);
+            applyConfig(previous);
+            return;
+        }
+        System.out.println("WebInfoAPI: Configuração recarregada de " + configPath);
+        List<String> pending = previous.restartRequiredChanges(updated);
+        if (!pending.isEmpty()) {
+            System.out.println("WebInfoAPI: Alterações que exigem reiniciar o servidor: " + String.join(", ", pending));
+        }
     }
 
-    private String getConfigString(String key, String defaultValue) {
-        if (config == null) return defaultValue;
-        return config.getProperty(key, defaultValue);
+    /**
+     * Publica a configuração e repassa os valores para os componentes que podem mudar em execução
+     */
+    private void applyConfig(ApiConfig updated) {
+        snapshots.setIntervalTicks(updated.snapshotIntervalTicks);
+        responseCache.configure(updated.cacheEnabled, updated.cacheTtlSeconds, updated.cacheMaxEntries);
+        snapshotWindow.configure(updated.playersDeltaWindow);
+        compression.configure(updated.compressionEnabled, updated.compressionMinSizeBytes, updated.compressionLevel);
+        if (rateLimiter != null) {
+            rateLimiter.configure(updated.rateLimitEnabled, updated.requestsPerMinute, updated.burstSize,
+                updated.apiKeyQuotas, updated.endpointCosts);
+        }
+        config = updated;
     }
 
     public void init() {
         GameEvents.addListener(ServerStartEvent.class, (event) -> {
-            server = event.server;
+            recordEvent(EventJournal.Type.SERVER_START);
         });
     }
 
+    /**
+     * Chamado pela thread do jogo ao final de cada tick (ver ServerTickPatch)
+     */
+    public static void onServerTick(Server tickingServer, long tickStartNanos) {
+        // Medido antes da captura do snapshot, que não faz parte do tick do jogo
+        TickProfiler profiler = tickProfiler;
+        if (profiler != null) {
+            profiler.record(tickStartNanos, System.nanoTime());
+        }
+        snapshots.onServerTick(tickingServer);
+    }
+
     public void postInit() {
-        instance = this; // Definir instância estática para acesso aos métodos de configuração
+        instance = this; // Definir instância estática para acesso ao rate limiter
         
         apiEnabled = getSettings().getBoolean("api_enabled");
         loggingEnabled = getSettings().getBoolean("logging_enabled");
@@ -269,63 +415,300 @@ public class WebInfoAPI {
 
         int apiPort = getSettings().getInt("api_port");
         String apiHost = getSettings().getString("api_host");
+        start(apiHost, apiPort);
+
+        GameEvents.addListener(ServerStopEvent.class, (event) -> {
+            recordEvent(EventJournal.Type.SERVER_STOP);
+            dispose();
+        });
+    }
+
+    /**
+     * Sobe a API fora do jogo (benchmarks JMH): a mesma inicialização do postInit, sem as
+     * configurações do mod e sem eventos do Necesse. O estado do jogo entra por
+     * {@link #publishSnapshot}; {@link #dispose()} encerra.
+     */
+    static WebInfoAPI startStandalone(ApiConfig cfg, String host, int port) {
+        WebInfoAPI api = new WebInfoAPI();
+        instance = api;
+        config = cfg;
+        api.loggingEnabled = cfg.loggingEnabled;
+        api.start(host, port);
+        return api;
+    }
+
+    /**
+     * Publica um snapshot como se viesse de um tick do servidor (modo standalone)
+     */
+    static void publishSnapshot(ServerSnapshot snapshot) {
+        snapshots.publish(snapshot);
+    }
+
+    /**
+     * Endereço em que o servidor HTTP está escutando (com a porta real, se a pedida foi 0)
+     */
+    InetSocketAddress address() {
+        return httpServer != null ? httpServer.getAddress() : null;
+    }
+
+    private void start(String apiHost, int apiPort) {
+        ApiConfig cfg = config;
+        rateLimiter = new RateLimiter();
+        applyConfig(cfg);
+        if (configPath != null) {
+            configWatcher = ConfigWatcher.start(configPath, this::reloadConfig);
+        }
 
         try {
             InetSocketAddress address = new InetSocketAddress(apiHost, apiPort);
-            httpServer = HttpServer.create(address, 0);
+            httpServer = HttpEngine.create(cfg, address);
+            
+            // Configurar thread pool baseado nas configurações (fila limitada com descarte de carga,
+            // ou virtual threads atrás de um limitador em Java 21+)
+            scheduler = RequestScheduler.create(cfg);
             
             // Configurar endpoints baseado nas configurações
-            if (getConfigBoolean("endpoints.status.enabled", true)) {
-                httpServer.createContext("/status", new StatusHandler());
+            if (cfg.isEndpointEnabled("status")) {
+                createContext("/status", new StatusHandler());
             }
-            if (getConfigBoolean("endpoints.players.enabled", true)) {
-                httpServer.createContext("/players", new PlayersHandler());
+            if (cfg.isEndpointEnabled("players")) {
+                snapshots.addListener(snapshotWindow);
+                createContext("/players", new PlayersHandler());
             }
-            if (getConfigBoolean("endpoints.server_info.enabled", true)) {
-                httpServer.createContext("/server-info", new ServerInfoHandler());
+            if (cfg.isEndpointEnabled("server_info")) {
+                createContext("/server-info", new ServerInfoHandler());
             }
-            if (getConfigBoolean("endpoints.world_info.enabled", true)) {
-                httpServer.createContext("/world-info", new WorldInfoHandler());
+            if (cfg.isEndpointEnabled("world_info")) {
+                createContext("/world-info", new WorldInfoHandler());
             }
-            if (getConfigBoolean("endpoints.system.enabled", true)) {
-                httpServer.createContext("/system", new SystemHandler());
+            if (cfg.isEndpointEnabled("system")) {
+                systemSampler = SystemSampler.start(cfg.systemSampleIntervalMs);
+                createContext("/system", new SystemHandler());
             }
-            if (getConfigBoolean("endpoints.health.enabled", true)) {
-                httpServer.createContext("/health", new HealthHandler());
+            if (cfg.isEndpointEnabled("jvm")) {
+                jvmSampler = JvmSampler.start(cfg.jvmSampleIntervalMs, snapshots::gameThreadId);
+                createContext("/jvm", new JvmHandler());
+            }
+            if (cfg.isEndpointEnabled("performance")) {
+                TickProfiler profiler = new TickProfiler();
+                snapshots.addListener(profiler);
+                tickProfiler = profiler;
+                createContext("/performance", new PerformanceHandler());
+            }
+            if (cfg.exportEnabled) {
+                Path exportDirectory = cfg.exportDirectory.isEmpty()
+                    ? dataFile("webapi-export") : Paths.get(cfg.exportDirectory);
+                exporter = StaticExporter.start(snapshots, exportDirectory, cfg.exportResources,
+                    cfg.exportGzip, cfg.exportIntervalMs, WebInfoAPI::exportBody, WebInfoAPI::exportValidator, compression);
+                if (exporter != null && loggingEnabled) {
+                    System.out.println("WebInfoAPI: Exportação estática em " + exportDirectory);
+                }
+            }
+            if (cfg.isEndpointEnabled("health")) {
+                createContext("/health", new HealthHandler());
+            }
+            if (cfg.isEndpointEnabled("stream")) {
+                eventStream = new EventStream(snapshots,
+                    cfg.streamMaxClients,
+                    cfg.streamMaxBacklog,
+                    cfg.streamHeartbeatSeconds,
+                    cfg.streamWriterThreads,
+                    cfg.streamWriteTimeoutSeconds);
+                createContext("/stream", new StreamHandler());
+            }
+            if (cfg.isEndpointEnabled("metrics")) {
+                createContext("/metrics", new MetricsHandler());
+            }
+            if (cfg.isEndpointEnabled("batch")) {
+                createContext("/batch", new BatchHandler());
+            }
+            if (cfg.isEndpointEnabled("history")) {
+                history = HistoryStore.start(cfg.historyPersist ? historyFile() : null, WebInfoAPI::recordHistory);
+                createContext("/history", new HistoryHandler());
+            }
+            if (cfg.isEndpointEnabled("events")) {
+                events = EventJournal.start(snapshots, cfg.eventsPersist ? dataFile("webapi-events") : null,
+                    cfg.eventsSegmentBytes, cfg.eventsRetentionMb, cfg.eventsRetentionHours);
+                createContext("/events", new EventsHandler());
             }
             
-            // Configurar thread pool baseado nas configurações
-            int coreSize = getConfigInt("api.thread_pool.core_size", 4);
-            int maxSize = getConfigInt("api.thread_pool.max_size", 8);
-            int keepAlive = getConfigInt("api.thread_pool.keep_alive_seconds", 60);
-            
-            httpServer.setExecutor(new java.util.concurrent.ThreadPoolExecutor(
-                coreSize, maxSize, keepAlive, java.util.concurrent.TimeUnit.SECONDS, 
-                new java.util.concurrent.LinkedBlockingQueue<>()));
+            httpServer.setExecutor(scheduler);
             
             Thread serverThread = new Thread(() -> httpServer.start());
             serverThread.setDaemon(true);
             serverThread.start();
 
             if (loggingEnabled) {
-                System.out.println("WebInfoAPI iniciado em " + apiHost + ":" + apiPort);
+                System.out.println("WebInfoAPI iniciado em " + apiHost + ":" + apiPort
+                    + " (engine " + cfg.serverEngine + ", threads " + scheduler.mode() + ")");
             }
 
         } catch (IOException e) {
             System.err.println("Falha ao iniciar o servidor HTTP da WebInfoAPI: " + e.getMessage());
             e.printStackTrace();
         }
+    }
 
-        GameEvents.addListener(ServerStopEvent.class, (event) -> {
-            dispose();
+    /**
+     * Registra o handler passando pela admissão do scheduler (prazo de fila e faixas de prioridade)
+     * e pela instrumentação de /metrics (status e latência, inclusive das requisições descartadas)
+     */
+    private void createContext(String path, HttpHandler handler) {
+        RequestScheduler requestScheduler = scheduler;
+        boolean priority = requestScheduler.isPriority(path);
+        ApiMetrics.EndpointMetrics endpointMetrics = metrics.endpoint(path);
+        httpServer.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            requestScheduler.dispatch(exchange, priority,
+                measured(handler, endpointMetrics, start),
+                measured(WebInfoAPI::sendOverloaded, endpointMetrics, start));
         });
     }
 
+    /**
+     * Handler que registra status e latência ao terminar (na thread em que de fato rodar)
+     */
+    private static HttpHandler measured(HttpHandler handler, ApiMetrics.EndpointMetrics endpointMetrics, long start) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } finally {
+                endpointMetrics.record(exchange.getResponseCode(), System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static void sendOverloaded(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "Servidor sobrecarregado");
+    }
+
+    /**
+     * Arquivo do histórico, ao lado do webapi.properties
+     */
+    private Path historyFile() {
+        return dataFile("webapi-history.dat");
+    }
+
+    /**
+     * Arquivo ou diretório de dados da API, ao lado do webapi.properties
+     */
+    private Path dataFile(String name) {
+        if (configPath != null && configPath.getParent() != null) {
+            return configPath.getParent().resolve(name);
+        }
+        return Paths.get(System.getProperty("user.home"), "AppData", "Roaming", "Necesse", "cfg", "mods", name);
+    }
+
+    /**
+     * Corpo exportado de cada recurso: a mesma seção codificada servida pelo endpoint
+     */
+    private static byte[] exportBody(StaticExporter.Resource resource, ServerSnapshot snapshot) {
+        DocumentWriter.Format format = DocumentWriter.Format.JSON;
+        switch (resource) {
+            case STATUS:
+                return snapshot.section(ServerSnapshot.Section.STATUS, format, 0, s -> StatusHandler.render(s, format));
+            case PLAYERS:
+                return PlayersHandler.section(snapshot, format);
+            case WORLD_INFO:
+                return snapshot.section(ServerSnapshot.Section.WORLD_INFO, format, 0, s -> WorldInfoHandler.render(s, format));
+            default:
+                return snapshot.section(ServerSnapshot.Section.SERVER_INFO, format, 0, s -> ServerInfoHandler.render(s, format));
+        }
+    }
+
+    /**
+     * O que decide se o arquivo exportado é regravado, como o ETag do endpoint: o próprio
+     * corpo, ou em /world-info e /server-info o corpo sem os campos de relógio
+     */
+    private static byte[] exportValidator(StaticExporter.Resource resource, ServerSnapshot snapshot) {
+        switch (resource) {
+            case WORLD_INFO:
+                return WorldInfoHandler.render(snapshot, DocumentWriter.Format.JSON, false);
+            case SERVER_INFO:
+                return ServerInfoHandler.render(snapshot, DocumentWriter.Format.JSON, false);
+            default:
+                return exportBody(resource, snapshot);
+        }
+    }
+
+    /**
+     * Evento do servidor para o journal de /events (se ativo)
+     */
+    private static void recordEvent(EventJournal.Type type) {
+        EventJournal journal = events;
+        if (journal != null) {
+            journal.record(type);
+        }
+    }
+
+    /**
+     * Amostra de um segundo para /history: TPS e jogadores do último snapshot, heap da JVM
+     * e CPU da última amostra do SystemSampler (quando /system está ativo)
+     */
+    private static void recordHistory(HistoryStore store) {
+        long second = System.currentTimeMillis() / 1000;
+        ServerSnapshot snapshot = snapshots.latest();
+        if (snapshot != null) {
+            store.record(HistoryStore.Metric.TPS, second, snapshot.tps);
+            store.record(HistoryStore.Metric.PLAYERS, second, snapshot.playersOnline);
+        }
+        store.record(HistoryStore.Metric.HEAP_USED, second, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        SystemSampler sampler = systemSampler;
+        SystemSampler.Sample sample = sampler != null ? sampler.latest() : null;
+        if (sample != null) {
+            store.record(HistoryStore.Metric.CPU, second, sample.cpuUsage);
+        }
+    }
+
     public void dispose() {
+        if (configWatcher != null) {
+            configWatcher.stop();
+            configWatcher = null;
+        }
+        snapshots.reset();
+        snapshots.removeListener(snapshotWindow);
+        snapshotWindow.clear();
+        responseCache.clear();
+        if (systemSampler != null) {
+            systemSampler.stop();
+            systemSampler = null;
+        }
+        if (jvmSampler != null) {
+            jvmSampler.stop();
+            jvmSampler = null;
+        }
+        if (tickProfiler != null) {
+            snapshots.removeListener(tickProfiler);
+            tickProfiler = null;
+        }
+        if (exporter != null) {
+            exporter.stop();
+            exporter = null;
+        }
+        if (rateLimiter != null) {
+            rateLimiter.stop();
+        }
+        if (eventStream != null) {
+            eventStream.stop();
+            eventStream = null;
+        }
+        if (history != null) {
+            history.stop();
+            history = null;
+        }
+        if (events != null) {
+            events.stop();
+            events = null;
+        }
         if (httpServer != null) {
             httpServer.stop(0);
             System.out.println("WebInfoAPI parado.");
         }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
     }
 
     static class StatusHandler implements HttpHandler {
@@ -333,152 +716,460 @@ public class WebInfoAPI {
         public void handle(HttpExchange exchange) throws IOException {
             // Verificar autenticação se necessário
             if (!authenticateRequest(exchange)) {
-                sendResponse(exchange, 401, "{\"error\":\"Unauthorized\"}");
+                sendError(exchange, 401, "Unauthorized");
                 return;
             }
             
             // Verificar rate limiting
             if (!checkRateLimit(exchange)) {
-                sendResponse(exchange, 429, "{\"error\":\"Rate limit exceeded\"}");
+                sendError(exchange, 429, "Rate limit exceeded");
                 return;
             }
             
             // Tratar requisições OPTIONS para CORS preflight
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
                 return;
             }
             
-            if (server == null) {
-                sendResponse(exchange, 503, "{\"error\":\"Servidor não iniciado\"}");
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
                 return;
             }
 
-            long uptime = System.currentTimeMillis() - server.getStartTime();
-            boolean hasPassword = server.getPassword() != null && !server.getPassword().isEmpty();
-            String motd = server.getMotd() != null ? server.getMotd() : "";
-            
-            String jsonResponse = String.format(
-                "{\"online\":true,\"players\":%d,\"max_players\":%d,\"world_time\":\"%s\",\"uptime\":%d,\"server_version\":\"%s\",\"api_version\":\"2.0.0\",\"server_name\":\"%s\",\"motd\":\"%s\",\"has_password\":%b,\"pvp_enabled\":%b,\"tps\":%.2f}",
-                server.getPlayersOnline(),
-                server.getSlots(),
-                server.world.worldEntity.getTime().getTimeOfDayString(),
-                uptime,
-                server.getVersion(),
-                server.getServerName(),
-                motd,
-                hasPassword,
-                server.world.worldEntity.isPvPEnabled(),
-                server.getTPS()
-            );
+            DocumentWriter.Format format = responseFormat(exchange);
+            sendResponse(exchange, cachedBody(exchange, snapshot,
+                () -> snapshot.section(ServerSnapshot.Section.STATUS, format, 0, s -> render(s, format))));
+        }
+
+        static byte[] render(ServerSnapshot snapshot) {
+            return render(snapshot, DocumentWriter.Format.JSON);
+        }
 
-            sendResponse(exchange, 200, jsonResponse);
+        static byte[] render(ServerSnapshot snapshot, DocumentWriter.Format format) {
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject()
+                    .field("online", true)
+                    .field("players", snapshot.playersOnline)
+                    .field("max_players", snapshot.maxPlayers)
+                    .field("world_time", snapshot.worldTime)
+                    .field("uptime", snapshot.uptime)
+                    .field("server_version", snapshot.serverVersion)
+                    .field("api_version", "2.0.0")
+                    .field("server_name", snapshot.serverName)
+                    .field("motd", snapshot.motd)
+                    .field("has_password", snapshot.hasPassword)
+                    .field("pvp_enabled", snapshot.pvpEnabled)
+                    .field("tps", snapshot.tps)
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
         }
     }
 
+    /**
+     * Lista de jogadores com projeção (fields), filtros (level_id, biome), ordenação (sort)
+     * e paginação por cursor (limit, cursor); ver {@link PlayerQuery}. Toda resposta traz
+     * "version", a sequência do snapshot em que a lista mudou pela última vez (online_time à
+     * parte); com since=version vêm só as mudanças desde ela ({@link #renderDelta}).
+     * Também responde /players/{uuid} e /players/by-name/{nome} pelos índices do snapshot,
+     * e /players/near e /players/region pelo índice espacial.
+     */
     static class PlayersHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             // Verificar autenticação se necessário
             if (!authenticateRequest(exchange)) {
-                sendResponse(exchange, 401, "{\"error\":\"Unauthorized\"}");
+                sendError(exchange, 401, "Unauthorized");
                 return;
             }
             
             // Verificar rate limiting
             if (!checkRateLimit(exchange)) {
-                sendResponse(exchange, 429, "{\"error\":\"Rate limit exceeded\"}");
+                sendError(exchange, 429, "Rate limit exceeded");
                 return;
             }
             
             // Tratar requisições OPTIONS para CORS preflight
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/players/") && path.length() > "/players/".length()) {
+                handleLookup(exchange, path.substring("/players/".length()));
+                return;
+            }
+            
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            PlayerQuery query;
+            try {
+                query = PlayerQuery.parse(QueryParams.parse(rawQuery), config);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
+                return;
+            }
+
+            DocumentWriter.Format format = responseFormat(exchange);
+            if (query.isDelta()) {
+                // A resposta depende do snapshot atual, não só da URL: fora do cache de respostas,
+                // que reservaria a primeira resposta de um mesmo since por todo o TTL
+                long now = System.currentTimeMillis();
+                sendResponse(exchange, new CachedResponse(renderDelta(snapshot, query, format), null, snapshot, null, now, now));
+                return;
+            }
+            if (rawQuery == null || rawQuery.isEmpty()) {
+                // Lista completa: mesma seção usada por /batch
+                sendResponse(exchange, cachedBody(exchange, snapshot, () -> section(snapshot, format)));
+                return;
+            }
+            sendResponse(exchange, cachedBody(exchange, snapshot, () -> render(snapshot, query, format)));
+        }
+
+        /**
+         * Lista completa com os campos permitidos pela configuração, codificada uma vez por snapshot
+         */
+        static byte[] section(ServerSnapshot snapshot, DocumentWriter.Format format) {
+            PlayerQuery all = PlayerQuery.all(config);
+            return snapshot.section(ServerSnapshot.Section.PLAYERS, format, all.fields, s -> render(s, all, format));
+        }
+
+        /**
+         * Um único jogador, por UUID ou por nome; 404 se não estiver online
+         */
+        private static void handleLookup(HttpExchange exchange, String resource) throws IOException {
+            if ("near".equals(resource) || "region".equals(resource)) {
+                handleSpatial(exchange, resource);
+                return;
+            }
+            
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
+                return;
+            }
+            
+            PlayerView view = snapshot.playerView();
+            int index;
+            if (resource.startsWith("by-name/")) {
+                index = view.indexOfName(resource.substring("by-name/".length()));
+            } else {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(resource);
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, "UUID inválido: " + resource);
+                    return;
+                }
+                index = view.indexOf(uuid);
+            }
+            if (index < 0) {
+                sendError(exchange, 404, "Jogador não encontrado");
+                return;
+            }
+            
+            PlayerQuery query = PlayerQuery.all(config);
+            DocumentWriter.Format format = responseFormat(exchange);
+            sendResponse(exchange, cachedBody(exchange, snapshot,
+                () -> view.encodedPlayer(index, format, query.fields, player -> renderPlayer(snapshot, player, query, format))));
+        }
+
+        /**
+         * Consultas espaciais:
+         * /players/near?level_id=&x=&y=&radius= (ordenado por distância) e
+         * /players/region?level_id=&x1=&y1=&x2=&y2=
+         */
+        private static void handleSpatial(HttpExchange exchange, String resource) throws IOException {
+            ApiConfig cfg = config;
+            if (!cfg.includeCoordinates) {
+                sendError(exchange, 403, "Coordenadas desabilitadas na configuração");
+                return;
+            }
+            
+            SpatialQuery query;
+            try {
+                QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+                query = new SpatialQuery("near".equals(resource), params, cfg);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
                 return;
             }
             
-            if (server == null) {
-                sendResponse(exchange, 503, "{\"error\":\"Servidor não iniciado\"}");
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
                 return;
             }
+            
+            DocumentWriter.Format format = responseFormat(exchange);
+            sendResponse(exchange, cachedBody(exchange, snapshot, () -> renderSpatial(snapshot, query, format)));
+        }
+
+        /**
+         * Parâmetros validados de /players/near ou /players/region
+         */
+        static final class SpatialQuery {
+            final boolean near;
+            final int levelId;
+            final PlayerQuery projection;
+            final float x;
+            final float y;
+            final float radius;
+            final float minX;
+            final float minY;
+            final float maxX;
+            final float maxY;
+
+            SpatialQuery(boolean near, QueryParams params, ApiConfig cfg) {
+                this.near = near;
+                if (params.get("level_id") == null) {
+                    throw new IllegalArgumentException("Parâmetro obrigatório ausente: level_id");
+                }
+                this.levelId = params.getInt("level_id", 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                this.projection = PlayerQuery.projection(params, cfg);
+                if (near) {
+                    x = params.getFloat("x");
+                    y = params.getFloat("y");
+                    radius = params.getFloat("radius");
+                    if (radius < 0) {
+                        throw new IllegalArgumentException("Parâmetro radius deve ser >= 0");
+                    }
+                    minX = x - radius;
+                    minY = y - radius;
+                    maxX = x + radius;
+                    maxY = y + radius;
+                } else {
+                    float x1 = params.getFloat("x1");
+                    float y1 = params.getFloat("y1");
+                    float x2 = params.getFloat("x2");
+                    float y2 = params.getFloat("y2");
+                    minX = Math.min(x1, x2);
+                    minY = Math.min(y1, y2);
+                    maxX = Math.max(x1, x2);
+                    maxY = Math.max(y1, y2);
+                    x = (minX + maxX) / 2;
+                    y = (minY + maxY) / 2;
+                    radius = 0;
+                }
+            }
+
+            double distanceTo(PlayerSnapshot player) {
+                double dx = player.x - x;
+                double dy = player.y - y;
+                return Math.sqrt(dx * dx + dy * dy);
+            }
+        }
+
+        static byte[] renderSpatial(ServerSnapshot snapshot, SpatialQuery query, DocumentWriter.Format format) {
+            List<PlayerSnapshot> found = new ArrayList<>();
+            SpatialIndex index = snapshot.playerView().spatialIndex();
+            if (query.near) {
+                index.near(query.levelId, query.x, query.y, query.radius, found);
+                found.sort((a, b) -> Double.compare(query.distanceTo(a), query.distanceTo(b)));
+            } else {
+                index.region(query.levelId, query.minX, query.minY, query.maxX, query.maxY, found);
+            }
+            
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject().name("players").beginArray();
+                for (PlayerSnapshot player : found) {
+                    json.beginObject();
+                    writePlayerFields(json, player, query.projection.fields);
+                    if (query.near) {
+                        json.field("distance", query.distanceTo(player));
+                    }
+                    json.endObject();
+                }
+                json.endArray()
+                    .field("count", found.size())
+                    .field("level_id", query.levelId);
+                if (query.near) {
+                    json.name("center").beginObject()
+                        .field("x", query.x)
+                        .field("y", query.y)
+                        .endObject()
+                        .field("radius", query.radius);
+                } else {
+                    json.name("region").beginObject()
+                        .field("min_x", query.minX)
+                        .field("min_y", query.minY)
+                        .field("max_x", query.maxX)
+                        .field("max_y", query.maxY)
+                        .endObject();
+                }
+                json.field("version", snapshot.playersVersion)
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+
+        static byte[] render(ServerSnapshot snapshot) {
+            return render(snapshot, PlayerQuery.all(config), DocumentWriter.Format.JSON);
+        }
+
+        static byte[] renderPlayer(ServerSnapshot snapshot, PlayerSnapshot player, PlayerQuery query, DocumentWriter.Format format) {
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject().name("player");
+                writePlayer(json, player, query);
+                json.field("version", snapshot.playersVersion)
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
 
-            StringBuilder jsonResponse = new StringBuilder();
-            jsonResponse.append("{\"players\":[");
+        static byte[] render(ServerSnapshot snapshot, PlayerQuery query, DocumentWriter.Format format) {
+            // Apenas os campos pedidos (e permitidos pela configuração) são escritos
+            PlayerQuery.Page page = query.execute(snapshot);
 
-            boolean first = true;
-            for (ServerPlayer player : server.getPlayers()) {
-                if (!first) {
-                    jsonResponse.append(",");
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject().name("players").beginArray();
+                for (PlayerSnapshot player : page.players) {
+                    writePlayer(json, player, query);
                 }
-                first = false;
-
-                // Informações detalhadas do jogador
-                int level = player.getLevel() != null ? player.getLevel().getIdentifier() : 0;
-                float x = player.x;
-                float y = player.y;
-                int health = player.getHealth();
-                int maxHealth = player.getMaxHealth();
-                int mana = player.getMana();
-                int maxMana = player.getMaxMana();
-                long onlineTime = System.currentTimeMillis() - player.getJoinTime();
-                String biome = player.getLevel() != null ? player.getLevel().biome.getStringID() : "unknown";
-                boolean isAdmin = player.isServerClient();
-                String playerClass = player.playerMob.getStringID();
-                int playerLevel = player.getStats().getLevel();
-                long experience = player.getStats().getExp();
-                
-                // Incluir coordenadas apenas se permitido na configuração
-                boolean includeCoords = instance.getConfigBoolean("data.include_coordinates", true);
-                boolean includeStats = instance.getConfigBoolean("data.include_player_stats", true);
-
-                if (includeCoords && includeStats) {
-                    jsonResponse.append(String.format(
-                        "{\"name\":\"%s\",\"id\":\"%s\",\"latency\":%d,\"level_id\":%d,\"position\":{\"x\":%.2f,\"y\":%.2f},\"biome\":\"%s\",\"health\":{\"current\":%d,\"max\":%d},\"mana\":{\"current\":%d,\"max\":%d},\"online_time\":%d,\"is_admin\":%b,\"player_class\":\"%s\",\"player_level\":%d,\"experience\":%d}",
-                        player.playerName,
-                        player.getUUID().toString(),
-                        player.latency,
-                        level,
-                        x, y,
-                        biome,
-                        health, maxHealth,
-                        mana, maxMana,
-                        onlineTime,
-                        isAdmin,
-                        playerClass,
-                        playerLevel,
-                        experience
-                    ));
-                } else if (includeCoords) {
-                    jsonResponse.append(String.format(
-                        "{\"name\":\"%s\",\"id\":\"%s\",\"latency\":%d,\"level_id\":%d,\"position\":{\"x\":%.2f,\"y\":%.2f},\"biome\":\"%s\",\"online_time\":%d,\"is_admin\":%b,\"player_class\":\"%s\",\"player_level\":%d}",
-                        player.playerName,
-                        player.getUUID().toString(),
-                        player.latency,
-                        level,
-                        x, y,
-                        biome,
-                        onlineTime,
-                        isAdmin,
-                        playerClass,
-                        playerLevel
-                    ));
+                json.endArray()
+                    .field("total_players", snapshot.playersOnline);
+                if (query.isPaginated()) {
+                    json.field("count", page.players.size())
+                        .field("next_cursor", page.nextCursor);
+                }
+                json.field("version", snapshot.playersVersion)
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+
+        /**
+         * Mudanças desde a versão pedida: added (id e campos da projeção), changed (id e só
+         * os campos alterados) e removed (ids). Se a versão já saiu da janela retida
+         * (api.players.delta_window) ou é desconhecida, a resposta é a lista completa com
+         * "full": true, e o cliente recomeça da version devolvida.
+         */
+        static byte[] renderDelta(ServerSnapshot snapshot, PlayerQuery query, DocumentWriter.Format format) {
+            // Uma sequência desde a última mudança da lista vê a lista atual; uma futura é desconhecida
+            List<PlayerSnapshot> base = query.since > snapshot.sequence ? null
+                : query.since >= snapshot.playersVersion ? snapshot.players
+                : snapshotWindow.players(query.since);
+
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject()
+                    .field("version", snapshot.playersVersion)
+                    .field("since", query.since)
+                    .field("full", base == null);
+                if (base == null) {
+                    json.name("players").beginArray();
+                    for (PlayerSnapshot player : query.execute(snapshot).players) {
+                        writePlayer(json, player, query);
+                    }
+                    json.endArray();
                 } else {
-                    jsonResponse.append(String.format(
-                        "{\"name\":\"%s\",\"id\":\"%s\",\"latency\":%d,\"level_id\":%d,\"online_time\":%d,\"is_admin\":%b,\"player_class\":\"%s\",\"player_level\":%d}",
-                        player.playerName,
-                        player.getUUID().toString(),
-                        player.latency,
-                        level,
-                        onlineTime,
-                        isAdmin,
-                        playerClass,
-                        playerLevel
-                    ));
+                    SnapshotDiff.PlayerDelta delta = SnapshotDiff.players(base, snapshot.players, query);
+                    // O id identifica o jogador mesmo fora da projeção
+                    json.name("added").beginArray();
+                    for (PlayerSnapshot player : delta.added) {
+                        json.beginObject().field("id", player.id);
+                        writePlayerFields(json, player, query.fields & ~PlayerQuery.ID);
+                        json.endObject();
+                    }
+                    json.endArray().name("changed").beginArray();
+                    for (int i = 0; i < delta.changed.size(); i++) {
+                        PlayerSnapshot player = delta.changed.get(i);
+                        json.beginObject().field("id", player.id);
+                        writePlayerFields(json, player, delta.changedFields.get(i) & ~PlayerQuery.ID);
+                        json.endObject();
+                    }
+                    json.endArray().name("removed").beginArray();
+                    for (String id : delta.removed) {
+                        json.value(id);
+                    }
+                    json.endArray();
                 }
+                json.field("total_players", snapshot.playersOnline)
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
             }
+        }
+
+        static void writePlayer(DocumentWriter json, PlayerSnapshot player, PlayerQuery query) {
+            json.beginObject();
+            writePlayerFields(json, player, query.fields);
+            json.endObject();
+        }
 
-            jsonResponse.append("],\"total_players\":").append(server.getPlayersOnline()).append("}");
-            sendResponse(exchange, 200, jsonResponse.toString());
+        /**
+         * Campos do jogador selecionados em fields (bits de PlayerQuery)
+         */
+        static void writePlayerFields(DocumentWriter json, PlayerSnapshot player, int fields) {
+            if ((fields & PlayerQuery.NAME) != 0) {
+                json.field("name", player.name);
+            }
+            if ((fields & PlayerQuery.ID) != 0) {
+                json.field("id", player.id);
+            }
+            if ((fields & PlayerQuery.LATENCY) != 0) {
+                json.field("latency", player.latency);
+            }
+            if ((fields & PlayerQuery.LEVEL_ID) != 0) {
+                json.field("level_id", player.levelId);
+            }
+            if ((fields & PlayerQuery.POSITION) != 0) {
+                json.name("position").beginObject()
+                    .field("x", player.x)
+                    .field("y", player.y)
+                    .endObject();
+            }
+            if ((fields & PlayerQuery.BIOME) != 0) {
+                json.field("biome", player.biome);
+            }
+            if ((fields & PlayerQuery.HEALTH) != 0) {
+                json.name("health").beginObject()
+                    .field("current", player.health)
+                    .field("max", player.maxHealth)
+                    .endObject();
+            }
+            if ((fields & PlayerQuery.MANA) != 0) {
+                json.name("mana").beginObject()
+                    .field("current", player.mana)
+                    .field("max", player.maxMana)
+                    .endObject();
+            }
+            if ((fields & PlayerQuery.ONLINE_TIME) != 0) {
+                json.field("online_time", player.onlineTime);
+            }
+            if ((fields & PlayerQuery.IS_ADMIN) != 0) {
+                json.field("is_admin", player.admin);
+            }
+            if ((fields & PlayerQuery.PLAYER_CLASS) != 0) {
+                json.field("player_class", player.playerClass);
+            }
+            if ((fields & PlayerQuery.PLAYER_LEVEL) != 0) {
+                json.field("player_level", player.playerLevel);
+            }
+            if ((fields & PlayerQuery.EXPERIENCE) != 0) {
+                json.field("experience", player.experience);
+            }
         }
     }
 
@@ -487,30 +1178,51 @@ public class WebInfoAPI {
         public void handle(HttpExchange exchange) throws IOException {
             // Tratar requisições OPTIONS para CORS preflight
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
                 return;
             }
             
-            if (server == null) {
-                sendResponse(exchange, 503, "{\"error\":\"Servidor não iniciado\"}");
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
                 return;
             }
 
-            String jsonResponse = String.format(
-                "{\"server_name\":\"%s\",\"server_version\":\"%s\",\"max_players\":%d,\"current_players\":%d,\"world_name\":\"%s\",\"difficulty\":\"%s\",\"pvp_enabled\":%b,\"server_port\":%d,\"uptime\":%d,\"tps\":%.2f}",
-                server.getServerName(),
-                server.getVersion(),
-                server.getSlots(),
-                server.getPlayersOnline(),
-                server.world.worldEntity.getWorldName(),
-                server.world.worldEntity.getDifficulty().name(),
-                server.world.worldEntity.isPvPEnabled(),
-                server.getPort(),
-                System.currentTimeMillis() - server.getStartTime(),
-                server.getTPS()
-            );
+            DocumentWriter.Format format = responseFormat(exchange);
+            sendResponse(exchange, cachedBody(exchange, snapshot,
+                () -> snapshot.section(ServerSnapshot.Section.SERVER_INFO, format, 0, s -> render(s, format)),
+                () -> render(snapshot, format, false)));
+        }
+
+        static byte[] render(ServerSnapshot snapshot, DocumentWriter.Format format) {
+            return render(snapshot, format, true);
+        }
 
-            sendResponse(exchange, 200, jsonResponse);
+        /**
+         * live false omite uptime e tps, que mudam a cada captura: o resultado é a base do
+         * ETag fraco, que só muda quando algo além do relógio muda
+         */
+        static byte[] render(ServerSnapshot snapshot, DocumentWriter.Format format, boolean live) {
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject()
+                    .field("server_name", snapshot.serverName)
+                    .field("server_version", snapshot.serverVersion)
+                    .field("max_players", snapshot.maxPlayers)
+                    .field("current_players", snapshot.playersOnline)
+                    .field("world_name", snapshot.worldName)
+                    .field("difficulty", snapshot.difficulty)
+                    .field("pvp_enabled", snapshot.pvpEnabled)
+                    .field("server_port", snapshot.serverPort);
+                if (live) {
+                    json.field("uptime", snapshot.uptime)
+                        .field("tps", snapshot.tps);
+                }
+                json.endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
         }
     }
 
@@ -519,64 +1231,74 @@ public class WebInfoAPI {
         public void handle(HttpExchange exchange) throws IOException {
             // Verificar autenticação se necessário
             if (!authenticateRequest(exchange)) {
-                sendResponse(exchange, 401, "{\"error\":\"Unauthorized\"}");
+                sendError(exchange, 401, "Unauthorized");
                 return;
             }
             
             // Verificar rate limiting
             if (!checkRateLimit(exchange)) {
-                sendResponse(exchange, 429, "{\"error\":\"Rate limit exceeded\"}");
+                sendError(exchange, 429, "Rate limit exceeded");
                 return;
             }
             
             // Tratar requisições OPTIONS para CORS preflight
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
                 return;
             }
             
-            if (server == null) {
-                sendResponse(exchange, 503, "{\"error\":\"Servidor não iniciado\"}");
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
                 return;
             }
 
-            // Obter informações do mundo usando a API correta do Necesse
-            String worldName = server.world.worldEntity.getWorldName();
-            String worldTime = server.world.worldEntity.getTime().getTimeOfDayString();
-            int worldDay = server.world.worldEntity.getTime().getDay();
-            long worldSeed = server.world.worldEntity.getSeed();
-            int biomeCount = server.world.biomeManager.getBiomes().size();
-            int worldWidth = server.world.width;
-            int worldHeight = server.world.height;
-            int spawnX = server.world.worldEntity.getSpawnX();
-            int spawnY = server.world.worldEntity.getSpawnY();
-            String weather = server.world.weatherManager.getCurrentWeather().name();
-            String season = server.world.worldEntity.getTime().getSeason().name();
-            
-            // Informações adicionais do mundo
-            boolean isPvPEnabled = server.world.worldEntity.isPvPEnabled();
-            String difficulty = server.world.worldEntity.getDifficulty().name();
-            long gameTime = server.world.worldEntity.getTime().getTotalTicks();
-            
-            String jsonResponse = String.format(
-                "{\"world_name\":\"%s\",\"world_time\":\"%s\",\"world_day\":%d,\"world_seed\":%d,\"biome_count\":%d,\"world_size\":{\"width\":%d,\"height\":%d},\"spawn_point\":{\"x\":%d,\"y\":%d},\"weather\":\"%s\",\"season\":\"%s\",\"pvp_enabled\":%b,\"difficulty\":\"%s\",\"game_time\":%d,\"api_version\":\"2.0.0\"}",
-                worldName,
-                worldTime,
-                worldDay,
-                worldSeed,
-                biomeCount,
-                worldWidth,
-                worldHeight,
-                spawnX,
-                spawnY,
-                weather,
-                season,
-                isPvPEnabled,
-                difficulty,
-                gameTime
-            );
+            DocumentWriter.Format format = responseFormat(exchange);
+            sendResponse(exchange, cachedBody(exchange, snapshot,
+                () -> snapshot.section(ServerSnapshot.Section.WORLD_INFO, format, 0, s -> render(s, format)),
+                () -> render(snapshot, format, false)));
+        }
+
+        static byte[] render(ServerSnapshot snapshot, DocumentWriter.Format format) {
+            return render(snapshot, format, true);
+        }
 
-            sendResponse(exchange, 200, jsonResponse);
+        /**
+         * live false omite world_time e game_time, que avançam a cada captura (base do ETag fraco)
+         */
+        static byte[] render(ServerSnapshot snapshot, DocumentWriter.Format format, boolean live) {
+            // Informações do mundo vindas do snapshot capturado na thread do jogo
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject()
+                    .field("world_name", snapshot.worldName);
+                if (live) {
+                    json.field("world_time", snapshot.worldTime);
+                }
+                json.field("world_day", snapshot.worldDay)
+                    .field("world_seed", snapshot.worldSeed)
+                    .field("biome_count", snapshot.biomeCount);
+                json.name("world_size").beginObject()
+                    .field("width", snapshot.worldWidth)
+                    .field("height", snapshot.worldHeight)
+                    .endObject();
+                json.name("spawn_point").beginObject()
+                    .field("x", snapshot.spawnX)
+                    .field("y", snapshot.spawnY)
+                    .endObject();
+                json.field("weather", snapshot.weather)
+                    .field("season", snapshot.season)
+                    .field("pvp_enabled", snapshot.pvpEnabled)
+                    .field("difficulty", snapshot.difficulty);
+                if (live) {
+                    json.field("game_time", snapshot.gameTime);
+                }
+                json.field("api_version", "2.0.0")
+                    .endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
         }
     }
 
@@ -585,191 +1307,922 @@ public class WebInfoAPI {
         public void handle(HttpExchange exchange) throws IOException {
             // Verificar autenticação se necessário
             if (!authenticateRequest(exchange)) {
-                sendResponse(exchange, 401, "{\"error\":\"Unauthorized\"}");
+                sendError(exchange, 401, "Unauthorized");
                 return;
             }
             
             // Verificar rate limiting
             if (!checkRateLimit(exchange)) {
-                sendResponse(exchange, 429, "{\"error\":\"Rate limit exceeded\"}");
+                sendError(exchange, 429, "Rate limit exceeded");
                 return;
             }
             
             // Tratar requisições OPTIONS para CORS preflight
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
                 return;
             }
             
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
             try {
-                // Usar OSHI para obter informações detalhadas do sistema
-                SystemInfo systemInfo = new SystemInfo();
-                HardwareAbstractionLayer hal = systemInfo.getHardware();
-                OperatingSystem os = systemInfo.getOperatingSystem();
-                
-                // Informações do processador
-                CentralProcessor processor = hal.getProcessor();
-                double cpuLoad = processor.getSystemCpuLoadBetweenTicks(processor.getSystemCpuLoadTicks()) * 100;
-                
-                // Informações de memória
-                GlobalMemory memory = hal.getMemory();
-                long totalMemory = memory.getTotal();
-                long availableMemory = memory.getAvailable();
-                long usedMemory = totalMemory - availableMemory;
-                
-                // Informações da JVM
-                MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
-                RuntimeMXBean runtimeBean = ManagementFactory.getRuntimeMXBean();
-                
-                long jvmTotalMemory = memoryBean.getHeapMemoryUsage().getMax();
-                long jvmUsedMemory = memoryBean.getHeapMemoryUsage().getUsed();
-                long jvmFreeMemory = jvmTotalMemory - jvmUsedMemory;
-                
-                // Informações do sistema operacional
-                String osName = os.getFamily();
-                String osVersion = os.getVersionInfo().getVersion();
-                int processCount = os.getProcessCount();
-                int threadCount = os.getThreadCount();
-                
-                String jsonResponse = String.format(
-                    "{\"system\":{\"os\":{\"name\":\"%s\",\"version\":\"%s\",\"arch\":\"%s\"},\"cpu\":{\"cores\":%d,\"logical_processors\":%d,\"usage\":%.2f,\"model\":\"%s\"},\"memory\":{\"total\":%d,\"used\":%d,\"available\":%d,\"usage_percent\":%.2f},\"processes\":{\"count\":%d,\"threads\":%d}},\"jvm\":{\"memory\":{\"heap_total\":%d,\"heap_used\":%d,\"heap_free\":%d,\"heap_usage_percent\":%.2f},\"uptime\":%d,\"version\":\"%s\",\"vendor\":\"%s\"},\"timestamp\":%d}",
-                    osName,
-                    osVersion,
-                    System.getProperty("os.arch"),
-                    processor.getPhysicalProcessorCount(),
-                    processor.getLogicalProcessorCount(),
-                    cpuLoad,
-                    processor.getProcessorIdentifier().getName(),
-                    totalMemory,
-                    usedMemory,
-                    availableMemory,
-                    (double) usedMemory / totalMemory * 100,
-                    processCount,
-                    threadCount,
-                    jvmTotalMemory,
-                    jvmUsedMemory,
-                    jvmFreeMemory,
-                    (double) jvmUsedMemory / jvmTotalMemory * 100,
-                    runtimeBean.getUptime(),
-                    System.getProperty("java.version"),
-                    System.getProperty("java.vendor"),
-                    System.currentTimeMillis()
-                );
-                
-                sendResponse(exchange, 200, jsonResponse);
-                
-            } catch (Exception e) {
-                // Fallback para informações básicas se OSHI falhar
-                MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
-                RuntimeMXBean runtimeBean = ManagementFactory.getRuntimeMXBean();
-                
-                long jvmTotalMemory = memoryBean.getHeapMemoryUsage().getMax();
-                long jvmUsedMemory = memoryBean.getHeapMemoryUsage().getUsed();
-                long jvmFreeMemory = jvmTotalMemory - jvmUsedMemory;
-                
-                String fallbackResponse = String.format(
-                    "{\"system\":{\"os\":{\"name\":\"%s\",\"version\":\"%s\",\"arch\":\"%s\"},\"cpu\":{\"cores\":%d},\"memory\":{\"total\":\"N/A\",\"used\":\"N/A\",\"available\":\"N/A\"}},\"jvm\":{\"memory\":{\"heap_total\":%d,\"heap_used\":%d,\"heap_free\":%d,\"heap_usage_percent\":%.2f},\"uptime\":%d,\"version\":\"%s\",\"vendor\":\"%s\"},\"timestamp\":%d,\"note\":\"Limited system info - OSHI unavailable\"}",
-                    System.getProperty("os.name"),
-                    System.getProperty("os.version"),
-                    System.getProperty("os.arch"),
-                    Runtime.getRuntime().availableProcessors(),
-                    jvmTotalMemory,
-                    jvmUsedMemory,
-                    jvmFreeMemory,
-                    (double) jvmUsedMemory / jvmTotalMemory * 100,
-                    runtimeBean.getUptime(),
-                    System.getProperty("java.version"),
-                    System.getProperty("java.vendor"),
-                    System.currentTimeMillis()
-                );
-                
-                sendResponse(exchange, 200, fallbackResponse);
+                write(json);
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+
+        /**
+         * Documento de /system; também usado como seção de /batch
+         */
+        static void write(DocumentWriter json) {
+            // Telemetria coletada em segundo plano; a requisição apenas lê a última amostra
+            SystemSampler sampler = systemSampler;
+            SystemSampler.Sample sample = sampler != null ? sampler.latest() : null;
+            
+            // Informações da JVM
+            MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+            RuntimeMXBean runtimeBean = ManagementFactory.getRuntimeMXBean();
+            
+            long jvmTotalMemory = memoryBean.getHeapMemoryUsage().getMax();
+            long jvmUsedMemory = memoryBean.getHeapMemoryUsage().getUsed();
+            long jvmFreeMemory = jvmTotalMemory - jvmUsedMemory;
+            
+            json.beginObject().name("system").beginObject();
+            if (sample != null) {
+                json.name("os").beginObject()
+                    .field("name", sampler.osName)
+                    .field("version", sampler.osVersion)
+                    .field("arch", System.getProperty("os.arch"))
+                    .endObject();
+                json.name("cpu").beginObject()
+                    .field("cores", sampler.physicalCores)
+                    .field("logical_processors", sampler.logicalProcessors)
+                    .field("usage", sample.cpuUsage);
+                json.name("usage_avg").beginObject()
+                    .field("1m", sample.cpuAvg1m)
+                    .field("5m", sample.cpuAvg5m)
+                    .field("15m", sample.cpuAvg15m)
+                    .endObject();
+                json.field("model", sampler.cpuModel).endObject();
+                json.name("memory").beginObject()
+                    .field("total", sample.memoryTotal)
+                    .field("used", sample.memoryUsed)
+                    .field("available", sample.memoryAvailable)
+                    .field("usage_percent", (double) sample.memoryUsed / sample.memoryTotal * 100)
+                    .endObject();
+                json.name("processes").beginObject()
+                    .field("count", sample.processCount)
+                    .field("threads", sample.threadCount)
+                    .endObject();
+            } else {
+                // Fallback para informações básicas se OSHI não estiver disponível (ou sem amostra ainda)
+                json.name("os").beginObject()
+                    .field("name", System.getProperty("os.name"))
+                    .field("version", System.getProperty("os.version"))
+                    .field("arch", System.getProperty("os.arch"))
+                    .endObject();
+                json.name("cpu").beginObject()
+                    .field("cores", Runtime.getRuntime().availableProcessors())
+                    .endObject();
+                json.name("memory").beginObject()
+                    .field("total", "N/A")
+                    .field("used", "N/A")
+                    .field("available", "N/A")
+                    .endObject();
             }
+            json.endObject();
+            
+            json.name("jvm").beginObject();
+            json.name("memory").beginObject()
+                .field("heap_total", jvmTotalMemory)
+                .field("heap_used", jvmUsedMemory)
+                .field("heap_free", jvmFreeMemory)
+                .field("heap_usage_percent", (double) jvmUsedMemory / jvmTotalMemory * 100)
+                .endObject();
+            json.field("uptime", runtimeBean.getUptime())
+                .field("version", System.getProperty("java.version"))
+                .field("vendor", System.getProperty("java.vendor"))
+                .endObject();
+            
+            if (sample != null) {
+                json.field("sampled_at", sample.timestamp);
+            }
+            json.field("timestamp", System.currentTimeMillis());
+            if (sample == null) {
+                json.field("note", "Limited system info - OSHI unavailable");
+            }
+            json.endObject();
         }
     }
 
-    static class HealthHandler implements HttpHandler {
+    /**
+     * Telemetria da JVM: pausas de GC por coletor (histograma e percentis), memória por
+     * pool, taxa de alocação, CPU por thread do jogo e do pool HTTP, safepoints, classes
+     * e JIT. Tudo vem da última amostra do JvmSampler; a requisição só escreve.
+     */
+    static class JvmHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            // Tratar requisições OPTIONS para CORS preflight
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            if (!checkRateLimit(exchange)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 200, "");
+                sendResponse(exchange, 200, EMPTY_BODY);
                 return;
             }
-            
-            String jsonResponse = "{\"status\":\"healthy\",\"timestamp\":" + System.currentTimeMillis() + ",\"api_version\":\"1.0.0\"}";
-            sendResponse(exchange, 200, jsonResponse);
-        }
+            JvmSampler sampler = jvmSampler;
+            JvmSampler.Sample sample = sampler != null ? sampler.latest() : null;
+            if (sample == null) {
+                sendError(exchange, 503, "Telemetria da JVM indisponível");
+                return;
+            }
+
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
+            try {
+                sampler.write(json, sample);
+                json.field("timestamp", System.currentTimeMillis()).endObject();
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Tempo de tick do servidor: p50/p95/p99/máximo e ticks lentos nas janelas de 10s, 1m e
+     * 5m, mais os piores ticks recentes (o pior de cada segundo, com jogadores e níveis
+     * ativos naquele momento). Complementa o TPS médio de /status, que esconde picos.
+     */
+    static class PerformanceHandler implements HttpHandler {
+        private static final int WORST_TICKS = 10;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            if (!checkRateLimit(exchange)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            TickProfiler profiler = tickProfiler;
+            if (profiler == null) {
+                sendError(exchange, 503, "Profiler de ticks indisponível");
+                return;
+            }
+
+            int slowTickMs = config.performanceSlowTickMs;
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
+            try {
+                json.beginObject().name("performance").beginObject()
+                    .field("ticks_total", profiler.totalTicks())
+                    .field("slow_tick_ms", slowTickMs);
+                ServerSnapshot snapshot = snapshots.latest();
+                if (snapshot != null) {
+                    json.field("tps", snapshot.tps);
+                }
+                json.name("windows").beginObject();
+                for (int seconds : TickProfiler.WINDOWS) {
+                    TickProfiler.Window window = profiler.window(seconds, slowTickMs * 1000L);
+                    json.name(seconds < 60 ? seconds + "s" : seconds / 60 + "m").beginObject()
+                        .field("ticks", window.ticks)
+                        .field("mean_ms", window.meanMs)
+                        .field("p50_ms", window.p50Ms)
+                        .field("p95_ms", window.p95Ms)
+                        .field("p99_ms", window.p99Ms)
+                        .field("max_ms", window.maxMs)
+                        .field("slow_ticks", window.slowTicks)
+                        .endObject();
+                }
+                json.endObject();
+                json.name("worst_ticks").beginArray();
+                for (TickProfiler.SlowTick tick : profiler.worstTicks(WORST_TICKS)) {
+                    json.beginObject()
+                        .field("time", tick.timestamp)
+                        .field("duration_ms", tick.durationMs)
+                        .field("tick", tick.tick)
+                        .field("players", tick.players)
+                        .field("levels", tick.levels)
+                        .endObject();
+                }
+                json.endArray().endObject()
+                    .field("timestamp", System.currentTimeMillis())
+                    .endObject();
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Vários recursos numa só resposta: /batch?include=status,players,world,system
+     *
+     * Todas as seções vêm do mesmo snapshot e reaproveitam o JSON já codificado de cada
+     * seção (o mesmo servido pelos endpoints individuais). A requisição passa uma vez pela
+     * autenticação e é cobrada no rate limit pela soma dos custos das seções incluídas.
+     * Com a seção system a resposta não passa pelo cache, para não servir telemetria velha.
+     */
+    static class BatchHandler implements HttpHandler {
+
+        enum Part {
+            STATUS("status", "status", "/status"),
+            PLAYERS("players", "players", "/players"),
+            SERVER("server", "server_info", "/server-info"),
+            WORLD("world", "world_info", "/world-info"),
+            SYSTEM("system", "system", "/system");
+
+            final String key;
+            final String endpoint;
+            final String path;
+
+            Part(String key, String endpoint, String path) {
+                this.key = key;
+                this.endpoint = endpoint;
+                this.path = path;
+            }
+
+            static Part fromParam(String param) {
+                for (Part part : values()) {
+                    if (part.key.equals(param) || part.endpoint.equals(param)) {
+                        return part;
+                    }
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            
+            EnumSet<Part> parts;
+            try {
+                parts = parseInclude(QueryParams.parse(exchange.getRequestURI().getRawQuery()).get("include"), config);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+            
+            // Cobrança pelo peso: soma dos custos dos endpoints equivalentes
+            int cost = 0;
+            for (Part part : parts) {
+                cost += costOf(part.path);
+            }
+            if (!checkRateLimit(exchange, cost)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot == null) {
+                sendError(exchange, 503, "Servidor não iniciado");
+                return;
+            }
+
+            DocumentWriter.Format format = responseFormat(exchange);
+            if (parts.contains(Part.SYSTEM)) {
+                // A telemetria do processo muda a cada amostra do SystemSampler, não a cada snapshot:
+                // o documento é montado por requisição (as seções do jogo já vêm codificadas do
+                // snapshot) e não entra no cache de respostas
+                long now = System.currentTimeMillis();
+                sendResponse(exchange, new CachedResponse(render(snapshot, parts, format), null, snapshot, null, now, now));
+                return;
+            }
+            sendResponse(exchange, cachedBody(exchange, snapshot, () -> render(snapshot, parts, format)));
+        }
+
+        /**
+         * Seções pedidas (separadas por vírgula); sem include, todas as habilitadas
+         */
+        static EnumSet<Part> parseInclude(String include, ApiConfig cfg) {
+            EnumSet<Part> parts = EnumSet.noneOf(Part.class);
+            if (include == null || include.trim().isEmpty()) {
+                for (Part part : Part.values()) {
+                    if (cfg.isEndpointEnabled(part.endpoint)) {
+                        parts.add(part);
+                    }
+                }
+                return parts;
+            }
+            for (String name : include.split(",")) {
+                String trimmed = name.trim().toLowerCase(Locale.ROOT);
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                Part part = Part.fromParam(trimmed);
+                if (part == null) {
+                    throw new IllegalArgumentException("Seção desconhecida em include: " + trimmed
+                        + " (use status, players, server, world ou system)");
+                }
+                if (!cfg.isEndpointEnabled(part.endpoint)) {
+                    throw new IllegalArgumentException("Seção desabilitada: " + trimmed);
+                }
+                parts.add(part);
+            }
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("Parâmetro include vazio");
+            }
+            return parts;
+        }
+
+        static byte[] render(ServerSnapshot snapshot, EnumSet<Part> parts, DocumentWriter.Format format) {
+            DocumentWriter json = DocumentWriter.acquire(format);
+            try {
+                json.beginObject();
+                for (Part part : parts) {
+                    json.name(part.key);
+                    switch (part) {
+                        case STATUS:
+                            json.rawValue(snapshot.section(ServerSnapshot.Section.STATUS, format, 0, s -> StatusHandler.render(s, format)));
+                            break;
+                        case PLAYERS:
+                            json.rawValue(PlayersHandler.section(snapshot, format));
+                            break;
+                        case SERVER:
+                            json.rawValue(snapshot.section(ServerSnapshot.Section.SERVER_INFO, format, 0, s -> ServerInfoHandler.render(s, format)));
+                            break;
+                        case WORLD:
+                            json.rawValue(snapshot.section(ServerSnapshot.Section.WORLD_INFO, format, 0, s -> WorldInfoHandler.render(s, format)));
+                            break;
+                        case SYSTEM:
+                            // Telemetria do processo, não do jogo: última amostra do SystemSampler
+                            SystemHandler.write(json);
+                            break;
+                        default:
+                            throw new IllegalStateException(part.name());
+                    }
+                }
+                json.endObject();
+                return json.toByteArray();
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Séries temporais: /history?metric=tps&from=&to=&step=
+     *
+     * from/to em epoch ms (padrão: última hora) e step em segundos (padrão: ~300 pontos).
+     * O nível (segundo, minuto ou hora) é o mais fino que cobre o período, e os pontos são
+     * agregados direto dos anéis do HistoryStore, sem cache de resposta.
+     */
+    static class HistoryHandler implements HttpHandler {
+        private static final int DEFAULT_POINTS = 300;
+        private static final int MAX_POINTS = 10_000;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            if (!checkRateLimit(exchange)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            HistoryStore store = history;
+            if (store == null) {
+                sendError(exchange, 503, "Histórico indisponível");
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            HistoryStore.Metric metric;
+            long from;
+            long to;
+            long step;
+            try {
+                QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+                String name = params.get("metric");
+                if (name == null || name.isEmpty()) {
+                    throw new IllegalArgumentException("Parâmetro obrigatório ausente: metric");
+                }
+                metric = HistoryStore.Metric.fromParam(name);
+                if (metric == null) {
+                    throw new IllegalArgumentException("Métrica desconhecida: " + name + " (use tps, players, heap_used ou cpu)");
+                }
+                to = params.getLong("to", now);
+                from = params.getLong("from", to - 3_600_000L);
+                if (from >= to) {
+                    throw new IllegalArgumentException("Parâmetro from deve ser menor que to");
+                }
+                long rangeSeconds = (to - from + 999) / 1000;
+                step = params.getLong("step", Math.max(1, (rangeSeconds + DEFAULT_POINTS - 1) / DEFAULT_POINTS));
+                if (step < 1) {
+                    throw new IllegalArgumentException("Parâmetro step deve ser positivo");
+                }
+                if (rangeSeconds / step > MAX_POINTS) {
+                    throw new IllegalArgumentException("Pontos demais: aumente step ou reduza o período (máximo " + MAX_POINTS + ")");
+                }
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+
+            long fromSecond = Math.floorDiv(from, 1000);
+            long toSecond = Math.floorDiv(to, 1000);
+            HistoryStore.Tier tier = HistoryStore.tierFor(fromSecond, now / 1000, step);
+            // Passo múltiplo da resolução do nível, para as janelas não partirem baldes
+            long effectiveStep = Math.max(tier.seconds, step / tier.seconds * tier.seconds);
+
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
+            try {
+                json.beginObject()
+                    .field("metric", metric.param)
+                    .field("resolution", tier.name)
+                    .field("step", effectiveStep)
+                    .field("from", from)
+                    .field("to", to);
+                json.name("points").beginArray();
+                int count = store.query(metric, tier, fromSecond, toSecond, effectiveStep,
+                    (timestamp, min, avg, max) -> json.beginArray()
+                        .value(timestamp).value(min).value(avg).value(max)
+                        .endArray());
+                json.endArray();
+                json.field("count", count)
+                    .field("timestamp", now)
+                    .endObject();
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Eventos do journal: /events?cursor=&limit=
+     *
+     * Sem cursor começa no evento mais antigo retido. next_cursor aponta logo depois do
+     * último evento devolvido e continua válido depois de reiniciar o servidor; se os
+     * eventos dele já saíram pela retenção, a leitura recomeça do mais antigo com
+     * truncated=true. Lido direto dos segmentos, sem cache de resposta.
+     */
+    static class EventsHandler implements HttpHandler {
+        private static final int DEFAULT_LIMIT = 100;
+        private static final int MAX_LIMIT = 1000;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            if (!checkRateLimit(exchange)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            EventJournal journal = events;
+            if (journal == null) {
+                sendError(exchange, 503, "Journal de eventos indisponível");
+                return;
+            }
+
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
+            try {
+                try {
+                    QueryParams params = QueryParams.parse(exchange.getRequestURI().getRawQuery());
+                    int limit = params.getInt("limit", DEFAULT_LIMIT, 1, MAX_LIMIT);
+                    json.beginObject();
+                    journal.read(params.get("cursor"), limit, json);
+                } catch (IllegalArgumentException e) {
+                    sendError(exchange, 400, e.getMessage());
+                    return;
+                }
+                json.field("timestamp", System.currentTimeMillis())
+                    .endObject();
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Server-Sent Events: mantém a conexão aberta e recebe eventos de jogadores,
+     * mundo e heartbeat conforme acontecem, em vez de polling de /status e /players
+     */
+    static class StreamHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            // Verificar autenticação se necessário
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            
+            // Verificar rate limiting (cobrado uma vez por conexão)
+            if (!checkRateLimit(exchange)) {
+                sendError(exchange, 429, "Rate limit exceeded");
+                return;
+            }
+            
+            // Tratar requisições OPTIONS para CORS preflight
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            
+            EventStream stream = eventStream;
+            if (stream == null || stream.isFull()) {
+                sendError(exchange, 503, "Stream indisponível");
+                return;
+            }
+            
+            setResponseHeaders(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=UTF-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("X-Accel-Buffering", "no");
+            exchange.sendResponseHeaders(200, 0);
+            
+            // A conexão fica aberta; as escritas são feitas pelo EventStream
+            if (!stream.subscribe(exchange)) {
+                exchange.close();
+            }
+        }
+    }
+
+    static class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            // Tratar requisições OPTIONS para CORS preflight
+            if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 200, EMPTY_BODY);
+                return;
+            }
+            
+            DocumentWriter json = DocumentWriter.acquire(responseFormat(exchange));
+            try {
+                json.beginObject()
+                    .field("status", "healthy")
+                    .field("timestamp", System.currentTimeMillis())
+                    .field("api_version", "1.0.0");
+                json.name("cache").beginObject()
+                    .field("enabled", responseCache.isEnabled())
+                    .field("entries", responseCache.size())
+                    .field("hits", responseCache.hits())
+                    .field("misses", responseCache.misses())
+                    .field("evictions", responseCache.evictions())
+                    .endObject();
+                RequestScheduler requestScheduler = scheduler;
+                if (requestScheduler != null) {
+                    long dequeued = requestScheduler.dequeuedCount();
+                    json.name("scheduler").beginObject()
+                        .field("mode", requestScheduler.mode())
+                        .field("concurrency_limit", requestScheduler.concurrencyLimit())
+                        .field("queue_depth", requestScheduler.queueDepth())
+                        .field("queue_capacity", requestScheduler.queueCapacity())
+                        .field("active_threads", requestScheduler.activeThreads())
+                        .field("pool_size", requestScheduler.poolSize())
+                        .field("rejected_queue_full", requestScheduler.rejectedQueueFull())
+                        .field("rejected_deadline", requestScheduler.rejectedExpired())
+                        .field("rejected_busy", requestScheduler.rejectedPermitTimeout())
+                        .field("queue_wait_avg_ms", dequeued > 0 ? requestScheduler.totalQueueWaitNanos() / 1e6 / dequeued : 0)
+                        .field("queue_wait_max_ms", requestScheduler.maxQueueWaitNanos() / 1e6)
+                        .endObject();
+                }
+                json.endObject();
+                sendResponse(exchange, 200, json);
+            } finally {
+                DocumentWriter.release(json);
+            }
+        }
+    }
+
+    /**
+     * Métricas da API e do jogo no formato texto do Prometheus
+     */
+    static class MetricsHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            // Verificar autenticação se necessário (sem rate limiting: scrapes são periódicos)
+            if (!authenticateRequest(exchange)) {
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+            
+            ApiMetrics.PrometheusText out = new ApiMetrics.PrometheusText();
+            metrics.writeEndpoints(out);
+            
+            // Estado do jogo a partir do último snapshot
+            ServerSnapshot snapshot = snapshots.latest();
+            if (snapshot != null) {
+                out.gauge("necesse_players_online", "Jogadores conectados", snapshot.playersOnline)
+                    .gauge("necesse_players_max", "Slots de jogadores", snapshot.maxPlayers)
+                    .gauge("necesse_tps", "Ticks por segundo do servidor", snapshot.tps)
+                    .gauge("necesse_uptime_seconds", "Tempo desde o início do servidor", snapshot.uptime / 1000.0)
+                    .counter("webapi_snapshot_sequence", "Snapshots capturados", snapshot.sequence)
+                    .gauge("webapi_snapshot_age_seconds", "Idade do último snapshot",
+                        (System.currentTimeMillis() - snapshot.capturedAt) / 1000.0);
+            }
+            
+            // JVM
+            MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+            out.gauge("jvm_heap_used_bytes", "Heap em uso", memoryBean.getHeapMemoryUsage().getUsed())
+                .gauge("jvm_heap_committed_bytes", "Heap reservado", memoryBean.getHeapMemoryUsage().getCommitted())
+                .gauge("jvm_heap_max_bytes", "Heap máximo", memoryBean.getHeapMemoryUsage().getMax())
+                .gauge("jvm_threads", "Threads vivas", ManagementFactory.getThreadMXBean().getThreadCount());
+            JvmSampler sampler = jvmSampler;
+            JvmSampler.Sample jvmSample = sampler != null ? sampler.latest() : null;
+            if (jvmSample != null) {
+                sampler.writeMetrics(out, jvmSample);
+            }
+            
+            // Cache, scheduler, stream e rate limiting
+            out.gauge("webapi_cache_entries", "Entradas no cache de respostas", responseCache.size())
+                .counter("webapi_cache_hits_total", "Acertos do cache de respostas", responseCache.hits())
+                .counter("webapi_cache_misses_total", "Faltas do cache de respostas", responseCache.misses())
+                .counter("webapi_cache_evictions_total", "Remoções do cache de respostas", responseCache.evictions());
+            RequestScheduler requestScheduler = scheduler;
+            if (requestScheduler != null) {
+                out.gauge("webapi_queue_depth", "Conexões aguardando na fila", requestScheduler.queueDepth())
+                    .gauge("webapi_threads_active", "Threads HTTP ocupadas", requestScheduler.activeThreads())
+                    .counter("webapi_queue_wait_seconds_total", "Tempo total de espera na fila",
+                        requestScheduler.totalQueueWaitNanos() / 1e9);
+                out.help("webapi_shed_total", "Requisições descartadas pelo scheduler", "counter")
+                    .sample("webapi_shed_total", "reason", "queue_full", requestScheduler.rejectedQueueFull())
+                    .sample("webapi_shed_total", "reason", "deadline", requestScheduler.rejectedExpired())
+                    .sample("webapi_shed_total", "reason", "busy", requestScheduler.rejectedPermitTimeout());
+            }
+            EventStream stream = eventStream;
+            if (stream != null) {
+                out.gauge("webapi_stream_subscribers", "Clientes conectados ao /stream", stream.subscriberCount());
+            }
+            StaticExporter staticExporter = exporter;
+            if (staticExporter != null) {
+                out.counter("webapi_export_files_written_total", "Arquivos gravados pela exportação estática",
+                        staticExporter.filesWritten())
+                    .counter("webapi_export_files_unchanged_total", "Arquivos não regravados por não terem mudado",
+                        staticExporter.filesUnchanged())
+                    .counter("webapi_export_failures_total", "Falhas da exportação estática", staticExporter.failures());
+            }
+            RateLimiter limiter = instance != null ? instance.rateLimiter : null;
+            if (limiter != null) {
+                out.gauge("webapi_rate_limit_buckets", "Clientes acompanhados pelo rate limiter", limiter.size());
+            }
+            
+            sendResponse(exchange, 200, out.toString().getBytes(StandardCharsets.UTF_8),
+                "text/plain; version=0.0.4; charset=utf-8");
+        }
     }
 
     private static WebInfoAPI instance;
+    private static final byte[] EMPTY_BODY = new byte[0];
     
     // Métodos de autenticação e rate limiting
     private static boolean authenticateRequest(HttpExchange exchange) {
-        if (instance == null || !instance.getConfigBoolean("api.security.require_auth", false)) {
-            return true; // Autenticação não necessária
-        }
-        
-        String apiKey = instance.getConfigString("api.security.api_key", "");
-        if (apiKey.isEmpty() || "your-secure-api-key-here".equals(apiKey)) {
-            return true; // Chave não configurada adequadamente
+        // Sem exigência, ou chave não configurada adequadamente: autenticação não necessária
+        ApiConfig cfg = config;
+        if (!cfg.authRequired) {
+            return true;
         }
         
         String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
         String apiKeyHeader = exchange.getRequestHeaders().getFirst("X-API-Key");
         
-        return (authHeader != null && authHeader.equals("Bearer " + apiKey)) ||
-               (apiKeyHeader != null && apiKeyHeader.equals(apiKey));
+        boolean authorized = (authHeader != null && authHeader.equals(cfg.bearerToken)) ||
+               (apiKeyHeader != null && apiKeyHeader.equals(cfg.apiKey));
+        if (!authorized) {
+            metrics.recordAuthFailure(exchange.getHttpContext().getPath());
+        }
+        return authorized;
+    }
+    
+    static boolean checkRateLimit(HttpExchange exchange) {
+        return checkRateLimit(exchange, costOf(exchange.getHttpContext().getPath()));
+    }
+    
+    /**
+     * Custo configurado do endpoint (api.rate_limit.cost.*)
+     */
+    private static int costOf(String contextPath) {
+        RateLimiter limiter = instance != null ? instance.rateLimiter : null;
+        return limiter != null ? limiter.costOf(contextPath) : 1;
     }
     
-    private static boolean checkRateLimit(HttpExchange exchange) {
-        if (instance == null || !instance.getConfigBoolean("api.rate_limit.enabled", true)) {
+    private static boolean checkRateLimit(HttpExchange exchange, int cost) {
+        RateLimiter limiter = instance != null ? instance.rateLimiter : null;
+        if (limiter == null || !limiter.isEnabled()) {
             return true; // Rate limiting desabilitado
         }
         
         String clientIP = exchange.getRemoteAddress().getAddress().getHostAddress();
-        long currentTime = System.currentTimeMillis();
-        int requestsPerMinute = instance.getConfigInt("api.rate_limit.requests_per_minute", 60);
+        RateLimiter.Decision decision = limiter.acquire(clientIP, requestApiKey(exchange), cost);
         
-        // Limpar entradas antigas (mais de 1 minuto)
-        instance.rateLimitMap.entrySet().removeIf(entry -> 
-            currentTime - entry.getValue() > 60000);
-        instance.requestCountMap.entrySet().removeIf(entry -> 
-            !instance.rateLimitMap.containsKey(entry.getKey()));
-        
-        // Verificar rate limit
-        int currentCount = instance.requestCountMap.getOrDefault(clientIP, 0);
-        if (currentCount >= requestsPerMinute) {
-            return false;
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(decision.limit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(decision.remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+        if (!decision.allowed) {
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(decision.resetSeconds()));
+            metrics.recordRateLimited(exchange.getHttpContext().getPath());
         }
-        
-        // Atualizar contadores
-        instance.rateLimitMap.put(clientIP, currentTime);
-        instance.requestCountMap.put(clientIP, currentCount + 1);
-        
-        return true;
+        return decision.allowed;
     }
     
-    private static void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+    /**
+     * Chave de API enviada pelo cliente (X-API-Key ou Authorization: Bearer), se houver
+     */
+    private static String requestApiKey(HttpExchange exchange) {
+        String apiKeyHeader = exchange.getRequestHeaders().getFirst("X-API-Key");
+        if (apiKeyHeader != null) {
+            return apiKeyHeader;
+        }
+        String authHeader = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring("Bearer ".length());
+        }
+        return null;
+    }
+    
+    /**
+     * Formato do corpo negociado pelo Accept (JSON por padrão)
+     */
+    private static DocumentWriter.Format responseFormat(HttpExchange exchange) {
+        return DocumentWriter.Format.negotiate(exchange.getRequestHeaders().getFirst("Accept"));
+    }
+
+    /**
+     * Corpo da resposta via cache, chaveado por caminho, query, formato e flags de visibilidade de dados
+     */
+    private static CachedResponse cachedBody(HttpExchange exchange, ServerSnapshot snapshot,
+                                             ResponseCache.Loader loader) throws IOException {
+        return cachedBody(exchange, snapshot, loader, null);
+    }
+
+    /**
+     * Como {@link #cachedBody(HttpExchange, ServerSnapshot, ResponseCache.Loader)}, com um ETag
+     * fraco calculado sobre o que validator gera (o corpo sem os campos de relógio)
+     */
+    private static CachedResponse cachedBody(HttpExchange exchange, ServerSnapshot snapshot,
+                                             ResponseCache.Loader loader, ResponseCache.Loader validator) throws IOException {
+        return responseCache.get(cacheKey(exchange), snapshot, loader, validator);
+    }
+
+    private static String cacheKey(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        ApiConfig cfg = config;
+        boolean includeCoords = cfg.includeCoordinates;
+        boolean includeStats = cfg.includePlayerStats;
+
+        StringBuilder key = new StringBuilder(64);
+        key.append(exchange.getRequestURI().getPath());
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        key.append('|').append(includeCoords ? 'c' : '-').append(includeStats ? 's' : '-');
+        key.append('|').append(responseFormat(exchange).ordinal());
+        return key.toString();
+    }
+
+    /**
+     * Resposta de erro no formato {"error": "..."}
+     */
+    private static void sendError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        JsonWriter json = JsonWriter.acquire();
+        try {
+            json.beginObject().field("error", message).endObject();
+            sendResponse(exchange, statusCode, json);
+        } finally {
+            JsonWriter.release(json);
+        }
+    }
+
+    /**
+     * Envia o conteúdo do writer direto do buffer, sem cópia intermediária; se o cliente
+     * aceitar compressão e o corpo passar do limite mínimo, ele é comprimido na hora
+     */
+    private static void sendResponse(HttpExchange exchange, int statusCode, DocumentWriter json) throws IOException {
+        Compression.Encoding encoding = compression.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept-Encoding"), json.size());
+        if (encoding != Compression.Encoding.IDENTITY) {
+            writeBody(exchange, statusCode, json.format.contentType,
+                compression.encode(json.toByteArray(), encoding), encoding, null);
+            return;
+        }
+        setResponseHeaders(exchange);
+        exchange.getResponseHeaders().set("Content-Type", json.format.contentType);
+        exchange.getResponseHeaders().set("Vary", compression.isEnabled() ? "Accept, Accept-Encoding" : "Accept");
+        exchange.sendResponseHeaders(statusCode, json.size());
+        try (OutputStream os = exchange.getResponseBody()) {
+            json.writeTo(os);
+        }
+        metrics.recordBytes(exchange.getHttpContext().getPath(), json.size());
+    }
+
+    /**
+     * Envia uma resposta 200 com ETag, Last-Modified e Cache-Control, ou um 304 sem corpo
+     * se o cliente já tiver a mesma versão (If-None-Match / If-Modified-Since).
+     * A variante comprimida vem da própria entrada do cache.
+     */
+    private static void sendResponse(HttpExchange exchange, CachedResponse response) throws IOException {
+        Compression.Encoding encoding = compression.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept-Encoding"), response.body.length);
+        String etag = response.etag(encoding);
+
+        long now = System.currentTimeMillis();
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Last-Modified", response.lastModifiedHeader);
+        if (response.snapshotSequence >= 0) {
+            // Metadados da captura ficam fora do corpo para ele não mudar a cada snapshot
+            exchange.getResponseHeaders().set("X-Snapshot-Sequence", Long.toString(response.snapshotSequence));
+            exchange.getResponseHeaders().set("X-Snapshot-Time", Long.toString(response.snapshotTime));
+        }
+        long maxAge = response.maxAgeSeconds(now);
+        exchange.getResponseHeaders().set("Cache-Control", maxAge > 0 ? "max-age=" + maxAge : "no-cache");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (response.isNotModified(etag, ifNoneMatch, ifModifiedSince)) {
+            setResponseHeaders(exchange);
+            exchange.getResponseHeaders().remove("Content-Type");
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        writeBody(exchange, 200, responseFormat(exchange).contentType, response.body(compression, encoding), encoding,
+            encoding == Compression.Encoding.IDENTITY ? response.directBody() : null);
+    }
+
+    private static void sendResponse(HttpExchange exchange, int statusCode, byte[] responseBytes) throws IOException {
+        sendResponse(exchange, statusCode, responseBytes, "application/json; charset=UTF-8");
+    }
+
+    /**
+     * Resposta sem cache: comprimida na hora se o cliente aceitar e o corpo passar do limite mínimo
+     */
+    private static void sendResponse(HttpExchange exchange, int statusCode, byte[] responseBytes, String contentType) throws IOException {
+        Compression.Encoding encoding = compression.negotiate(
+            exchange.getRequestHeaders().getFirst("Accept-Encoding"), responseBytes.length);
+        writeBody(exchange, statusCode, contentType, compression.encode(responseBytes, encoding), encoding, null);
+    }
+
+    /**
+     * Envia um corpo que não muda mais. No engine "nio" ele é entregue ao socket sem cópia;
+     * direct, se houver, é o mesmo conteúdo fora do heap.
+     */
+    private static void writeBody(HttpExchange exchange, int statusCode, String contentType,
+                                  byte[] body, Compression.Encoding encoding, ByteBuffer direct) throws IOException {
+        setResponseHeaders(exchange);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Vary", compression.isEnabled() ? "Accept, Accept-Encoding" : "Accept");
+        if (encoding != Compression.Encoding.IDENTITY) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding.token);
+        }
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (os instanceof HttpEngine.SharedBodyOutput) {
+                ((HttpEngine.SharedBodyOutput) os).writeShared(direct != null ? direct : ByteBuffer.wrap(body));
+            } else {
+                os.write(body);
+            }
+        }
+        metrics.recordBytes(exchange.getHttpContext().getPath(), body.length);
+    }
+
+    private static void setResponseHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
         
         // Configurar CORS baseado nas configurações
-        if (instance != null && instance.getConfigBoolean("api.cors.enabled", true)) {
-            String allowedOrigins = instance.getConfigString("api.cors.allowed_origins", "*");
-            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", allowedOrigins);
+        ApiConfig cfg = config;
+        if (cfg.corsEnabled) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", cfg.corsAllowedOrigins);
             exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match, If-Modified-Since");
+            exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag, Last-Modified, X-Snapshot-Sequence, X-Snapshot-Time");
         } else {
-            // Fallback para CORS básico se não houver instância
+            // CORS desabilitado na configuração: mantém o comportamento básico
             exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
             exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization");
-        }
-        
-        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, responseBytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(responseBytes);
+            exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match, If-Modified-Since");
+            exchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag, Last-Modified, X-Snapshot-Sequence, X-Snapshot-Time");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.meuservidor.webapi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Versão Java 21+ (META-INF/versions/21 do JAR multi-release): virtual threads reais
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    static boolean isSupported() {
+        return true;
+    }
+
+    static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+
+    /**
+     * Executor com uma virtual thread nova por tarefa
+     */
+    static ExecutorService newPerTaskExecutor(String namePrefix) {
+        ThreadFactory factory = Thread.ofVirtual().name(namePrefix + "-", 1).factory();
+        return Executors.newThreadPerTaskExecutor(factory);
+    }
+}
@@ -0,0 +1,127 @@
+package com.meuservidor.webapi;
+
+import static com.meuservidor.webapi.MsgPackWriterTest.hex;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Codificação CBOR (RFC 8949) conferida byte a byte: contêineres de comprimento indefinido,
+ * cabeçalhos na menor largura e decimais em float32 só quando exatos
+ */
+public class CborWriterTest {
+
+    @Test
+    public void containersUseIndefiniteLength() {
+        assertEncoded("bf ff", w -> w.beginObject().endObject());
+        assertEncoded("9f ff", w -> w.beginArray().endArray());
+        assertEncoded("bf 61 61 01 61 62 9f f5 f4 f6 ff ff", w -> w.beginObject()
+            .field("a", 1)
+            .name("b").beginArray().value(true).value(false).nullValue().endArray()
+            .endObject());
+    }
+
+    @Test
+    public void rawValueIsCopiedVerbatim() {
+        CborWriter section = new CborWriter(16);
+        section.beginObject().field("a", true).endObject();
+        assertEncoded("bf 61 73 bf 61 61 f5 ff ff",
+            w -> w.beginObject().name("s").rawValue(section.toByteArray()).endObject());
+    }
+
+    @Test
+    public void unsignedIntegersUseSmallestHead() {
+        assertValue("00", 0);
+        assertValue("17", 23);
+        assertValue("18 18", 24);
+        assertValue("18 ff", 255);
+        assertValue("19 01 00", 256);
+        assertValue("19 ff ff", 0xFFFF);
+        assertValue("1a 00 01 00 00", 0x10000);
+        assertValue("1a ff ff ff ff", 0xFFFFFFFFL);
+        assertValue("1b 00 00 00 01 00 00 00 00", 0x100000000L);
+        assertValue("1b 7f ff ff ff ff ff ff ff", Long.MAX_VALUE);
+    }
+
+    @Test
+    public void negativeIntegersEncodeMinusOneMinusN() {
+        assertValue("20", -1);
+        assertValue("37", -24);
+        assertValue("38 18", -25);
+        assertValue("38 ff", -256);
+        assertValue("39 01 00", -257);
+        assertValue("3a 00 01 00 00", -65537);
+        assertValue("3b 7f ff ff ff ff ff ff ff", Long.MIN_VALUE);
+    }
+
+    @Test
+    public void decimalsUseFloat32OnlyWhenExact() {
+        assertEncoded("fa 3f c0 00 00", w -> w.value(1.5));
+        assertEncoded("fa 41 9f c2 8f", w -> w.value((double) 19.97f));
+        assertEncoded("fb 3f b9 99 99 99 99 99 9a", w -> w.value(0.1));
+        assertEncoded("f6", w -> w.value(Double.NaN));
+        assertEncoded("f6", w -> w.value(Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void textUsesUtf8Length() {
+        assertEncoded("60", w -> w.value(""));
+        assertEncoded("62 c3 a7", w -> w.value("ç"));
+        assertEncoded("63 e2 82 ac", w -> w.value("€"));
+        assertEncoded("64 f0 9f 98 80", w -> w.value("😀"));
+        assertEncoded("61 3f", w -> w.value("\uDE00"));
+        assertEncoded("f6", w -> w.value((String) null));
+
+        char[] chars = new char[24];
+        Arrays.fill(chars, 'x');
+        byte[] encoded = encode(w -> w.value(new String(chars)));
+        assertEquals("78 18", hex(Arrays.copyOf(encoded, 2)));
+        assertEquals(2 + 24, encoded.length);
+    }
+
+    @Test
+    public void structuralMisuseIsRejected() {
+        try {
+            new CborWriter(16).endArray();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Nenhum objeto ou array aberto", e.getMessage());
+        }
+        CborWriter w = new CborWriter(16);
+        try {
+            for (int i = 0; i <= DocumentWriter.MAX_DEPTH; i++) {
+                w.beginObject();
+            }
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Documento aninhado demais", e.getMessage());
+        }
+    }
+
+    @Test
+    public void negotiatedFormatsMatchWriters() {
+        assertEquals(DocumentWriter.Format.CBOR, DocumentWriter.Format.negotiate("application/cbor"));
+        assertEquals(DocumentWriter.Format.MSGPACK, DocumentWriter.Format.negotiate("application/msgpack"));
+        assertEquals(DocumentWriter.Format.JSON, DocumentWriter.Format.negotiate("application/cbor;q=0.5, application/json"));
+        assertEquals(DocumentWriter.Format.JSON, DocumentWriter.Format.negotiate("*/*"));
+        assertEquals(CborWriter.class, DocumentWriter.create(DocumentWriter.Format.CBOR).getClass());
+        assertEquals(MsgPackWriter.class, DocumentWriter.create(DocumentWriter.Format.MSGPACK).getClass());
+    }
+
+    private static void assertValue(String expected, long value) {
+        assertEncoded(expected, w -> w.value(value));
+    }
+
+    private static void assertEncoded(String expected, MsgPackWriterTest.Document document) {
+        assertEquals(expected, hex(encode(document)));
+    }
+
+    private static byte[] encode(MsgPackWriterTest.Document document) {
+        CborWriter w = new CborWriter(16);
+        document.write(w);
+        return w.toByteArray();
+    }
+}
@@ -0,0 +1,294 @@
+package com.meuservidor.webapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Journal de /events: recuperação de um final incompleto ao reabrir, validação de cursores
+ * e retenção por tamanho. Cada registro de início/parada ocupa 8 + 17 bytes, e o segmento
+ * tem um cabeçalho de 32 bytes.
+ */
+public class EventJournalTest {
+
+    private static final int HEADER = 32;
+    private static final int SERVER_EVENT = 8 + 17;
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"next_cursor\":\"([0-9a-f]+)-(\\d+)\"");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<EventJournal> opened = new ArrayList<>();
+
+    @After
+    public void stopJournals() {
+        for (EventJournal journal : opened) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    public void eventsSurviveReopen() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        EventJournal journal = open(dir, 4096, 1);
+        journal.record(EventJournal.Type.SERVER_START);
+        journal.record(EventJournal.Type.SERVER_STOP);
+        journal.stop();
+
+        String page = read(open(dir, 4096, 1), null, 10);
+        assertEquals(2, count(page));
+        assertTrue(page, page.indexOf("server_start") < page.indexOf("server_stop"));
+        assertTrue(page, page.contains("\"end\":true"));
+        assertEquals(2 * SERVER_EVENT, nextPosition(page));
+    }
+
+    @Test
+    public void tornTailIsDiscardedAndOverwritten() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        EventJournal journal = open(dir, 4096, 1);
+        for (int i = 0; i < 3; i++) {
+            journal.record(EventJournal.Type.SERVER_START);
+        }
+        journal.stop();
+
+        // Queda no meio da escrita: tamanho gravado, mas conteúdo e crc não conferem
+        Path file = onlySegment(dir);
+        int tail = HEADER + 3 * SERVER_EVENT;
+        patch(file, tail, ByteBuffer.allocate(12).putInt(17).putInt(0x12345678).put((byte) 2).array());
+
+        journal = open(dir, 4096, 1);
+        String page = read(journal, null, 10);
+        assertEquals(3, count(page));
+        assertFalse(page, page.contains("unknown"));
+        assertEquals(3 * SERVER_EVENT, nextPosition(page));
+
+        // O próximo registro ocupa o lugar do incompleto
+        journal.record(EventJournal.Type.SERVER_STOP);
+        journal.stop();
+        page = read(open(dir, 4096, 1), null, 10);
+        assertEquals(4, count(page));
+        assertTrue(page, page.contains("server_stop"));
+        assertEquals(4 * SERVER_EVENT, nextPosition(page));
+    }
+
+    @Test
+    public void recordWithBadChecksumEndsTheLog() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        EventJournal journal = open(dir, 4096, 1);
+        for (int i = 0; i < 3; i++) {
+            journal.record(EventJournal.Type.SERVER_START);
+        }
+        journal.stop();
+
+        // Um bit trocado no instante do terceiro registro
+        Path file = onlySegment(dir);
+        int third = HEADER + 2 * SERVER_EVENT;
+        byte[] bytes = Files.readAllBytes(file);
+        patch(file, third + 8 + 1, new byte[] {(byte) (bytes[third + 8 + 1] ^ 1)});
+
+        journal = open(dir, 4096, 1);
+        String page = read(journal, null, 10);
+        assertEquals(2, count(page));
+
+        // Os bytes depois do último registro válido são zerados ao reabrir
+        journal.stop();
+        bytes = Files.readAllBytes(file);
+        for (int i = third; i < bytes.length; i++) {
+            assertEquals("byte " + i, 0, bytes[i]);
+        }
+    }
+
+    @Test
+    public void cursorsResumeAfterTheLastEvent() throws IOException {
+        EventJournal journal = open(folder.getRoot().toPath(), 4096, 1);
+        for (int i = 0; i < 5; i++) {
+            journal.record(EventJournal.Type.SERVER_START);
+        }
+        awaitEvents(journal, 5);
+
+        String first = read(journal, null, 2);
+        assertEquals(2, count(first));
+        assertTrue(first, first.contains("\"end\":false"));
+        String second = read(journal, cursor(first), 10);
+        assertEquals(3, count(second));
+        assertTrue(second, second.contains("\"end\":true"));
+        assertTrue(second, second.contains("\"truncated\":false"));
+
+        // No fim, o mesmo cursor volta sem eventos até o próximo registro
+        String empty = read(journal, cursor(second), 10);
+        assertEquals(0, count(empty));
+        assertEquals(cursor(second), cursor(empty));
+    }
+
+    @Test
+    public void invalidCursorsAreRejected() throws IOException {
+        EventJournal journal = open(folder.getRoot().toPath(), 4096, 1);
+        journal.record(EventJournal.Type.SERVER_START);
+        journal.record(EventJournal.Type.SERVER_STOP);
+        awaitEvents(journal, 2);
+        String id = cursor(read(journal, null, 10)).split("-")[0];
+
+        assertRejected(journal, "abc", "Cursor inválido: abc");
+        assertRejected(journal, "-5", "Cursor inválido: -5");
+        assertRejected(journal, id + "-x", "Cursor inválido: " + id + "-x");
+        // No meio de um registro
+        assertRejected(journal, id + "-1", "Cursor inválido: " + id + "-1");
+        assertRejected(journal, id + "-" + (2 * SERVER_EVENT + 1),
+            "Cursor além do fim do journal: " + id + "-" + (2 * SERVER_EVENT + 1));
+    }
+
+    @Test
+    public void cursorFromAnotherJournalRestartsFromOldest() throws IOException {
+        EventJournal journal = open(folder.getRoot().toPath(), 4096, 1);
+        journal.record(EventJournal.Type.SERVER_START);
+        awaitEvents(journal, 1);
+        String id = cursor(read(journal, null, 10)).split("-")[0];
+        String other = Long.toHexString(Long.parseLong(id, 16) ^ 1);
+
+        String page = read(journal, other + "-" + SERVER_EVENT, 10);
+        assertEquals(1, count(page));
+        assertTrue(page, page.contains("\"truncated\":true"));
+    }
+
+    @Test
+    public void readsContinueAcrossSegments() throws IOException {
+        // 256 bytes: 8 registros por segmento
+        EventJournal journal = open(folder.getRoot().toPath(), 256, 1);
+        for (int i = 0; i < 20; i++) {
+            journal.record(EventJournal.Type.SERVER_START);
+        }
+        awaitEvents(journal, 20);
+        assertEquals(3, journal.segmentCount());
+
+        int total = 0;
+        String cursor = null;
+        String page;
+        do {
+            page = read(journal, cursor, 3);
+            total += count(page);
+            cursor = cursor(page);
+        } while (page.contains("\"end\":false"));
+        assertEquals(20, total);
+    }
+
+    @Test
+    public void retentionDropsOldestSegmentsAndTruncatesStaleCursors() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        // retention_mb 0: só o segmento ativo sobrevive a cada troca
+        EventJournal journal = open(dir, 256, 0);
+        journal.record(EventJournal.Type.SERVER_START);
+        awaitEvents(journal, 1);
+        String stale = cursor(read(journal, null, 10));
+
+        for (int i = 0; i < 19; i++) {
+            journal.record(EventJournal.Type.SERVER_STOP);
+        }
+        journal.stop();
+        assertEquals(1, journal.segmentCount());
+        assertEquals(256, journal.retainedBytes());
+        assertEquals(1, segments(dir).size());
+
+        journal = open(dir, 256, 0);
+        String page = read(journal, stale, 100);
+        assertTrue(page, page.contains("\"truncated\":true"));
+        // 20 registros, 8 por segmento: o terceiro guarda os 4 últimos
+        assertEquals(4, count(page));
+        assertFalse(page, page.contains("server_start"));
+        assertEquals(20 * SERVER_EVENT, nextPosition(page));
+    }
+
+    private EventJournal open(Path dir, int segmentBytes, int retentionMb) {
+        EventJournal journal = EventJournal.start(new SnapshotEngine(20), dir, segmentBytes, retentionMb, 1);
+        opened.add(journal);
+        return journal;
+    }
+
+    private static String read(EventJournal journal, String cursor, int limit) {
+        JsonWriter json = new JsonWriter(256);
+        json.beginObject();
+        journal.read(cursor, limit, json);
+        json.endObject();
+        return new String(json.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A gravação é assíncrona: espera até o journal ter os eventos esperados
+     */
+    private static void awaitEvents(EventJournal journal, int expected) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (count(read(journal, null, 1_000)) < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Eventos não gravados a tempo");
+            }
+            Thread.yield();
+        }
+    }
+
+    private static void assertRejected(EventJournal journal, String cursor, String message) {
+        try {
+            read(journal, cursor, 10);
+            fail("Cursor aceito: " + cursor);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static int count(String page) {
+        Matcher m = Pattern.compile("\"count\":(\\d+)").matcher(page);
+        assertTrue(page, m.find());
+        return Integer.parseInt(m.group(1));
+    }
+
+    private static String cursor(String page) {
+        Matcher m = NEXT_CURSOR.matcher(page);
+        assertTrue(page, m.find());
+        return m.group(1) + "-" + m.group(2);
+    }
+
+    private static long nextPosition(String page) {
+        Matcher m = NEXT_CURSOR.matcher(page);
+        assertTrue(page, m.find());
+        return Long.parseLong(m.group(2));
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "events-*.log")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static Path onlySegment(Path dir) throws IOException {
+        List<Path> files = segments(dir);
+        assertEquals(1, files.size());
+        return files.get(0);
+    }
+
+    private static void patch(Path file, int offset, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes), offset);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.meuservidor.webapi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Cabeçalhos de mapas e arrays preenchidos ao fechar (com o conteúdo deslocado para a menor
+ * forma) e codificação dos valores, conferidos byte a byte com a especificação MessagePack
+ */
+public class MsgPackWriterTest {
+
+    @Test
+    public void emptyContainersUseFixHeaders() {
+        assertEncoded("80", w -> w.beginObject().endObject());
+        assertEncoded("90", w -> w.beginArray().endArray());
+    }
+
+    @Test
+    public void nestedContainersAreCompactedInnermostFirst() {
+        // {"x":[1,2],"y":{}}: cada contêiner perde 4 dos 5 bytes reservados
+        assertEncoded("82 a1 78 92 01 02 a1 79 80", w -> w.beginObject()
+            .name("x").beginArray().value(1).value(2).endArray()
+            .name("y").beginObject().endObject()
+            .endObject());
+    }
+
+    @Test
+    public void headerWidthFollowsElementCount() {
+        assertArrayHeader(15, "9f");
+        assertArrayHeader(16, "dc 00 10");
+        assertArrayHeader(0xFFFF, "dc ff ff");
+        assertArrayHeader(0x10000, "dd 00 01 00 00");
+    }
+
+    @Test
+    public void mapHeaderCountsPairsNotItems() {
+        MsgPackWriter w = new MsgPackWriter(16);
+        w.beginObject();
+        for (int i = 0; i < 16; i++) {
+            w.field("k" + Integer.toHexString(i), i);
+        }
+        w.endObject();
+        byte[] bytes = w.toByteArray();
+        assertEquals("de 00 10", hex(Arrays.copyOf(bytes, 3)));
+        // 16 pares de "kN" (3 bytes) e fixint (1 byte) logo depois do cabeçalho
+        assertEquals(3 + 16 * 4, bytes.length);
+    }
+
+    @Test
+    public void rawValueCountsAsOneElement() {
+        byte[] section = encode(w -> w.beginObject().field("a", true).endObject());
+        assertEncoded("92 81 a1 61 c3 c0", w -> w.beginArray().rawValue(section).nullValue().endArray());
+        assertEncoded("81 a1 73 81 a1 61 c3", w -> w.beginObject().name("s").rawValue(section).endObject());
+    }
+
+    @Test
+    public void integersUseSmallestForm() {
+        assertValue("00", 0);
+        assertValue("7f", 127);
+        assertValue("cc 80", 128);
+        assertValue("cc ff", 255);
+        assertValue("cd 01 00", 256);
+        assertValue("cd ff ff", 0xFFFF);
+        assertValue("ce 00 01 00 00", 0x10000);
+        assertValue("ce ff ff ff ff", 0xFFFFFFFFL);
+        assertValue("cf 00 00 00 01 00 00 00 00", 0x100000000L);
+        assertValue("ff", -1);
+        assertValue("e0", -32);
+        assertValue("d0 df", -33);
+        assertValue("d0 80", -128);
+        assertValue("d1 ff 7f", -129);
+        assertValue("d1 80 00", Short.MIN_VALUE);
+        assertValue("d2 ff ff 7f ff", Short.MIN_VALUE - 1);
+        assertValue("d2 80 00 00 00", Integer.MIN_VALUE);
+        assertValue("d3 ff ff ff ff 7f ff ff ff", Integer.MIN_VALUE - 1L);
+        assertValue("d3 80 00 00 00 00 00 00 00", Long.MIN_VALUE);
+    }
+
+    @Test
+    public void decimalsUseFloat32OnlyWhenExact() {
+        assertEncoded("ca 3f 00 00 00", w -> w.value(0.5));
+        assertEncoded("cb 3f b9 99 99 99 99 99 9a", w -> w.value(0.1));
+        assertEncoded("c0", w -> w.value(Double.NaN));
+        assertEncoded("c0", w -> w.value(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void stringHeadersAndUtf8() {
+        assertEncoded("a0", w -> w.value(""));
+        assertEncoded("a2 c3 a7", w -> w.value("ç"));
+        assertEncoded("a4 f0 9f 98 80", w -> w.value("😀"));
+        // Surrogate isolado vira '?'
+        assertEncoded("a1 3f", w -> w.value("\uD83D"));
+        assertStringHeader(31, "bf");
+        assertStringHeader(32, "d9 20");
+        assertStringHeader(0xFF, "d9 ff");
+        assertStringHeader(0x100, "da 01 00");
+        assertStringHeader(0x10000, "db 00 01 00 00");
+        assertEncoded("c0", w -> w.value((String) null));
+    }
+
+    @Test
+    public void structuralMisuseIsRejected() {
+        try {
+            new MsgPackWriter(16).endObject();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Nenhum objeto ou array aberto", e.getMessage());
+        }
+        MsgPackWriter w = new MsgPackWriter(16);
+        try {
+            for (int i = 0; i <= DocumentWriter.MAX_DEPTH; i++) {
+                w.beginArray();
+            }
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Documento aninhado demais", e.getMessage());
+        }
+    }
+
+    @Test
+    public void resetClearsPendingContainers() {
+        MsgPackWriter w = new MsgPackWriter(16);
+        w.beginObject().name("a").beginArray();
+        w.reset();
+        w.beginArray().value(1).endArray();
+        assertEquals("91 01", hex(w.toByteArray()));
+    }
+
+    private static void assertArrayHeader(int count, String header) {
+        MsgPackWriter w = new MsgPackWriter(16);
+        w.beginArray();
+        for (int i = 0; i < count; i++) {
+            w.value(1);
+        }
+        w.endArray();
+        byte[] bytes = w.toByteArray();
+        int headerLength = header.split(" ").length;
+        assertEquals(header, hex(Arrays.copyOf(bytes, headerLength)));
+        assertEquals(headerLength + count, bytes.length);
+        assertEquals(1, bytes[bytes.length - 1]);
+    }
+
+    private static void assertStringHeader(int length, String header) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'x');
+        byte[] bytes = encode(w -> w.value(new String(chars)));
+        int headerLength = header.split(" ").length;
+        assertEquals(header, hex(Arrays.copyOf(bytes, headerLength)));
+        assertEquals(headerLength + length, bytes.length);
+    }
+
+    private static void assertValue(String expected, long value) {
+        assertEncoded(expected, w -> w.value(value));
+    }
+
+    private static void assertEncoded(String expected, Document document) {
+        assertArrayEquals(expected, bytes(expected), encode(document));
+    }
+
+    private static byte[] encode(Document document) {
+        MsgPackWriter w = new MsgPackWriter(16);
+        document.write(w);
+        return w.toByteArray();
+    }
+
+    interface Document {
+        void write(DocumentWriter w);
+    }
+
+    static byte[] bytes(String hex) {
+        String[] parts = hex.split(" ");
+        byte[] bytes = new byte[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(parts[i], 16);
+        }
+        return bytes;
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : bytes) {
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(String.format("%02x", b & 0xFF));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.meuservidor.webapi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Paginação por cursor de /players: codificação, busca da posição e estabilidade
+ * quando jogadores entram e saem entre as páginas
+ */
+public class PlayerQueryTest {
+
+    private static final ApiConfig CONFIG = ApiConfig.defaults();
+
+    @Test
+    public void cursorRoundTripsAndIsUrlSafe() {
+        PlayerSnapshot player = player(7, "Ana", 42, 1_000);
+        for (PlayerQuery.Sort sort : PlayerQuery.Sort.values()) {
+            for (boolean descending : new boolean[] {false, true}) {
+                String encoded = PlayerQuery.Cursor.after(sort, descending, player).encode();
+                assertFalse(encoded, encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+
+                PlayerQuery.Cursor decoded = PlayerQuery.Cursor.decode(encoded);
+                assertEquals(sort, decoded.sort);
+                assertEquals(descending, decoded.descending);
+                assertEquals(player.id, decoded.id);
+                if (sort == PlayerQuery.Sort.NAME) {
+                    assertEquals("Ana", decoded.textKey);
+                } else {
+                    assertEquals(sort.key(player), decoded.numericKey);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nameKeyKeepsSeparatorCharacters() {
+        // O nome é o último campo do cursor: quebras de linha nele não deslocam os demais
+        PlayerSnapshot player = player(1, "linha\num\ndois", 0, 0);
+        PlayerQuery.Cursor decoded = PlayerQuery.Cursor.decode(
+            PlayerQuery.Cursor.after(PlayerQuery.Sort.NAME, false, player).encode());
+        assertEquals("linha\num\ndois", decoded.textKey);
+        assertEquals(player.id, decoded.id);
+    }
+
+    @Test
+    public void malformedCursorsAreRejected() {
+        for (String value : new String[] {"%%%", "YWJj", cursorText("latency\na\nid\nnão-número"),
+                                          cursorText("desconhecida\na\nid\n1")}) {
+            try {
+                PlayerQuery.Cursor.decode(value);
+                fail("Cursor aceito: " + value);
+            } catch (IllegalArgumentException e) {
+                assertEquals("Cursor inválido", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void cursorMustMatchRequestedSort() {
+        String cursor = PlayerQuery.Cursor.after(PlayerQuery.Sort.LATENCY, false, player(1, "a", 5, 0)).encode();
+        try {
+            PlayerQuery.parse(QueryParams.parse("sort=-latency&cursor=" + cursor), CONFIG);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cursor não corresponde à ordenação pedida", e.getMessage());
+        }
+        // Sem sort, a ordenação vem do cursor
+        PlayerQuery query = PlayerQuery.parse(QueryParams.parse("cursor=" + cursor), CONFIG);
+        assertEquals(PlayerQuery.Sort.LATENCY, query.sort);
+        assertEquals(PlayerQuery.DEFAULT_PAGE_SIZE, query.limit);
+    }
+
+    @Test
+    public void pagesVisitEveryPlayerOnceInOrder() {
+        // Latências repetidas: o id desempata e o cursor precisa dele para não pular ninguém
+        List<PlayerSnapshot> players = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            players.add(player(i, "p" + i, i % 4, 10_000 - i));
+        }
+        ServerSnapshot snapshot = snapshot(1, players);
+
+        for (String sort : new String[] {"latency", "-latency", "name", "-name", "online_time", "-online_time", "id"}) {
+            List<PlayerSnapshot> all = PlayerQuery.parse(QueryParams.parse("sort=" + sort), CONFIG)
+                .execute(snapshot).players;
+            assertEquals(players.size(), all.size());
+
+            List<PlayerSnapshot> paged = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                String query = "sort=" + sort + "&limit=5" + (cursor != null ? "&cursor=" + cursor : "");
+                PlayerQuery.Page page = PlayerQuery.parse(QueryParams.parse(query), CONFIG).execute(snapshot);
+                paged.addAll(page.players);
+                cursor = page.nextCursor;
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(sort, all, paged);
+            assertEquals(sort, 5, pages);
+        }
+    }
+
+    @Test
+    public void lastPageHasNoCursor() {
+        ServerSnapshot snapshot = snapshot(1, Arrays.asList(player(1, "a", 1, 0), player(2, "b", 2, 0)));
+        PlayerQuery.Page page = PlayerQuery.parse(QueryParams.parse("sort=latency&limit=2"), CONFIG).execute(snapshot);
+        assertEquals(2, page.players.size());
+        assertNull(page.nextCursor);
+    }
+
+    @Test
+    public void joinsAndLeavesBetweenPagesNeitherDuplicateNorSkip() {
+        List<PlayerSnapshot> before = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            before.add(player(i, "p" + i, i * 10, 0));
+        }
+        PlayerQuery.Page first = PlayerQuery.parse(QueryParams.parse("sort=latency&limit=4"), CONFIG)
+            .execute(snapshot(1, before));
+        assertEquals(Arrays.asList(before.get(0), before.get(1), before.get(2), before.get(3)), first.players);
+
+        // Entre as páginas: sai um jogador já entregue (p3, o do cursor) e um ainda não (p6);
+        // entram um antes do cursor e outro depois dele
+        List<PlayerSnapshot> after = new ArrayList<>(before);
+        after.remove(6);
+        after.remove(3);
+        after.add(player(100, "novo-antes", 5, 0));
+        after.add(player(101, "novo-depois", 55, 0));
+        ServerSnapshot snapshot = snapshot(2, after);
+
+        List<PlayerSnapshot> rest = new ArrayList<>();
+        String cursor = first.nextCursor;
+        while (cursor != null) {
+            PlayerQuery.Page page = PlayerQuery.parse(QueryParams.parse("limit=4&cursor=" + cursor), CONFIG).execute(snapshot);
+            rest.addAll(page.players);
+            cursor = page.nextCursor;
+        }
+
+        Set<String> delivered = new HashSet<>();
+        for (PlayerSnapshot player : first.players) {
+            delivered.add(player.name);
+        }
+        List<String> names = new ArrayList<>();
+        for (PlayerSnapshot player : rest) {
+            assertTrue("Duplicado: " + player.name, delivered.add(player.name));
+            names.add(player.name);
+        }
+        assertEquals(Arrays.asList("p4", "p5", "novo-depois", "p7", "p8", "p9"), names);
+    }
+
+    @Test
+    public void filtersApplyAcrossPages() {
+        List<PlayerSnapshot> players = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            players.add(new PlayerSnapshot(builder(i, "p" + i, i, 0, i % 3)));
+        }
+        ServerSnapshot snapshot = snapshot(1, players);
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        do {
+            String query = "sort=latency&level_id=1&limit=2" + (cursor != null ? "&cursor=" + cursor : "");
+            PlayerQuery.Page page = PlayerQuery.parse(QueryParams.parse(query), CONFIG).execute(snapshot);
+            for (PlayerSnapshot player : page.players) {
+                names.add(player.name);
+            }
+            cursor = page.nextCursor;
+        } while (cursor != null);
+        assertEquals(Arrays.asList("p1", "p4", "p7", "p10"), names);
+    }
+
+    private static String cursorText(String raw) {
+        return java.util.Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    static PlayerSnapshot player(int n, String name, int latency, long joinTime) {
+        return new PlayerSnapshot(builder(n, name, latency, joinTime, 0));
+    }
+
+    private static PlayerSnapshot.Builder builder(int n, String name, int latency, long joinTime, int levelId) {
+        PlayerSnapshot.Builder b = new PlayerSnapshot.Builder();
+        b.name = name;
+        b.uuid = new UUID(0L, n);
+        b.latency = latency;
+        b.joinTime = joinTime;
+        b.levelId = levelId;
+        return b;
+    }
+
+    static ServerSnapshot snapshot(long sequence, List<PlayerSnapshot> players) {
+        ServerSnapshot.Builder b = new ServerSnapshot.Builder();
+        b.sequence = sequence;
+        b.capturedAt = sequence * 1000;
+        b.playersOnline = players.size();
+        b.players = players;
+        return b.build();
+    }
+}